@@ -0,0 +1,146 @@
+package net.got.worldgen;
+
+import com.mojang.serialization.Lifecycle;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
+import net.minecraft.world.level.levelgen.RandomState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Shared fixture for the worldgen benchmarks: a bootstrapped registry set,
+ * the real biomemap and palette read straight from the source tree, and an
+ * in-memory {@link ProtoChunk} stand-in for a level chunk.
+ *
+ * <p>No server, level or mod loader is started.  The map directory comes
+ * from the {@code got.jmh.data} system property, which the Gradle
+ * {@code jmh} task points at {@code src/generated/resources/data/got}.
+ */
+final class BenchWorld {
+
+    static final Path DATA = Path.of(System.getProperty("got.jmh.data", "src/generated/resources/data/got"));
+    static final Path BIOMEMAP = DATA.resolve("worldgen/map/biomemap.png");
+    static final Path PALETTE  = DATA.resolve("worldgen/biomecolors/biome_colors.json");
+
+    /** Same vertical extent as {@code dimension_type/knownworld.json}. */
+    static final LevelHeightAccessor HEIGHT = LevelHeightAccessor.create(-64, 384);
+
+    static final long SEED = 0x60_7A_11_CEL;
+
+    private static HolderLookup.Provider registries;
+    private static Registry<Biome>       biomes;
+
+    private BenchWorld() {}
+
+    // ── Bootstrap ─────────────────────────────────────────────────────────
+
+    /** Bootstraps vanilla and loads the map once per JVM. */
+    static synchronized void init() {
+        if (registries != null) return;
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        registries = VanillaRegistries.createLookup();
+
+        // A one-entry biome registry is all ProtoChunk needs for its biome containers.
+        MappedRegistry<Biome> reg = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        Registry.register(reg, Biomes.PLAINS,
+                registries.lookupOrThrow(Registries.BIOME).getOrThrow(Biomes.PLAINS).value());
+        reg.freeze();
+        biomes = reg;
+
+        BiomemapLoader.publish(Map.of(BiomemapLoader.DEFAULT_MAP,
+                BiomemapLoader.build(open(BIOMEMAP), loadPalette())));
+    }
+
+    static GotBiomePalette loadPalette() {
+        try (InputStream in = open(PALETTE)) {
+            return GotBiomePalette.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static InputStream open(Path path) {
+        try {
+            return Files.newInputStream(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Benchmark data missing: " + path.toAbsolutePath(), e);
+        }
+    }
+
+    // ── Worldgen objects ──────────────────────────────────────────────────
+
+    static GotBiomeSource biomeSource() {
+        Holder<Biome> plains = biomes.getOrThrow(Biomes.PLAINS);
+        return new GotBiomeSource(List.of(plains));
+    }
+
+    static GotChunkGenerator generator(GotTerrainMode mode) {
+        Holder<NoiseGeneratorSettings> settings = registries
+                .lookupOrThrow(Registries.NOISE_SETTINGS)
+                .getOrThrow(NoiseGeneratorSettings.OVERWORLD);
+        return new GotChunkGenerator(biomeSource(), settings, -1, -1, mode,
+                GotWarpLattice.DEFAULT_SPACING, BiomemapLoader.DEFAULT_MAP, Optional.empty());
+    }
+
+    static RandomState randomState() {
+        return RandomState.create(registries, NoiseGeneratorSettings.OVERWORLD, SEED);
+    }
+
+    /** A fresh, empty chunk at {@code pos} — the stand-in for a level chunk. */
+    static ProtoChunk emptyChunk(ChunkPos pos) {
+        return new ProtoChunk(pos, UpgradeData.EMPTY, HEIGHT, biomes, null);
+    }
+
+    // ── Sample positions ──────────────────────────────────────────────────
+
+    /** {@code count} reproducible chunk positions spread over the painted map. */
+    static ChunkPos[] chunksOnMap(int count) {
+        Random random = new Random(SEED);
+        BiomemapSnapshot map = BiomemapLoader.snapshot(BiomemapLoader.DEFAULT_MAP);
+        int halfX = map.width()  * map.scale() / 2;
+        int halfZ = map.height() * map.scale() / 2;
+        ChunkPos[] out = new ChunkPos[count];
+        for (int i = 0; i < count; i++) {
+            int wx = random.nextInt(halfX * 2) - halfX;
+            int wz = random.nextInt(halfZ * 2) - halfZ;
+            out[i] = new ChunkPos(wx >> 4, wz >> 4);
+        }
+        return out;
+    }
+
+    /** {@code count} reproducible world columns, packed {@code [2i] = x, [2i+1] = z}. */
+    static int[] columnsOnMap(int count) {
+        Random random = new Random(SEED ^ 1);
+        BiomemapSnapshot map = BiomemapLoader.snapshot(BiomemapLoader.DEFAULT_MAP);
+        int halfX = map.width()  * map.scale() / 2;
+        int halfZ = map.height() * map.scale() / 2;
+        int[] out = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+            out[i * 2]     = random.nextInt(halfX * 2) - halfX;
+            out[i * 2 + 1] = random.nextInt(halfZ * 2) - halfZ;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,70 @@
+package net.got.worldgen;
+
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Climate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GotBiomeSource#getNoiseBiome} over every quart of a chunk — the
+ * 4 × 96 × 4 calls Minecraft makes while creating a chunk's biomes.
+ *
+ * <p>{@code cold = true} drops the per-chunk caches before every chunk, which
+ * is what a freshly explored chunk costs; {@code false} measures repeat
+ * queries (spawning, {@code /locate}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BiomeSourceBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cold;
+
+    private GotTerrainContext context;
+    private GotBiomeSource    source;
+    private ChunkPos[]        chunks;
+    private int            next;
+
+    @Setup
+    public void setup() {
+        BenchWorld.init();
+        // The source answers from the map only once a generator has bound it.
+        GotChunkGenerator generator = BenchWorld.generator(GotTerrainMode.HEIGHTFIELD);
+        context = generator.context();
+        source  = (GotBiomeSource) generator.getBiomeSource();
+        chunks = BenchWorld.chunksOnMap(256);
+    }
+
+    @Benchmark
+    public void chunkBiomes(Blackhole bh) {
+        ChunkPos pos = chunks[next++ & 255];
+        if (cold) context.invalidateAll();
+
+        int minQY = BenchWorld.HEIGHT.getMinY() >> 2;
+        int maxQY = minQY + (BenchWorld.HEIGHT.getHeight() >> 2);
+        Climate.Sampler sampler = Climate.empty();
+        for (int qx = 0; qx < 4; qx++) {
+            for (int qz = 0; qz < 4; qz++) {
+                for (int qy = minQY; qy < maxQY; qy++) {
+                    bh.consume(source.getNoiseBiome((pos.x << 2) + qx, qy, (pos.z << 2) + qz, sampler));
+                }
+            }
+        }
+    }
+}
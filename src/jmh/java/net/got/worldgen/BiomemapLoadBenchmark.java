@@ -0,0 +1,44 @@
+package net.got.worldgen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BiomemapLoader#build} on the real 2513 × 1962 map: PNG decode plus
+ * palette quantisation and the coarser levels, i.e. the datapack (re)load
+ * cost.  The shore field is computed on first query, outside this.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BiomemapLoadBenchmark {
+
+    private GotBiomePalette palette;
+
+    @Setup
+    public void setup() {
+        palette = BenchWorld.loadPalette();
+    }
+
+    @Benchmark
+    public int load() throws IOException {
+        try (InputStream in = BenchWorld.open(BenchWorld.BIOMEMAP)) {
+            return BiomemapLoader.build(in, palette).width();
+        }
+    }
+}
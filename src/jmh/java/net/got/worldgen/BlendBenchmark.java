@@ -0,0 +1,110 @@
+package net.got.worldgen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-column worldgen primitives over random columns of the real map:
+ * the biomemap blend, the exact and lattice domain warps, and the density
+ * function.  Times are per column.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BlendBenchmark {
+
+    private static final int COLUMNS = 1024;
+
+    private GotTerrainContext context;
+    private int[]             columns;
+
+    @Setup
+    public void setup() {
+        BenchWorld.init();
+        context = BenchWorld.generator(GotTerrainMode.HEIGHTFIELD).context();
+        columns = BenchWorld.columnsOnMap(COLUMNS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COLUMNS)
+    public void bilinearBlend(Blackhole bh) {
+        for (int i = 0; i < COLUMNS; i++) {
+            bh.consume(GotChunkGenerator.bilinearBlend(context, columns[i * 2], columns[i * 2 + 1]));
+        }
+    }
+
+    /** The exact two-sample warp (formerly {@code warpCoordinates}). */
+    @Benchmark
+    @OperationsPerInvocation(COLUMNS)
+    public void warpExact(Blackhole bh) {
+        for (int i = 0; i < COLUMNS; i++) {
+            int wx = columns[i * 2], wz = columns[i * 2 + 1];
+            bh.consume(GotChunkGenerator.warpX(wx, wz));
+            bh.consume(GotChunkGenerator.warpZ(wx, wz));
+        }
+    }
+
+    /** The interpolated warp worldgen actually reads. */
+    @Benchmark
+    @OperationsPerInvocation(COLUMNS)
+    public void warpLattice(LatticeCheck check, Blackhole bh) {
+        for (int i = 0; i < COLUMNS; i++) {
+            int wx = columns[i * 2], wz = columns[i * 2 + 1];
+            bh.consume(context.lattice().warpX(wx, wz));
+            bh.consume(context.lattice().warpZ(wx, wz));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COLUMNS)
+    public void evalDensity(Blackhole bh) {
+        for (int i = 0; i < COLUMNS; i++) {
+            int wx = columns[i * 2], wz = columns[i * 2 + 1];
+            bh.consume(context.evalDensity(wx, GotChunkGenerator.SEA_LEVEL, wz, 64f, 24f));
+        }
+    }
+
+    /**
+     * Fails the run when any lattice spacing strays further from the exact
+     * warp than its {@link GotWarpLattice#errorBound()} — once, before the
+     * lattice is timed.  Random columns across the whole map, so each one
+     * mostly builds a fresh tile; a few seconds per spacing.
+     */
+    @State(Scope.Benchmark)
+    public static class LatticeCheck {
+
+        private static final int SAMPLES = 1000;
+
+        @Setup(Level.Trial)
+        public void check() {
+            BenchWorld.init();
+            BiomemapSnapshot map   = BiomemapLoader.snapshot(BiomemapLoader.DEFAULT_MAP);
+            int              halfX = map.width()  * map.scale() / 2;
+            int              halfZ = map.height() * map.scale() / 2;
+            for (int spacing = 2; spacing <= GotWarpLattice.MAX_SPACING; spacing <<= 1) {
+                GotWarpLattice lattice = GotWarpLattice.forSpacing(spacing);
+                float          error   = lattice.measureError(SAMPLES, halfX, halfZ, spacing);
+                if (error > lattice.errorBound()) {
+                    throw new IllegalStateException("Warp lattice at spacing " + spacing + " is off by "
+                            + error + " blocks, above its bound of " + lattice.errorBound());
+                }
+            }
+        }
+    }
+}
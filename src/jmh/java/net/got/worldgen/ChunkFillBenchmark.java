@@ -0,0 +1,96 @@
+package net.got.worldgen;
+
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.levelgen.RandomState;
+import net.minecraft.world.level.levelgen.blending.Blender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-chunk passes against an in-memory {@link ProtoChunk}: the terrain
+ * fill in both terrain modes, and the native surface and coastal mud passes
+ * over a filled chunk.
+ *
+ * <p>Each invocation gets a fresh chunk at the next of 256 positions spread
+ * over the map, so land, coast and ocean chunks are all represented.  With
+ * {@code cold = true} the blend-field cache is dropped first, charging the
+ * chunk its own blend as it would on first generation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ChunkFillBenchmark {
+
+    @Param({"heightfield", "noise_3d"})
+    public String mode;
+
+    @Param({"false", "true"})
+    public boolean cold;
+
+    private GotChunkGenerator generator;
+    private RandomState       random;
+    private ChunkPos[]        chunks;
+    private int               next;
+
+    /** Chunk handed to the next invocation. */
+    private ProtoChunk chunk;
+    /** Same position, already filled — input to the surface and mud passes. */
+    private ProtoChunk filled;
+
+    /** Any non-air state stands in for the mod's quagmire block, which is unregistered here. */
+    private static final BlockState QUAGMIRE = Blocks.MUDDY_MANGROVE_ROOTS.defaultBlockState();
+
+    @Setup
+    public void setup() {
+        BenchWorld.init();
+        generator = BenchWorld.generator(GotTerrainMode.valueOf(mode.toUpperCase()));
+        random    = BenchWorld.randomState();
+        chunks    = BenchWorld.chunksOnMap(256);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextChunk() {
+        ChunkPos pos = chunks[next++ & 255];
+        chunk  = BenchWorld.emptyChunk(pos);
+        filled = BenchWorld.emptyChunk(pos);
+        generator.fillFromNoise(Blender.empty(), random, null, filled).join();
+        if (cold) generator.context().invalidateAll();
+    }
+
+    @Benchmark
+    public ChunkAccess fillFromNoise() {
+        return generator.fillFromNoise(Blender.empty(), random, null, chunk).join();
+    }
+
+    /** Every column surfaces as the default biome: the bench registry only holds plains. */
+    @Benchmark
+    public ChunkAccess buildSurface() {
+        GotSurfaceBuilder.build(filled, 0, "noise_3d".equals(mode));
+        return filled;
+    }
+
+    @Benchmark
+    public ChunkAccess applyCoastalMud() {
+        generator.applyCoastalMud(filled, QUAGMIRE);
+        return filled;
+    }
+}
@@ -0,0 +1,98 @@
+package net.got.worldgen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GotPerlinNoise} point and lattice sampling.  Needs no game bootstrap.
+ *
+ * <p>Point benchmarks report time per sample; the lattice benchmark times one
+ * 32 × 32 lattice, so divide by 1024 to compare.
+ *
+ * <p>Setup first checks that the SIMD kernel reproduces the scalar samples
+ * bit for bit and refuses to run otherwise — a vectorised number is only
+ * worth having if the terrain it generates is unchanged.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NoiseBenchmark {
+
+    private static final int POINTS = 1024;
+    private static final int SEED   = 0x3F9A1B;
+
+    private final float[] xs  = new float[POINTS];
+    private final float[] zs  = new float[POINTS];
+    private final float[] row = new float[32];
+    private final float[] col = new float[32];
+    private final float[] out = new float[32 * 32];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1);
+        for (int i = 0; i < POINTS; i++) {
+            xs[i] = random.nextFloat() * 4000f - 2000f;
+            zs[i] = random.nextFloat() * 4000f - 2000f;
+        }
+        for (int i = 0; i < 32; i++) {
+            row[i] = (1000 + i) / 256f;
+            col[i] = (-700 + i) / 256f;
+        }
+        checkVectorMatchesScalar();
+    }
+
+    /** Random rows across six orders of magnitude, both signs; fails on any differing bit. */
+    private static void checkVectorMatchesScalar() {
+        if (!GotPerlinNoise.isVectorised()) {
+            throw new IllegalStateException("SIMD noise kernel not active; run with --add-modules jdk.incubator.vector");
+        }
+        Random  random = new Random(2);
+        float[] xs     = new float[37];
+        for (int t = 0; t < 10_000; t++) {
+            float scale = (float) Math.pow(10, random.nextInt(6));
+            for (int i = 0; i < xs.length; i++) xs[i] = (random.nextFloat() * 2 - 1) * scale;
+            float y    = (random.nextFloat() * 2 - 1) * scale;
+            float z    = (random.nextFloat() * 2 - 1) * scale;
+            int   seed = random.nextInt();
+            if (!GotPerlinNoise.vectorMatchesScalar(xs, y, z, seed)) {
+                throw new IllegalStateException("SIMD noise differs from scalar at y=" + y + ", z=" + z + ", seed=" + seed);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void sample(Blackhole bh) {
+        for (int i = 0; i < POINTS; i++) bh.consume(GotPerlinNoise.sample(xs[i], 0f, zs[i], SEED));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void fbm(Blackhole bh) {
+        for (int i = 0; i < POINTS; i++) bh.consume(GotPerlinNoise.fbm(xs[i], 0f, zs[i], SEED));
+    }
+
+    @Benchmark
+    public float[] sampleLattice32() {
+        GotPerlinNoise.sampleLattice(row, 0f, col, SEED, out);
+        return out;
+    }
+
+}
@@ -1,6 +1,8 @@
 package net.got;
 
 import net.got.client.GotClient;
+import net.got.client.command.GotCommand;
+import net.got.client.command.GotMapCommand;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import java.util.HashSet;
 import net.got.init.GotModBlocks;
@@ -16,6 +18,9 @@ import net.got.init.GotModTabs;
 import net.got.network.GotNetwork;
 import net.got.registry.WorldgenRegistries;
 import net.got.sounds.ModSounds;
+import net.got.worldgen.GotPregen;
+import net.got.worldgen.GotRegionGen;
+import net.got.worldgen.GotWorldgenBench;
 import net.got.worldgen.MapReloadListener;
 
 import net.minecraft.resources.ResourceLocation;
@@ -30,6 +35,9 @@ import net.neoforged.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.neoforged.fml.loading.FMLEnvironment;
 import net.neoforged.neoforge.common.NeoForge;
 import net.neoforged.neoforge.event.AddServerReloadListenersEvent;  // ← renamed in 21.4
+import net.neoforged.neoforge.event.RegisterCommandsEvent;
+import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.server.ServerStoppingEvent;
 import net.neoforged.neoforge.event.tick.ServerTickEvent;
 import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
 
@@ -59,6 +67,7 @@ public final class GotMod {
         assert modBus != null;
         modBus.addListener(this::commonSetup);
         modBus.addListener(this::registerNetworking);
+        modBus.addListener(GotWorldgenBench::addPackFinders);
 
         /* ---------- Registries ---------- */
         GotWoodTypes.init();
@@ -163,6 +172,32 @@ public final class GotMod {
         LOGGER.info("Registered GoT map reload listener");
     }
 
+    /* ---------------------------- */
+    /* Commands                     */
+    /* ---------------------------- */
+
+    @SubscribeEvent
+    public void onRegisterCommands(RegisterCommandsEvent event) {
+        GotMapCommand.register(event.getDispatcher());
+        GotCommand.register(event.getDispatcher());
+    }
+
+    /* ---------------------------- */
+    /* Pregeneration                */
+    /* ---------------------------- */
+
+    @SubscribeEvent
+    public void onServerStarted(ServerStartedEvent event) {
+        GotRegionGen.runIfRequested(event.getServer());
+        GotPregen.resumeAll(event.getServer());
+    }
+
+    @SubscribeEvent
+    public void onServerStopping(ServerStoppingEvent event) {
+        GotPregen.suspendAll();
+        GotWorldgenBench.abort();
+    }
+
     /* ---------------------------- */
     /* Server Work Queue            */
     /* ---------------------------- */
@@ -187,6 +222,8 @@ public final class GotMod {
 
         ready.forEach(t -> t.getA().run());
         WORK_QUEUE.removeAll(ready);
+
+        GotNetwork.tick(event.getServer());
     }
 
     /* ---------------------------- */
@@ -2,6 +2,8 @@ package net.got.client;
 
 import net.got.client.gui.GotMainMenuScreen;
 import net.got.client.input.GotKeybinds;
+import net.got.client.network.GotClientNetwork;
+import net.got.network.GotNetwork;
 import net.minecraft.client.Minecraft;
 import net.neoforged.neoforge.client.event.ClientTickEvent;
 import net.neoforged.neoforge.common.NeoForge;
@@ -12,6 +14,7 @@ public final class GotClient {
 
     public static void init() {
         NeoForge.EVENT_BUS.addListener(GotClient::onClientTick);
+        GotNetwork.setClientHandler(GotClientNetwork.INSTANCE);
     }
 
     private static void onClientTick(ClientTickEvent.Post event) {
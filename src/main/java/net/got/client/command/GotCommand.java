@@ -0,0 +1,52 @@
+package net.got.client.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import net.got.worldgen.GotPregen;
+import net.got.worldgen.GotWorldgenBench;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+
+/**
+ * The {@code /got} operator command tree.
+ *
+ * <pre>
+ *   /got bench worldgen &lt;radius&gt;                      time generation of a (2r+1)² chunk square
+ *   /got pregen start [all|land|no_deep_ocean] [mspt]   pregenerate this dimension's map footprint
+ *   /got pregen stop | status | reset
+ * </pre>
+ */
+public class GotCommand {
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(
+                Commands.literal("got")
+                        .requires(src -> src.hasPermission(2))
+                        .then(Commands.literal("bench")
+                                .then(Commands.literal("worldgen")
+                                        .then(Commands.argument("radius",
+                                                        IntegerArgumentType.integer(1, GotWorldgenBench.MAX_RADIUS))
+                                                .executes(ctx -> GotWorldgenBench.start(ctx.getSource(),
+                                                        IntegerArgumentType.getInteger(ctx, "radius"))))))
+                        .then(pregen())
+        );
+    }
+
+    private static LiteralArgumentBuilder<CommandSourceStack> pregen() {
+        LiteralArgumentBuilder<CommandSourceStack> start = Commands.literal("start")
+                .executes(ctx -> GotPregen.start(ctx.getSource(), GotPregen.Mode.ALL, GotPregen.DEFAULT_TARGET_MSPT));
+        for (GotPregen.Mode mode : GotPregen.Mode.values()) {
+            start.then(Commands.literal(mode.getSerializedName())
+                    .executes(ctx -> GotPregen.start(ctx.getSource(), mode, GotPregen.DEFAULT_TARGET_MSPT))
+                    .then(Commands.argument("target_mspt", IntegerArgumentType.integer(5, 1000))
+                            .executes(ctx -> GotPregen.start(ctx.getSource(), mode,
+                                    IntegerArgumentType.getInteger(ctx, "target_mspt")))));
+        }
+        return Commands.literal("pregen")
+                .then(start)
+                .then(Commands.literal("stop").executes(ctx -> GotPregen.stop(ctx.getSource())))
+                .then(Commands.literal("status").executes(ctx -> GotPregen.status(ctx.getSource())))
+                .then(Commands.literal("reset").executes(ctx -> GotPregen.reset(ctx.getSource())));
+    }
+}
@@ -1,5 +1,6 @@
 package net.got.client.gui;
 
+import net.got.client.gui.widget.GotMapTiles;
 import net.got.client.gui.widget.GotMapWidget;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiGraphics;
@@ -38,6 +39,8 @@ public class GotMapScreen extends Screen {
 
     public GotMapScreen() {
         super(Component.literal("Map"));
+        // Start decoding the tile pyramid before the first frame needs it
+        GotMapTiles.forTexture(MAP_TEXTURE);
     }
 
     /* ------------------------------------------------------------------ */
@@ -46,6 +49,7 @@ public class GotMapScreen extends Screen {
 
     @Override
     protected void init() {
+        if (mapWidget != null) mapWidget.releaseTextures();
         mapWidget = null;
 
         int lineH = font.lineHeight;
@@ -149,6 +153,13 @@ public class GotMapScreen extends Screen {
         return mapWidget != null && mapWidget.keyPressed(keyCode, scanCode, modifiers);
     }
 
+    @Override
+    public void removed() {
+        // Free the tile atlases; the decoded pyramid stays for the next open
+        if (mapWidget != null) mapWidget.releaseTextures();
+        GotMapTiles.releaseAtlases();
+    }
+
     @Override
     public boolean isPauseScreen() { return false; }
 }
\ No newline at end of file
@@ -0,0 +1,377 @@
+package net.got.client.gui.widget;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import com.mojang.logging.LogUtils;
+import net.got.worldgen.GotTerrainTiles;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.GuiGraphics;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.Mth;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tile pyramid drawn by {@link GotMapWidget}: one map layer, split into
+ * {@value #TILE}-texel tiles at several resolutions.
+ *
+ * <h2>Levels</h2>
+ * <p>Resolutions are counted in map-image pixels per texel: level {@code l}
+ * of a {@link Source} has {@code 2^(finestShift + l)} image pixels per
+ * texel.  The painted map's levels start at the image itself and halve it
+ * with a 2 × 2 box filter ({@link #forTexture}); the terrain layer also has
+ * levels finer than the image ({@link GotTerrainLayer}).  The coarsest
+ * level of every source fits in one tile.
+ *
+ * <h2>Drawing</h2>
+ * <p>Each frame draws only the tiles that intersect the canvas, taken from
+ * the level closest to one texel per screen pixel.  Zoomed out, the map
+ * comes from pre-filtered levels and no longer shimmers; zoomed in, only
+ * the few tiles on screen are touched.
+ *
+ * <p>Tiles are uploaded lazily into the slots of one {@value #ATLAS_SIZE}²
+ * atlas texture, at most {@value #UPLOADS_PER_FRAME} per frame, and evicted
+ * least-recently-drawn first.  Slot 0 permanently holds the coarsest level,
+ * which is drawn under the tiles as a placeholder while they stream in.
+ * Every quad samples the same texture, so a whole layer is one batched draw.
+ *
+ * <p>Render thread only; sources do their own background work.
+ */
+public final class GotMapTiles {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    /* ============================================================= */
+    /* ======================== CONSTANTS ========================== */
+    /* ============================================================= */
+
+    /** Texels per tile edge; terrain sources deliver tiles of this size. */
+    static final int TILE = GotTerrainTiles.TILE;
+
+    private static final int ATLAS_SIZE  = 2048;
+    private static final int ATLAS_TILES = ATLAS_SIZE / TILE;
+    /** Atlas slots; slot 0 is reserved for the coarsest level. */
+    private static final int SLOTS       = ATLAS_TILES * ATLAS_TILES;
+
+    private static final int UPLOADS_PER_FRAME = 6;
+
+    private static final Map<ResourceLocation, GotMapTiles> BY_ID = new HashMap<>();
+
+    /* ============================================================= */
+    /* ========================== SOURCE =========================== */
+    /* ============================================================= */
+
+    /** Where a pyramid's texels come from. */
+    interface Source {
+        /** log2 of map-image pixels per texel at level 0; negative for levels finer than the image. */
+        int finestShift();
+
+        /** Number of levels; {@code 0} while the source is not ready. */
+        int levels();
+
+        /** Size of {@code level} in texels. */
+        int width(int level);
+        int height(int level);
+
+        /**
+         * Whether tile {@code (tx, tz)} of {@code level} can be uploaded now.
+         * A source that builds tiles in the background starts on it here and
+         * is asked again next frame; must be cheap.
+         */
+        boolean available(int level, int tx, int tz);
+
+        /**
+         * Uploads an {@link #available} tile into the bound texture at
+         * {@code (atlasX, atlasY)}.
+         */
+        void upload(int level, int tx, int tz, int atlasX, int atlasY);
+
+        /** {@code true} once the source can never produce tiles. */
+        boolean failed();
+    }
+
+    /* ============================================================= */
+    /* ========================== STATE ============================ */
+    /* ============================================================= */
+
+    private final ResourceLocation atlasId;
+    private final Source           source;
+
+    private DynamicTexture atlas;
+    private boolean        coarseUploaded;
+    /** Resident tile key → atlas slot, least recently drawn first. */
+    private final LinkedHashMap<Long, Integer> resident  = new LinkedHashMap<>(SLOTS, 0.75f, true);
+    private final ArrayDeque<Integer>          freeSlots = new ArrayDeque<>();
+
+    /* ============================================================= */
+    /* ======================== LIFECYCLE ========================== */
+    /* ============================================================= */
+
+    /** The painted-map pyramid of {@code texture}, starting its background decode on first use. */
+    public static GotMapTiles forTexture(ResourceLocation texture) {
+        ResourceLocation id = ResourceLocation.fromNamespaceAndPath(texture.getNamespace(), "map_tiles/" + texture.getPath());
+        return BY_ID.computeIfAbsent(id, k -> new GotMapTiles(k, new ImageSource(texture)));
+    }
+
+    /**
+     * A pyramid outside the registry, for a layer that lives only as long as
+     * its widget; {@link #release()} it when done.
+     */
+    static GotMapTiles of(ResourceLocation atlasId, Source source) {
+        return new GotMapTiles(atlasId, source);
+    }
+
+    /**
+     * Frees every atlas texture.  Sources keep their own data, so reopening
+     * the map only re-uploads the tiles it draws.
+     */
+    public static void releaseAtlases() {
+        BY_ID.values().forEach(GotMapTiles::releaseAtlas);
+    }
+
+    private GotMapTiles(ResourceLocation atlasId, Source source) {
+        this.atlasId = atlasId;
+        this.source  = source;
+    }
+
+    /** Frees this pyramid's atlas texture. */
+    void release() {
+        releaseAtlas();
+    }
+
+    private void releaseAtlas() {
+        if (atlas == null) return;
+        Minecraft.getInstance().getTextureManager().release(atlasId);
+        atlas          = null;
+        coarseUploaded = false;
+        resident.clear();
+        freeSlots.clear();
+    }
+
+    /** {@code true} once the source has failed; the caller should draw something else. */
+    boolean failed() {
+        return source.failed();
+    }
+
+    /* ============================================================= */
+    /* ========================== DRAW ============================= */
+    /* ============================================================= */
+
+    /**
+     * Draws the layer with image pixel {@code (0, 0)} at GUI position
+     * {@code (originX, originY)} and {@code zoom} GUI units per image pixel,
+     * covering at least the clip rectangle.  Draws nothing until the source
+     * is ready.
+     */
+    void draw(GuiGraphics gfx, double originX, double originY, double zoom,
+              int clipX0, int clipY0, int clipX1, int clipY1) {
+        int levels = source.levels();
+        if (levels == 0 || source.failed()) return;
+        int finest = source.finestShift();
+        int top    = levels - 1;
+
+        if (atlas == null) {
+            atlas = new DynamicTexture(ATLAS_SIZE, ATLAS_SIZE, true);
+            Minecraft.getInstance().getTextureManager().register(atlasId, atlas);
+            for (int s = 1; s < SLOTS; s++) freeSlots.add(s);
+        }
+        int budget = UPLOADS_PER_FRAME;
+        if (!coarseUploaded && source.available(top, 0, 0)) {
+            atlas.bind();
+            source.upload(top, 0, 0, 0, 0);
+            coarseUploaded = true;
+            budget--;
+        }
+        if (coarseUploaded) {
+            quad(gfx, originX, originY, Math.scalb(zoom, finest + top),
+                 0, 0, source.width(top), source.height(top), 0);
+        }
+
+        // Finest level with at least one screen pixel per texel, coarser if its tiles would not fit the atlas.
+        double pixelsPerImagePx = zoom * Minecraft.getInstance().getWindow().getGuiScale();
+        int    level            = Mth.clamp(Mth.floor(-Math.log(pixelsPerImagePx) / Math.log(2)) - finest, 0, top);
+        int[]  range            = new int[4];
+        while (level < top && visibleTiles(level, originX, originY, Math.scalb(zoom, finest + level),
+                                           clipX0, clipY0, clipX1, clipY1, range) > SLOTS - 1) {
+            level++;
+        }
+        if (level == top) return;
+
+        double scale = Math.scalb(zoom, finest + level);
+        visibleTiles(level, originX, originY, scale, clipX0, clipY0, clipX1, clipY1, range);
+
+        // Refresh every visible resident tile first, so eviction below only takes hidden ones.
+        for (int tz = range[1]; tz <= range[3]; tz++)
+            for (int tx = range[0]; tx <= range[2]; tx++) resident.get(key(level, tx, tz));
+
+        for (int tz = range[1]; tz <= range[3]; tz++) {
+            for (int tx = range[0]; tx <= range[2]; tx++) {
+                long    key  = key(level, tx, tz);
+                Integer slot = resident.get(key);
+                if (slot == null) {
+                    if (budget == 0 || !source.available(level, tx, tz)) continue;
+                    budget--;
+                    slot = allocate();
+                    atlas.bind();
+                    source.upload(level, tx, tz, atlasX(slot), atlasY(slot));
+                    resident.put(key, slot);
+                }
+                int px = tx * TILE, pz = tz * TILE;
+                quad(gfx, originX, originY, scale, px, pz,
+                     Math.min(TILE, source.width(level) - px), Math.min(TILE, source.height(level) - pz), slot);
+            }
+        }
+    }
+
+    /**
+     * Writes the tile range of {@code level} that intersects the clip
+     * rectangle into {@code out} as {@code {tx0, tz0, tx1, tz1}} (inclusive)
+     * and returns the tile count.
+     */
+    private int visibleTiles(int level, double originX, double originY, double scale,
+                             int clipX0, int clipY0, int clipX1, int clipY1, int[] out) {
+        int w = source.width(level), h = source.height(level);
+        int px0 = Mth.clamp(Mth.floor((clipX0 - originX) / scale), 0, w - 1);
+        int pz0 = Mth.clamp(Mth.floor((clipY0 - originY) / scale), 0, h - 1);
+        int px1 = Mth.clamp(Mth.ceil ((clipX1 - originX) / scale), 1, w) - 1;
+        int pz1 = Mth.clamp(Mth.ceil ((clipY1 - originY) / scale), 1, h) - 1;
+        out[0] = px0 / TILE;
+        out[1] = pz0 / TILE;
+        out[2] = Math.max(out[0], px1 / TILE);
+        out[3] = Math.max(out[1], pz1 / TILE);
+        return (out[2] - out[0] + 1) * (out[3] - out[1] + 1);
+    }
+
+    private int allocate() {
+        Integer free = freeSlots.poll();
+        if (free != null) return free;
+        Iterator<Map.Entry<Long, Integer>> eldest = resident.entrySet().iterator();
+        int slot = eldest.next().getValue();
+        eldest.remove();
+        return slot;
+    }
+
+    /** One quad: texels {@code [px, px + w) × [pz, pz + h)} of a level from atlas {@code slot}. */
+    private void quad(GuiGraphics gfx, double originX, double originY, double scale,
+                      int px, int pz, int w, int h, int slot) {
+        // Edges rounded independently so neighbouring tiles share them exactly.
+        int x0 = Mth.floor(originX + px * scale), x1 = Mth.floor(originX + (px + w) * scale);
+        int y0 = Mth.floor(originY + pz * scale), y1 = Mth.floor(originY + (pz + h) * scale);
+        if (x1 <= x0 || y1 <= y0) return;
+        gfx.blit(RenderType::guiTextured, atlasId,
+                x0, y0,
+                atlasX(slot), atlasY(slot),
+                x1 - x0, y1 - y0,
+                w, h,
+                ATLAS_SIZE, ATLAS_SIZE);
+    }
+
+    private static int atlasX(int slot) { return (slot % ATLAS_TILES) * TILE; }
+    private static int atlasY(int slot) { return (slot / ATLAS_TILES) * TILE; }
+
+    private static long key(int level, int tx, int tz) {
+        return (long) level << 40 | (long) tz << 20 | tx;
+    }
+
+    /* ============================================================= */
+    /* ====================== PAINTED MAP ========================== */
+    /* ============================================================= */
+
+    /**
+     * The painted map: decoded once per session, off the render thread, into
+     * levels that each halve the one below with a 2 × 2 box filter; level 0
+     * is the image itself.
+     */
+    private static final class ImageSource implements Source {
+
+        private final CompletableFuture<NativeImage[]> levels;
+
+        ImageSource(ResourceLocation texture) {
+            this.levels = CompletableFuture.supplyAsync(() -> build(texture), Util.backgroundExecutor());
+            this.levels.exceptionally(e -> {
+                LOGGER.error("[GoT Map] Failed to build tile pyramid for {}", texture, e);
+                return null;
+            });
+        }
+
+        @Override public int finestShift() { return 0; }
+
+        @Override
+        public int levels() {
+            return levels.isDone() && !failed() ? levels.join().length : 0;
+        }
+
+        @Override public int width(int level)  { return levels.join()[level].getWidth();  }
+        @Override public int height(int level) { return levels.join()[level].getHeight(); }
+
+        @Override public boolean available(int level, int tx, int tz) { return true; }
+
+        @Override
+        public void upload(int level, int tx, int tz, int atlasX, int atlasY) {
+            NativeImage img = levels.join()[level];
+            int px = tx * TILE, pz = tz * TILE;
+            img.upload(0, atlasX, atlasY, px, pz,
+                    Math.min(TILE, img.getWidth() - px), Math.min(TILE, img.getHeight() - pz), false);
+        }
+
+        @Override
+        public boolean failed() {
+            return levels.isCompletedExceptionally();
+        }
+
+        private static NativeImage[] build(ResourceLocation texture) {
+            NativeImage base;
+            try (InputStream in = Minecraft.getInstance().getResourceManager().open(texture)) {
+                base = NativeImage.read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            List<NativeImage> out = new ArrayList<>();
+            out.add(base);
+            for (NativeImage level = base; level.getWidth() > TILE || level.getHeight() > TILE; ) {
+                level = halve(level);
+                out.add(level);
+            }
+            return out.toArray(NativeImage[]::new);
+        }
+
+        /** 2 × 2 box filter; odd edges repeat their last row / column. */
+        private static NativeImage halve(NativeImage src) {
+            int w  = src.getWidth(),  h  = src.getHeight();
+            int ow = (w + 1) >> 1,    oh = (h + 1) >> 1;
+            NativeImage dst = new NativeImage(ow, oh, false);
+            for (int y = 0; y < oh; y++) {
+                int y0 = 2 * y, y1 = Math.min(2 * y + 1, h - 1);
+                for (int x = 0; x < ow; x++) {
+                    int x0 = 2 * x, x1 = Math.min(2 * x + 1, w - 1);
+                    dst.setPixel(x, y, average(src.getPixel(x0, y0), src.getPixel(x1, y0),
+                                               src.getPixel(x0, y1), src.getPixel(x1, y1)));
+                }
+            }
+            return dst;
+        }
+
+        /** Per-channel rounded mean; channel order does not matter. */
+        private static int average(int a, int b, int c, int d) {
+            int out = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                int sum = (a >>> shift & 0xFF) + (b >>> shift & 0xFF) + (c >>> shift & 0xFF) + (d >>> shift & 0xFF);
+                out |= ((sum + 2) >> 2) << shift;
+            }
+            return out;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package net.got.client.gui.widget;
 
 import net.got.network.MapTeleportPayload;
+import net.got.worldgen.GotTerrainTiles;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.components.AbstractWidget;
@@ -13,6 +14,7 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.Mth;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.lwjgl.glfw.GLFW;
 
 public class GotMapWidget extends AbstractWidget {
 
@@ -57,9 +59,15 @@ public class GotMapWidget extends AbstractWidget {
     /* ============================================================= */
 
     private final ResourceLocation mapTexture;
+    private final GotMapTiles      tiles;
     private final int textureWidth;
     private final int textureHeight;
 
+    /** Terrain layer, toggled with T; survives reopening the screen. */
+    private static boolean terrainVisible = false;
+    @Nullable private GotTerrainLayer terrain;
+    @Nullable private GotMapTiles     terrainTiles;
+
     private double zoom, panX, panY;
     private int    zoomIndex = 0;
 
@@ -75,6 +83,7 @@ public class GotMapWidget extends AbstractWidget {
                         int textureWidth, int textureHeight) {
         super(x, y, width, height, Component.empty());
         this.mapTexture    = texture;
+        this.tiles         = GotMapTiles.forTexture(texture);
         this.textureWidth  = textureWidth;
         this.textureHeight = textureHeight;
 
@@ -83,6 +92,45 @@ public class GotMapWidget extends AbstractWidget {
         snapPanToPlayer();
     }
 
+    /* ============================================================= */
+    /* ======================= TERRAIN LAYER ======================= */
+    /* ============================================================= */
+
+    /**
+     * Opens the terrain layer if there is none yet, or replaces one that was
+     * superseded (a remote server reloaded its map).  {@code false} while
+     * this world offers none — on a remote server, until it has answered.
+     */
+    private boolean openTerrain() {
+        if (terrain != null && terrain.isClosed()) releaseTextures();
+        if (terrainTiles != null) return true;
+        terrain = GotTerrainLayer.forCurrentWorld();
+        if (terrain == null) return false;
+        terrainTiles = GotMapTiles.of(terrain.atlasId(), terrain);
+        return true;
+    }
+
+    /**
+     * Draws the terrain layer.  Its pyramid is laid over the biomemap, not
+     * the painted image, so its origin and scale go through world
+     * coordinates.
+     */
+    private void drawTerrain(GuiGraphics gfx) {
+        GotTerrainTiles.Layout layout  = terrain.layout();
+        double                 originX = getX() - panX + (layout.originX() + WORLD_WIDTH_BLOCKS  / 2.0) / BLOCKS_PER_PIXEL * zoom;
+        double                 originY = getY() - panY + (layout.originZ() + WORLD_HEIGHT_BLOCKS / 2.0) / BLOCKS_PER_PIXEL * zoom;
+        terrainTiles.draw(gfx, originX, originY, zoom * layout.blocksPerPixel() / BLOCKS_PER_PIXEL,
+                getX(), getY(), getX() + width, getY() + height);
+    }
+
+    /** Frees the terrain layer's textures and pending tiles; the screen calls this when the widget goes away. */
+    public void releaseTextures() {
+        if (terrainTiles != null) terrainTiles.release();
+        if (terrain != null) terrain.close();
+        terrainTiles = null;
+        terrain      = null;
+    }
+
     /* ============================================================= */
     /* ==================== ZOOM / PAN HELPERS ==================== */
     /* ============================================================= */
@@ -130,15 +178,24 @@ public class GotMapWidget extends AbstractWidget {
         // Scissor-clip to canvas interior
         gfx.enableScissor(getX(), getY(), getX() + width, getY() + height);
 
-        // Map texture
-        int zoomedW = (int) (textureWidth  * zoom);
-        int zoomedH = (int) (textureHeight * zoom);
-        int drawX   = (int) (getX() - panX);
-        int drawY   = (int) (getY() - panY);
-        gfx.blit(RenderType::guiTextured, mapTexture,
-                drawX, drawY, 0, 0,
-                zoomedW, zoomedH,
-                zoomedW, zoomedH);
+        // Map texture — only the visible tiles of the matching pyramid level;
+        // the whole image in one quad if the pyramid could not be built
+        if (!tiles.failed()) {
+            tiles.draw(gfx, getX() - panX, getY() - panY, zoom,
+                    getX(), getY(), getX() + width, getY() + height);
+        } else {
+            int zoomedW = (int) (textureWidth  * zoom);
+            int zoomedH = (int) (textureHeight * zoom);
+            int drawX   = (int) (getX() - panX);
+            int drawY   = (int) (getY() - panY);
+            gfx.blit(RenderType::guiTextured, mapTexture,
+                    drawX, drawY, 0, 0,
+                    zoomedW, zoomedH,
+                    zoomedW, zoomedH);
+        }
+
+        // Terrain layer over the painted map; the painted map shows through until its tiles arrive
+        if (terrainVisible && openTerrain()) drawTerrain(gfx);
 
         // Player marker
         drawPlayerMarker(gfx);
@@ -222,7 +279,8 @@ public class GotMapWidget extends AbstractWidget {
     private void drawZoomLabel(GuiGraphics gfx) {
         Minecraft mc = Minecraft.getInstance();
         if (mc.font == null) return;
-        String label  = "Zoom Level: " + (zoomIndex + 1) + "/" + ZOOM_MULTIPLIERS.length;
+        String label  = "Zoom Level: " + (zoomIndex + 1) + "/" + ZOOM_MULTIPLIERS.length
+                      + (terrainVisible ? terrainTiles != null ? "  |  Terrain" : "  |  Terrain..." : "");
         int    margin = 6;
         int    lx     = getX() + width - mc.font.width(label) - margin;
         int    ly     = getY() + margin;
@@ -245,6 +303,13 @@ public class GotMapWidget extends AbstractWidget {
         return true;
     }
 
+    @Override
+    public boolean keyPressed(int keyCode, int scanCode, int modifiers) {
+        if (keyCode != GLFW.GLFW_KEY_T) return false;
+        terrainVisible = !terrainVisible;
+        return true;
+    }
+
     @Override
     public boolean mouseClicked(double mouseX, double mouseY, int button) {
         if (!isMouseOver(mouseX, mouseY)) return false;
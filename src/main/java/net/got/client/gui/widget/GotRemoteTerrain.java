@@ -0,0 +1,209 @@
+package net.got.client.gui.widget;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import net.got.network.MapTileLayoutPayload;
+import net.got.network.MapTilePayload;
+import net.got.network.MapTileRequestPayload;
+import net.got.worldgen.GotTerrainTiles;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientPacketListener;
+import net.minecraft.client.multiplayer.ServerData;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The terrain layer on a remote server: tiles rendered by the server from
+ * its own biomemap and streamed over {@link MapTileRequestPayload} /
+ * {@link MapTilePayload}, so the map is exact for whatever datapack the
+ * server runs.  The server side is {@code net.got.network.MapTileService}.
+ *
+ * <h2>Lifecycle</h2>
+ * <p>Until the server has described its map there is no layer; asking for
+ * one sends a probe, answered by a {@link MapTileLayoutPayload}.  The layer
+ * for that layout then lives as long as the connection and dimension do.
+ * A new layout — after a {@code /reload} — closes it, and the widget picks
+ * up its successor.
+ *
+ * <h2>Caching</h2>
+ * <p>Tiles are kept under {@code server_terrain/<server>/<dimension>/},
+ * independent of the layout.  A tile found there is offered to the server by
+ * its {@link GotTerrainTiles#hash hash} and shown once the server confirms
+ * it, so after a reload only tiles that changed are downloaded again.
+ *
+ * <p>The static state is touched on the client thread only.
+ */
+public final class GotRemoteTerrain extends GotTerrainLayer {
+
+    /** Minimum interval between layout probes. */
+    private static final long PROBE_NANOS = 1_000_000_000L;
+
+    @Nullable private static GotRemoteTerrain     current;
+    @Nullable private static MapTileLayoutPayload lastLayout;
+    @Nullable private static ClientPacketListener lastConnection;
+    @Nullable private static ResourceKey<Level>   lastDimension;
+    private static long                           lastProbe;
+
+    private final ClientPacketListener   connection;
+    private final ResourceKey<Level>     dimension;
+    /** Disk copies waiting for the server to confirm or replace them; guarded like {@code ready}. */
+    private final Map<Long, NativeImage> onDisk = new ConcurrentHashMap<>();
+
+    private GotRemoteTerrain(MapTileLayoutPayload layout, ClientPacketListener connection, ResourceKey<Level> dimension) {
+        super(new GotTerrainTiles.Layout(layout.width(), layout.height(), layout.blocksPerPixel()),
+              layout.layout(), cacheDir(dimension));
+        this.connection = connection;
+        this.dimension  = dimension;
+    }
+
+    private static Path cacheDir(ResourceKey<Level> dimension) {
+        ServerData       server = Minecraft.getInstance().getCurrentServer();
+        String           host   = server == null ? "unknown" : server.ip.toLowerCase(Locale.ROOT);
+        ResourceLocation dim    = dimension.location();
+        return cacheRoot().resolve("server_terrain").resolve(Integer.toHexString(host.hashCode()))
+                .resolve(dim.getNamespace()).resolve(dim.getPath());
+    }
+
+    /* ============================================================= */
+    /* ========================= REGISTRY ========================== */
+    /* ============================================================= */
+
+    /**
+     * The layer for the current connection and dimension, or {@code null}
+     * while the server has not described one — in which case it is asked to.
+     */
+    @Nullable
+    static GotRemoteTerrain current() {
+        Minecraft            mc   = Minecraft.getInstance();
+        ClientPacketListener conn = mc.getConnection();
+        if (conn == null || mc.level == null) return null;
+
+        if (current != null && !current.isClosed()
+                && current.connection == conn && current.dimension.equals(mc.level.dimension())) {
+            return current;
+        }
+        if (current != null) current.close();
+        current = null;
+
+        // Reopening the map: the server's last answer still holds.
+        if (lastLayout != null && lastConnection == conn && mc.level.dimension().equals(lastDimension)) {
+            return current = new GotRemoteTerrain(lastLayout, conn, mc.level.dimension());
+        }
+        long now = System.nanoTime();
+        if (now - lastProbe > PROBE_NANOS) {
+            lastProbe = now;
+            conn.send(new MapTileRequestPayload(0L, 0, 0, 0, 0L));
+        }
+        return null;
+    }
+
+    /** Handles the server's description of its map. */
+    public static void onLayout(MapTileLayoutPayload layout) {
+        Minecraft mc = Minecraft.getInstance();
+        if (mc.getConnection() == null || mc.level == null) return;
+        if (current != null && current.layoutKey() == layout.layout()
+                && current.connection == mc.getConnection()) return;
+
+        lastLayout     = layout;
+        lastConnection = mc.getConnection();
+        lastDimension  = mc.level.dimension();
+        if (current != null) current.close();
+        current = null;
+    }
+
+    /** Handles a tile, or a confirmation of the copy on disk. */
+    public static void onTile(MapTilePayload tile) {
+        GotRemoteTerrain layer = current;
+        if (layer != null && !layer.isClosed() && layer.layoutKey() == tile.layout()) layer.receive(tile);
+    }
+
+    /* ============================================================= */
+    /* ========================== TILES ============================ */
+    /* ============================================================= */
+
+    @Override
+    protected void start(int level, int tx, int tz, long key) {
+        Util.backgroundExecutor().execute(() -> {
+            if (stale(key)) {
+                abandon(key);
+                return;
+            }
+            long known = 0L;
+            try {
+                NativeImage img = read(file(level, tx, tz));
+                if (img != null && img.getWidth() == layout().tileWidth(level, tx)
+                                && img.getHeight() == layout().tileHeight(level, tz)) {
+                    known = GotTerrainTiles.hash(pixels(img));
+                    synchronized (onDisk) {
+                        if (isClosed()) {
+                            img.close();
+                        } else {
+                            NativeImage old = onDisk.put(key, img);
+                            if (old != null) old.close();
+                        }
+                    }
+                } else if (img != null) {
+                    img.close();
+                }
+            } catch (Exception e) {
+                LOGGER.warn("[GoT Map] Ignoring cached terrain tile {}/{}_{}: {}", level, tx, tz, e.toString());
+            }
+
+            long hash = known;
+            Minecraft.getInstance().execute(() -> {
+                if (isClosed() || Minecraft.getInstance().getConnection() != connection) {
+                    abandon(key);
+                    return;
+                }
+                connection.send(new MapTileRequestPayload(layoutKey(), level, tx, tz, hash));
+            });
+        });
+    }
+
+    private void receive(MapTilePayload tile) {
+        int  level = tile.level(), tx = tile.tx(), tz = tile.tz();
+        if (!layout().contains(level, tx, tz)) return;
+        long key  = key(level, tx, tz);
+        NativeImage disk = onDisk.remove(key);
+
+        if (tile.rejected()) {
+            if (disk != null) disk.close();
+            retryLater(key);
+            return;
+        }
+        if (tile.unchanged()) {
+            if (disk != null) finish(key, disk);
+            else abandon(key);
+            return;
+        }
+        if (disk != null) disk.close();
+
+        Util.backgroundExecutor().execute(() -> {
+            try {
+                int w = layout().tileWidth(level, tx), h = layout().tileHeight(level, tz);
+                NativeImage img = toImage(MapTilePayload.decode(tile.data(), w, h), w, h);
+                write(file(level, tx, tz), img);
+                finish(key, img);
+            } catch (Exception e) {
+                LOGGER.warn("[GoT Map] Dropping bad terrain tile {}/{}_{} from the server: {}", level, tx, tz, e.toString());
+                abandon(key);
+            }
+        });
+    }
+
+    @Override
+    void close() {
+        super.close();
+        synchronized (onDisk) {
+            onDisk.values().forEach(NativeImage::close);
+            onDisk.clear();
+        }
+    }
+}
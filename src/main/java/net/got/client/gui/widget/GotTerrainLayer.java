@@ -0,0 +1,300 @@
+package net.got.client.gui.widget;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import com.mojang.logging.LogUtils;
+import net.got.worldgen.GotChunkGenerator;
+import net.got.worldgen.GotTerrainTiles;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.server.IntegratedServer;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.neoforged.fml.loading.FMLPaths;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The map screen's optional terrain layer: biome colour with hillshading,
+ * rendered from the generator's height function rather than from chunks, so
+ * any part of the world can be scouted without generating anything.  The
+ * tiles themselves are {@link GotTerrainTiles}; this class gets them onto
+ * the screen.
+ *
+ * <h2>Sources</h2>
+ * <ul>
+ *   <li>{@link Local} — with an integrated server the client has the
+ *       generator and renders tiles itself.</li>
+ *   <li>{@link GotRemoteTerrain} — on a remote server the tiles are rendered
+ *       by the server from its own biomemap and streamed on request.</li>
+ * </ul>
+ * <p>Either way the layer is laid over the biomemap's geometry
+ * ({@link #layout()}), which need not be the painted map's; the widget maps
+ * between the two through world coordinates.
+ *
+ * <h2>Building and caching</h2>
+ * <p>Tiles are produced in the background, at most {@link #MAX_IN_FLIGHT} at
+ * a time — local renders on {@link GotTerrainTiles#executor()}, which
+ * keeps them off the integrated server's worldgen threads — only while the
+ * map keeps asking for them: a tile scrolled away
+ * before its turn is skipped.  Every tile is also kept as a PNG under
+ * {@code <game>/.cache/got/}, so later sessions read it back instead of
+ * rendering or downloading it again.
+ */
+abstract class GotTerrainLayer implements GotMapTiles.Source {
+
+    protected static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final int MAX_IN_FLIGHT = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /** A request not repeated for this long is abandoned before it starts. */
+    private static final long STALE_NANOS = 1_000_000_000L;
+
+    /** A tile in flight for this long is given up on and may be asked for again. */
+    private static final long TIMEOUT_NANOS = 30_000_000_000L;
+
+    /** A tile whose source turned the request away is not asked for again sooner than this. */
+    private static final long RETRY_NANOS = 1_000_000_000L;
+
+    private final GotTerrainTiles.Layout layout;
+    private final long                   layoutKey;
+    private final int                    levels;
+    private final Path                   cacheDir;
+
+    /** Finished tiles; additions and {@link #close} hold its lock, so none outlives the layer. */
+    private final Map<Long, NativeImage> ready    = new ConcurrentHashMap<>();
+    /** Tile key → when it was started. */
+    private final Map<Long, Long>        inFlight = new ConcurrentHashMap<>();
+    /** Tile key → when the map last asked for it. */
+    private final Map<Long, Long>        wanted   = new ConcurrentHashMap<>();
+    /** Tile key → earliest time it may be started again; see {@link #retryLater}. */
+    private final Map<Long, Long>        retryAt  = new ConcurrentHashMap<>();
+    private volatile boolean             closed;
+
+    GotTerrainLayer(GotTerrainTiles.Layout layout, long layoutKey, Path cacheDir) {
+        this.layout    = layout;
+        this.layoutKey = layoutKey;
+        this.levels    = layout.levels();
+        this.cacheDir  = cacheDir;
+    }
+
+    /**
+     * The layer for the dimension the player is in.  {@code null} when
+     * there is none yet: in a non-GoT dimension, before the biomemap has
+     * loaded, or on a remote server until it has described its map.
+     */
+    @Nullable
+    static GotTerrainLayer forCurrentWorld() {
+        Minecraft        mc     = Minecraft.getInstance();
+        IntegratedServer server = mc.getSingleplayerServer();
+        if (mc.level == null) return null;
+        if (server == null) return GotRemoteTerrain.current();
+
+        ServerLevel level = server.getLevel(mc.level.dimension());
+        if (level == null || !(level.getChunkSource().getGenerator() instanceof GotChunkGenerator generator)) return null;
+        GotTerrainTiles tiles = GotTerrainTiles.of(generator, level.getChunkSource().randomState());
+        return tiles == null ? null : new Local(tiles, generator.context().mapId());
+    }
+
+    GotTerrainTiles.Layout layout() { return layout; }
+
+    long layoutKey() { return layoutKey; }
+
+    /** A stable atlas id for this layer's layout. */
+    ResourceLocation atlasId() {
+        return ResourceLocation.fromNamespaceAndPath("got", "map_tiles/terrain/" + Long.toHexString(layoutKey));
+    }
+
+    /** Stops building and frees tiles that were never uploaded. */
+    void close() {
+        synchronized (ready) {
+            closed = true;
+            ready.values().forEach(NativeImage::close);
+            ready.clear();
+        }
+    }
+
+    /** {@code true} once closed — by the widget, or because the layer was superseded. */
+    boolean isClosed() { return closed; }
+
+    /* ============================================================= */
+    /* ========================== SOURCE =========================== */
+    /* ============================================================= */
+
+    @Override public int finestShift() { return GotTerrainTiles.FINEST_SHIFT; }
+    @Override public int levels()      { return levels; }
+    @Override public boolean failed()  { return false; }
+
+    @Override public int width(int level)  { return layout.width(level);  }
+    @Override public int height(int level) { return layout.height(level); }
+
+    @Override
+    public boolean available(int level, int tx, int tz) {
+        long key = key(level, tx, tz);
+        if (ready.containsKey(key)) return true;
+        long now = System.nanoTime();
+        wanted.put(key, now);
+
+        Long retry = retryAt.get(key);
+        if (retry != null) {
+            if (now - retry < 0) return false;
+            retryAt.remove(key, retry);
+        }
+        Long started = inFlight.get(key);
+        if (started != null && now - started > TIMEOUT_NANOS) inFlight.remove(key, started);
+        if (inFlight.size() < MAX_IN_FLIGHT && inFlight.putIfAbsent(key, now) == null) {
+            start(level, tx, tz, key);
+        }
+        return false;
+    }
+
+    @Override
+    public void upload(int level, int tx, int tz, int atlasX, int atlasY) {
+        NativeImage img = ready.remove(key(level, tx, tz));
+        img.upload(0, atlasX, atlasY, 0, 0, img.getWidth(), img.getHeight(), false);
+        img.close();
+    }
+
+    static long key(int level, int tx, int tz) {
+        return (long) level << 40 | (long) tz << 20 | tx;
+    }
+
+    /* ============================================================= */
+    /* ======================== PRODUCTION ========================= */
+    /* ============================================================= */
+
+    /**
+     * Starts producing tile {@code (tx, tz)} of {@code level}, known as
+     * {@code key}, in the background.  Must end in {@link #finish} or
+     * {@link #abandon}, from any thread.
+     */
+    protected abstract void start(int level, int tx, int tz, long key);
+
+    /** Whether nobody wants tile {@code key} any more, so work on it can stop. */
+    protected boolean stale(long key) {
+        Long asked = wanted.get(key);
+        return closed || asked == null || System.nanoTime() - asked > STALE_NANOS;
+    }
+
+    /** Hands over a finished tile, or just frees it if the map scrolled away meanwhile. */
+    protected void finish(long key, NativeImage img) {
+        synchronized (ready) {
+            if (stale(key)) {
+                img.close();
+            } else {
+                NativeImage old = ready.put(key, img);
+                if (old != null) old.close();
+            }
+        }
+        abandon(key);
+    }
+
+    protected void abandon(long key) {
+        wanted.remove(key);
+        inFlight.remove(key);
+    }
+
+    /** Frees tile {@code key}'s slot at once, but holds off asking for it again for {@link #RETRY_NANOS}. */
+    protected void retryLater(long key) {
+        retryAt.put(key, System.nanoTime() + RETRY_NANOS);
+        abandon(key);
+    }
+
+    /* ============================================================= */
+    /* ======================== DISK CACHE ========================= */
+    /* ============================================================= */
+
+    protected Path file(int level, int tx, int tz) {
+        return cacheDir.resolve(Integer.toString(GotTerrainTiles.FINEST_SHIFT + level)).resolve(tx + "_" + tz + ".png");
+    }
+
+    @Nullable
+    protected static NativeImage read(Path file) {
+        if (!Files.isRegularFile(file)) return null;
+        try (InputStream in = Files.newInputStream(file)) {
+            return NativeImage.read(in);
+        } catch (IOException e) {
+            LOGGER.warn("[GoT Map] Ignoring unreadable terrain tile {}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    protected static void write(Path file, NativeImage img) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            img.writeToFile(tmp);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("[GoT Map] Could not cache terrain tile {}: {}", file, e.toString());
+        }
+    }
+
+    /** Cache root for this game directory. */
+    protected static Path cacheRoot() {
+        return FMLPaths.GAMEDIR.get().resolve(".cache/got");
+    }
+
+    protected static NativeImage toImage(int[] argb, int w, int h) {
+        NativeImage img = new NativeImage(w, h, false);
+        for (int j = 0; j < h; j++)
+            for (int i = 0; i < w; i++) img.setPixel(i, j, argb[j * w + i]);
+        return img;
+    }
+
+    protected static int[] pixels(NativeImage img) {
+        int   w    = img.getWidth(), h = img.getHeight();
+        int[] argb = new int[w * h];
+        for (int j = 0; j < h; j++)
+            for (int i = 0; i < w; i++) argb[j * w + i] = img.getPixel(i, j);
+        return argb;
+    }
+
+    /* ============================================================= */
+    /* =========================== LOCAL =========================== */
+    /* ============================================================= */
+
+    /**
+     * Renders tiles on {@link GotTerrainTiles#executor()}, cached under
+     * {@code terrain/<map>/<key>/}: the key covers everything the render
+     * depends on, so each seed and map is rendered once.
+     */
+    static final class Local extends GotTerrainLayer {
+
+        private final GotTerrainTiles tiles;
+
+        Local(GotTerrainTiles tiles, ResourceLocation mapId) {
+            super(tiles.layout(), tiles.key(), cacheRoot().resolve("terrain")
+                    .resolve(mapId.getNamespace()).resolve(mapId.getPath()).resolve(Long.toHexString(tiles.key())));
+            this.tiles = tiles;
+        }
+
+        @Override
+        protected void start(int level, int tx, int tz, long key) {
+            GotTerrainTiles.executor().execute(() -> {
+                try {
+                    if (stale(key)) {
+                        abandon(key);
+                        return;
+                    }
+                    Path        file = file(level, tx, tz);
+                    NativeImage img  = read(file);
+                    if (img == null) {
+                        img = toImage(tiles.render(level, tx, tz), layout().tileWidth(level, tx), layout().tileHeight(level, tz));
+                        write(file, img);
+                    }
+                    finish(key, img);
+                } catch (Exception e) {
+                    LOGGER.warn("[GoT Map] Failed to build terrain tile {}/{}_{}: {}", level, tx, tz, e.toString());
+                    abandon(key);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package net.got.client.network;
+
+import net.got.client.gui.widget.GotRemoteTerrain;
+import net.got.network.GotNetwork;
+import net.got.network.MapTileLayoutPayload;
+import net.got.network.MapTilePayload;
+
+/**
+ * Client-bound payload handling.  Lives on the client side so that
+ * {@link GotNetwork}, loaded on both sides, never names client classes;
+ * {@link net.got.client.GotClient} installs it on the physical client.
+ */
+public final class GotClientNetwork implements GotNetwork.ClientHandler {
+
+    public static final GotClientNetwork INSTANCE = new GotClientNetwork();
+
+    private GotClientNetwork() {}
+
+    @Override
+    public void onMapTileLayout(MapTileLayoutPayload payload) {
+        GotRemoteTerrain.onLayout(payload);
+    }
+
+    @Override
+    public void onMapTile(MapTilePayload payload) {
+        GotRemoteTerrain.onTile(payload);
+    }
+}
@@ -1,14 +1,24 @@
 package net.got.network;
 
-import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.level.levelgen.Heightmap;
 import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
 
-import java.util.Set;
-
 public final class GotNetwork {
 
+    /** Handlers for client-bound payloads, supplied by the client so this class never loads client code. */
+    public interface ClientHandler {
+        void onMapTileLayout(MapTileLayoutPayload payload);
+        void onMapTile(MapTilePayload payload);
+    }
+
+    private static ClientHandler client;
+
+    /** Called once on the physical client, before any connection. */
+    public static void setClientHandler(ClientHandler handler) {
+        client = handler;
+    }
+
     public static void register(RegisterPayloadHandlersEvent event) {
 
         event.registrar("got")
@@ -23,40 +33,39 @@ public final class GotNetwork {
                             // OP-only teleport
                             if (!player.hasPermissions(2)) return;
 
-                            ServerLevel level = player.serverLevel();
-
-                            int x = payload.x();
-                            int z = payload.z();
-
-// 🔑 FORCE chunk generation / loading
-                            level.getChunk(x >> 4, z >> 4);
-
-// 🔑 Resolve correct surface Y
-                            int y = level.getHeight(
-                                    Heightmap.Types.WORLD_SURFACE,
-                                    x,
-                                    z
-                            );
-
-// Safety clamp (1.21+ API)
-                            if (y < level.getMinY()) {
-                                y = level.getMinY();
-                            }
-
-                            player.teleportTo(
-                                    level,
-                                    x + 0.5,
-                                    y + 1, // always above surface
-                                    z + 0.5,
-                                    Set.of(),
-                                    player.getYRot(),
-                                    player.getXRot(),
-                                    false
-                            );
+                            // Loads the destination off-thread; see MapTeleports.
+                            MapTeleports.request(player, payload.x(), payload.z());
                         }
     )
+                )
+                // Terrain tiles for the map; see MapTileService.
+                .playToServer(
+                        MapTileRequestPayload.TYPE,
+                        MapTileRequestPayload.STREAM_CODEC,
+                        (payload, ctx) -> ctx.enqueueWork(() -> {
+                            if (ctx.player() instanceof ServerPlayer player) MapTileService.request(player, payload);
+                        })
+                )
+                .playToClient(
+                        MapTileLayoutPayload.TYPE,
+                        MapTileLayoutPayload.STREAM_CODEC,
+                        (payload, ctx) -> ctx.enqueueWork(() -> {
+                            if (client != null) client.onMapTileLayout(payload);
+                        })
+                )
+                .playToClient(
+                        MapTilePayload.TYPE,
+                        MapTilePayload.STREAM_CODEC,
+                        (payload, ctx) -> ctx.enqueueWork(() -> {
+                            if (client != null) client.onMapTile(payload);
+                        })
                 );
     }
 
+    /** Per-tick network work: streams queued map tiles. */
+    public static void tick(MinecraftServer server) {
+        MapTileService.tick(server);
+    }
+
     public static void init() {}
 }
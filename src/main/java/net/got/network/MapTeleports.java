@@ -0,0 +1,191 @@
+package net.got.network;
+
+import net.got.GotMod;
+import net.got.worldgen.GotChunkGenerator;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Server side of {@link MapTeleportPayload}: moves an operator to a clicked
+ * map position without generating the destination on the server thread.
+ *
+ * <h2>Flow</h2>
+ * <ol>
+ *   <li>A click places a {@link #TELEPORT} ticket on the destination chunk,
+ *       strong enough to bring it to {@link ChunkStatus#FULL}.  Generation
+ *       runs on the worldgen workers while the server keeps ticking.  The
+ *       chunk is never requested from the server thread, where vanilla would
+ *       block on it; instead every tick checks {@code getChunkNow}.</li>
+ *   <li>Once the chunk is loaded the player is moved onto its
+ *       {@code WORLD_SURFACE} height.  The ticket is handed over to
+ *       vanilla's {@link TicketType#POST_TELEPORT} so the chunk stays
+ *       loaded until the player's own ticket takes over.</li>
+ *   <li>If the chunk is not loaded within {@link #TIMEOUT_TICKS} the player
+ *       is moved anyway, onto the generator's predicted surface
+ *       ({@link #predictedSurface}).</li>
+ * </ol>
+ *
+ * <h2>Coalescing</h2>
+ * <p>Only a player's latest click counts.  A click on the chunk already
+ * being loaded just moves the target; a click elsewhere drops the earlier
+ * tickets — so that chunk stops generating if nothing else wants it — and
+ * the earlier poll stops.
+ *
+ * <h2>Pre-warming</h2>
+ * <p>With {@code -Dgot.mapTeleport.prewarmRadius=N}, every chunk within
+ * {@code N} of the destination (capped at the view distance) also gets a
+ * short-lived {@link #PREWARM} ticket one level weaker than the
+ * destination's.  The ring generates behind the destination chunk rather
+ * than ahead of it, and the player arrives to less pop-in.  Off by default.
+ *
+ * <p>All state is touched on the server thread only.
+ */
+final class MapTeleports {
+
+    /** Holds the destination chunk while it loads; the lifespan only guards against a lost poll. */
+    private static final TicketType<Integer> TELEPORT =
+            TicketType.create("got_map_teleport", Integer::compareTo, 20 * 60);
+    private static final TicketType<Integer> PREWARM  =
+            TicketType.create("got_map_prewarm",  Integer::compareTo, 20 * 30);
+
+    private static final int PREWARM_RADIUS = Integer.getInteger("got.mapTeleport.prewarmRadius", 0);
+
+    /** Ticks to wait for the destination chunk before falling back to the predicted surface. */
+    private static final int TIMEOUT_TICKS = 20 * 30;
+
+    private static final Map<UUID, Pending> PENDING = new HashMap<>();
+
+    /** One player's outstanding teleport; {@link #x} / {@link #z} follow coalesced clicks. */
+    private static final class Pending {
+        final ServerLevel level;
+        final ChunkPos    chunk;
+        final int         prewarm;
+        int x, z;
+        int ticks;
+
+        Pending(ServerLevel level, ChunkPos chunk, int prewarm, int x, int z) {
+            this.level   = level;
+            this.chunk   = chunk;
+            this.prewarm = prewarm;
+            this.x       = x;
+            this.z       = z;
+        }
+
+        void acquire(int owner) {
+            ServerChunkCache source = level.getChunkSource();
+            source.addRegionTicket(TELEPORT, chunk, 1, owner);
+            forEachPrewarm(pos -> source.addRegionTicket(PREWARM, pos, 0, owner));
+        }
+
+        void release(int owner) {
+            ServerChunkCache source = level.getChunkSource();
+            source.removeRegionTicket(TELEPORT, chunk, 1, owner);
+            forEachPrewarm(pos -> source.removeRegionTicket(PREWARM, pos, 0, owner));
+        }
+
+        private void forEachPrewarm(Consumer<ChunkPos> action) {
+            for (int dz = -prewarm; dz <= prewarm; dz++) {
+                for (int dx = -prewarm; dx <= prewarm; dx++) {
+                    if (dx != 0 || dz != 0) action.accept(new ChunkPos(chunk.x + dx, chunk.z + dz));
+                }
+            }
+        }
+    }
+
+    private MapTeleports() {}
+
+    /** Starts (or retargets) {@code player}'s teleport to block column {@code (x, z)} of their level. */
+    static void request(ServerPlayer player, int x, int z) {
+        ServerLevel level = player.serverLevel();
+        ChunkPos    chunk = new ChunkPos(x >> 4, z >> 4);
+        UUID        id    = player.getUUID();
+
+        Pending prev = PENDING.remove(id);
+        if (prev != null) {
+            if (prev.level == level && prev.chunk.equals(chunk)) {
+                prev.x = x;
+                prev.z = z;
+                PENDING.put(id, prev);
+                return;
+            }
+            // Left over from a server that has since stopped: its tickets went with it.
+            if (prev.level.getServer() == level.getServer()) prev.release(player.getId());
+        }
+
+        int     prewarm = Math.min(PREWARM_RADIUS, level.getServer().getPlayerList().getViewDistance());
+        Pending p       = new Pending(level, chunk, Math.max(0, prewarm), x, z);
+        PENDING.put(id, p);
+        p.acquire(player.getId());
+
+        GotMod.queueServerWork(1, () -> poll(player, p));
+    }
+
+    /** Once a tick until the destination chunk is loaded or the wait times out. */
+    private static void poll(ServerPlayer player, Pending p) {
+        // Superseded by a later click, which already dropped this one's tickets.
+        if (PENDING.get(player.getUUID()) != p) return;
+        // Left over from a server that has since stopped: its tickets went with it.
+        if (!p.level.getServer().isRunning()) {
+            PENDING.remove(player.getUUID(), p);
+            return;
+        }
+
+        LevelChunk chunk = p.level.getChunkSource().getChunkNow(p.chunk.x, p.chunk.z);
+        if (chunk == null && ++p.ticks < TIMEOUT_TICKS && !player.hasDisconnected()) {
+            GotMod.queueServerWork(1, () -> poll(player, p));
+            return;
+        }
+        complete(player, p, chunk);
+    }
+
+    private static void complete(ServerPlayer player, Pending p, LevelChunk chunk) {
+        PENDING.remove(player.getUUID(), p);
+
+        if (!player.hasDisconnected() && player.serverLevel() == p.level) {
+            int y = chunk != null
+                    ? chunk.getHeight(Heightmap.Types.WORLD_SURFACE, p.x & 15, p.z & 15) + 1
+                    : predictedSurface(p.level, p.x, p.z);
+            y = Math.max(y, p.level.getMinY());
+
+            p.level.getChunkSource().addRegionTicket(TicketType.POST_TELEPORT, p.chunk, 1, player.getId());
+            player.teleportTo(
+                    p.level,
+                    p.x + 0.5,
+                    y + 1, // always above surface
+                    p.z + 0.5,
+                    Set.of(),
+                    player.getYRot(),
+                    player.getXRot(),
+                    false
+            );
+        }
+        p.release(player.getId());
+    }
+
+    /**
+     * The first free Y above {@code WORLD_SURFACE} at {@code (x, z)} as the
+     * generator predicts it, without loading a chunk.  GoT dimensions answer
+     * from their {@link net.got.worldgen.GotHeightField}; water counts, so
+     * over the sea this is the water surface.
+     */
+    static int predictedSurface(ServerLevel level, int x, int z) {
+        ServerChunkCache source = level.getChunkSource();
+        if (source.getGenerator() instanceof GotChunkGenerator got) {
+            int floor = got.heightField(source.randomState()).surfaceY(x, z);
+            return Math.max(floor, got.getSeaLevel() + 1);
+        }
+        return source.getGenerator().getBaseHeight(x, z, Heightmap.Types.WORLD_SURFACE, level, source.randomState());
+    }
+}
@@ -0,0 +1,43 @@
+package net.got.network;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Server → client: the terrain tile pyramid of the player's dimension, sent
+ * in answer to a {@link MapTileRequestPayload} naming any other layout.
+ * {@code layout} is the server's {@link net.got.worldgen.GotTerrainTiles#key()};
+ * the rest is its {@link net.got.worldgen.GotTerrainTiles.Layout}.
+ */
+public record MapTileLayoutPayload(long layout, int width, int height, int blocksPerPixel)
+        implements CustomPacketPayload {
+
+    public static final ResourceLocation ID =
+            ResourceLocation.fromNamespaceAndPath("got", "map_tile_layout");
+
+    public static final Type<MapTileLayoutPayload> TYPE =
+            new Type<>(ID);
+
+    public static final StreamCodec<FriendlyByteBuf, MapTileLayoutPayload> STREAM_CODEC =
+            StreamCodec.of(
+                    (buf, pkt) -> {
+                        buf.writeLong(pkt.layout);
+                        buf.writeVarInt(pkt.width);
+                        buf.writeVarInt(pkt.height);
+                        buf.writeVarInt(pkt.blocksPerPixel);
+                    },
+                    buf -> new MapTileLayoutPayload(
+                            buf.readLong(),
+                            buf.readVarInt(),
+                            buf.readVarInt(),
+                            buf.readVarInt()
+                    )
+            );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
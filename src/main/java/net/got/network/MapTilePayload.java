@@ -0,0 +1,135 @@
+package net.got.network;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Server → client: one terrain tile of layout {@code layout}, whose texels
+ * hash to {@code hash}.  {@code data} is the tile {@link #encode encoded},
+ * or empty when the client's copy already has that hash.  Hash {@code 0},
+ * which no tile has, marks a {@link #rejected} request: the client should
+ * ask again later.
+ */
+public record MapTilePayload(long layout, int level, int tx, int tz, long hash, byte[] data)
+        implements CustomPacketPayload {
+
+    /** Vanilla's limit for a clientbound custom payload. */
+    private static final int MAX_DATA = 1 << 20;
+
+    public static final ResourceLocation ID =
+            ResourceLocation.fromNamespaceAndPath("got", "map_tile");
+
+    public static final Type<MapTilePayload> TYPE =
+            new Type<>(ID);
+
+    public static final StreamCodec<FriendlyByteBuf, MapTilePayload> STREAM_CODEC =
+            StreamCodec.of(
+                    (buf, pkt) -> {
+                        buf.writeLong(pkt.layout);
+                        buf.writeVarInt(pkt.level);
+                        buf.writeVarInt(pkt.tx);
+                        buf.writeVarInt(pkt.tz);
+                        buf.writeLong(pkt.hash);
+                        buf.writeByteArray(pkt.data);
+                    },
+                    buf -> new MapTilePayload(
+                            buf.readLong(),
+                            buf.readVarInt(),
+                            buf.readVarInt(),
+                            buf.readVarInt(),
+                            buf.readLong(),
+                            buf.readByteArray(MAX_DATA)
+                    )
+            );
+
+    /** A reply to a request the server will not serve now. */
+    public static MapTilePayload rejected(long layout, int level, int tx, int tz) {
+        return new MapTilePayload(layout, level, tx, tz, 0L, new byte[0]);
+    }
+
+    /** Whether the request was turned away; see {@link #rejected(long, int, int, int)}. */
+    public boolean rejected() {
+        return hash == 0L;
+    }
+
+    /** Whether this only confirms the client's copy. */
+    public boolean unchanged() {
+        return data.length == 0 && hash != 0L;
+    }
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    /* ============================================================= */
+    /* ========================= ENCODING ========================== */
+    /* ============================================================= */
+
+    /**
+     * Packs opaque 0xAARRGGBB texels, {@code width} per row, as deflated RGB
+     * with each byte stored as the difference from the texel to its left —
+     * PNG's "sub" filter, which turns the terrain's smooth gradients into
+     * long runs of small numbers.
+     */
+    public static byte[] encode(int[] argb, int width) {
+        byte[] raw  = new byte[argb.length * 3];
+        int    prev = 0;
+        for (int i = 0; i < argb.length; i++) {
+            if (i % width == 0) prev = 0;
+            int v = argb[i];
+            raw[i * 3]     = (byte) ((v >> 16) - (prev >> 16));
+            raw[i * 3 + 1] = (byte) ((v >>  8) - (prev >>  8));
+            raw[i * 3 + 2] = (byte) (v - prev);
+            prev = v;
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4);
+            byte[] chunk = new byte[16384];
+            while (!deflater.finished()) out.write(chunk, 0, deflater.deflate(chunk));
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** Reverses {@link #encode} for a {@code width × height} tile. */
+    public static int[] decode(byte[] data, int width, int height) throws DataFormatException {
+        byte[]   raw      = new byte[width * height * 3];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            int n = 0;
+            while (n < raw.length) {
+                int read = inflater.inflate(raw, n, raw.length - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) break;
+                n += read;
+            }
+            if (n != raw.length) throw new DataFormatException("tile truncated: " + n + " of " + raw.length + " bytes");
+        } finally {
+            inflater.end();
+        }
+
+        int[] argb = new int[width * height];
+        int   r = 0, g = 0, b = 0;
+        for (int i = 0; i < argb.length; i++) {
+            if (i % width == 0) r = g = b = 0;
+            r = (r + raw[i * 3])     & 0xFF;
+            g = (g + raw[i * 3 + 1]) & 0xFF;
+            b = (b + raw[i * 3 + 2]) & 0xFF;
+            argb[i] = 0xFF000000 | r << 16 | g << 8 | b;
+        }
+        return argb;
+    }
+}
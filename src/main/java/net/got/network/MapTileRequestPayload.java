@@ -0,0 +1,45 @@
+package net.got.network;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Client → server: "send me terrain tile {@code (tx, tz)} of {@code level}".
+ * {@code layout} is the {@link MapTileLayoutPayload#layout()} the client
+ * believes is current (0 before it has one); {@code knownHash} is the hash
+ * of the copy it already holds, 0 for none.
+ */
+public record MapTileRequestPayload(long layout, int level, int tx, int tz, long knownHash)
+        implements CustomPacketPayload {
+
+    public static final ResourceLocation ID =
+            ResourceLocation.fromNamespaceAndPath("got", "map_tile_request");
+
+    public static final Type<MapTileRequestPayload> TYPE =
+            new Type<>(ID);
+
+    public static final StreamCodec<FriendlyByteBuf, MapTileRequestPayload> STREAM_CODEC =
+            StreamCodec.of(
+                    (buf, pkt) -> {
+                        buf.writeLong(pkt.layout);
+                        buf.writeVarInt(pkt.level);
+                        buf.writeVarInt(pkt.tx);
+                        buf.writeVarInt(pkt.tz);
+                        buf.writeLong(pkt.knownHash);
+                    },
+                    buf -> new MapTileRequestPayload(
+                            buf.readLong(),
+                            buf.readVarInt(),
+                            buf.readVarInt(),
+                            buf.readVarInt(),
+                            buf.readLong()
+                    )
+            );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,277 @@
+package net.got.network;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.mojang.logging.LogUtils;
+import net.got.worldgen.GotChunkGenerator;
+import net.got.worldgen.GotTerrainTiles;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.neoforge.network.PacketDistributor;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server side of the map's terrain layer for remote clients: renders
+ * {@link GotTerrainTiles} from the server's own biomemap and generator and
+ * streams them on request, so every client sees this server's map whatever
+ * datapack it was made with.
+ *
+ * <h2>Protocol</h2>
+ * <ol>
+ *   <li>The client sends a {@link MapTileRequestPayload} per tile it lacks,
+ *       naming the layout it believes in and the hash of any copy it has on
+ *       disk.  A request naming another layout — the first one, or any after
+ *       a {@code /reload} or a dimension change — is answered with a
+ *       {@link MapTileLayoutPayload} instead.</li>
+ *   <li>Tiles are rendered on {@link GotTerrainTiles#executor()} and kept,
+ *       {@linkplain MapTilePayload#encode encoded}, in an LRU of
+ *       {@value #CACHE_SIZE} shared by all players.  The cache is keyed by
+ *       layout, so a reload simply stops hitting the old entries.</li>
+ *   <li>A finished tile goes back as a {@link MapTilePayload}: empty if its
+ *       hash equals the client's, so after a reload only tiles that actually
+ *       changed cross the wire.</li>
+ *   <li>Every tile request gets an answer.  One the server will not serve —
+ *       the player's queue is full, the tile is off the map or its render
+ *       failed — is {@linkplain MapTilePayload#rejected rejected} at once,
+ *       so the client frees the request and asks again later.</li>
+ * </ol>
+ *
+ * <h2>Budgets</h2>
+ * <p>Each player has two token buckets, each holding at most one second's
+ * worth:
+ * <ul>
+ *   <li>bytes, {@code -Dgot.mapTiles.bytesPerSecond} (default 128 KiB/s).
+ *       A tile or layout is sent only while the bucket is positive and may
+ *       overdraw it, the debt being repaid before the next.</li>
+ *   <li>render time, {@code -Dgot.mapTiles.renderMillisPerSecond} (default
+ *       200 ms/s).  A tile missing from the cache is rendered for a player
+ *       only while their bucket is positive, one at a time, and its measured
+ *       render time is charged when it is sent — so a client offering
+ *       matching hashes, whose replies are nearly free in bytes, still pays
+ *       for the work it causes.</li>
+ * </ul>
+ * <p>Requests over budget wait in the player's queue of at most
+ * {@value #MAX_QUEUED}; nothing is dropped silently.  Server-wide, at most
+ * {@link #MAX_RENDERS} renders are queued or running, on a pool that never
+ * has more than {@link GotTerrainTiles#RENDER_THREADS} threads, so open
+ * maps cannot starve chunk generation.
+ *
+ * <p>All state but the cache and the render count is touched on the server
+ * thread only.
+ */
+final class MapTileService {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final int  BYTES_PER_SECOND  = Math.max(1024, Integer.getInteger("got.mapTiles.bytesPerSecond", 128 * 1024));
+    private static final long RENDER_NANOS_PER_SECOND =
+            Math.max(10, Integer.getInteger("got.mapTiles.renderMillisPerSecond", 200)) * 1_000_000L;
+    private static final int  MAX_QUEUED        = 64;
+    /** Rough size of a payload's header, charged on top of its data. */
+    private static final int  OVERHEAD          = 40;
+    /** Renders queued or running at once, across all players. */
+    private static final int  MAX_RENDERS       = 2 * GotTerrainTiles.RENDER_THREADS;
+    static final int          CACHE_SIZE        = 1024;
+
+    private record TileKey(long layout, int level, int tx, int tz) {}
+
+    private record Encoded(long hash, byte[] data, long renderNanos) {}
+
+    private static final Cache<TileKey, CompletableFuture<Encoded>> TILES = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE)
+            .build();
+
+    private static final AtomicInteger RENDERING = new AtomicInteger();
+
+    /** One player's queue and buckets. */
+    private static final class Session {
+        final ArrayDeque<Pending> queue = new ArrayDeque<>();
+        double  tokens      = BYTES_PER_SECOND;
+        double  renderNanos = RENDER_NANOS_PER_SECOND;
+        /** A render this player started that has not been charged yet. */
+        boolean rendering;
+        /** A request named a stale layout; the current one is sent when the bucket allows. */
+        boolean layoutOwed;
+
+        boolean idle() {
+            return queue.isEmpty() && !layoutOwed
+                    && tokens >= BYTES_PER_SECOND && renderNanos >= RENDER_NANOS_PER_SECOND;
+        }
+    }
+
+    private static final class Pending {
+        final TileKey               key;
+        final GotTerrainTiles       tiles;
+        /** {@code null} until the tile is in the cache or this request starts its render. */
+        CompletableFuture<Encoded>  tile;
+        /** Whether this request started the render, and so pays for it. */
+        boolean                     charged;
+        long                        known;
+
+        Pending(TileKey key, GotTerrainTiles tiles, @Nullable CompletableFuture<Encoded> tile, long known) {
+            this.key   = key;
+            this.tiles = tiles;
+            this.tile  = tile;
+            this.known = known;
+        }
+    }
+
+    private static final Map<UUID, Session> SESSIONS = new HashMap<>();
+
+    private MapTileService() {}
+
+    /** Queues (or rejects) one of {@code player}'s tile requests. */
+    static void request(ServerPlayer player, MapTileRequestPayload req) {
+        GotTerrainTiles tiles = tilesFor(player.serverLevel());
+        if (tiles == null) return;
+
+        Session session = SESSIONS.computeIfAbsent(player.getUUID(), id -> new Session());
+        if (req.layout() != tiles.key()) {
+            session.layoutOwed = true;
+            return;
+        }
+        if (!tiles.layout().contains(req.level(), req.tx(), req.tz())) {
+            reject(player, session, req.layout(), req.level(), req.tx(), req.tz());
+            return;
+        }
+
+        TileKey key = new TileKey(tiles.key(), req.level(), req.tx(), req.tz());
+        for (Pending p : session.queue) {
+            if (p.key.equals(key)) {
+                p.known = req.knownHash();
+                return;
+            }
+        }
+        if (session.queue.size() >= MAX_QUEUED) {
+            reject(player, session, req.layout(), req.level(), req.tx(), req.tz());
+            return;
+        }
+        session.queue.add(new Pending(key, tiles, TILES.getIfPresent(key), req.knownHash()));
+    }
+
+    /** Starts what renders the budgets allow and sends finished tiles; once per server tick. */
+    static void tick(MinecraftServer server) {
+        Iterator<Map.Entry<UUID, Session>> it = SESSIONS.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, Session> e = it.next();
+            ServerPlayer player  = server.getPlayerList().getPlayer(e.getKey());
+            Session      session = e.getValue();
+            if (player == null) {
+                it.remove();
+                continue;
+            }
+
+            session.tokens      = Math.min(BYTES_PER_SECOND, session.tokens + BYTES_PER_SECOND / 20.0);
+            session.renderNanos = Math.min(RENDER_NANOS_PER_SECOND, session.renderNanos + RENDER_NANOS_PER_SECOND / 20.0);
+
+            if (session.layoutOwed && session.tokens > 0) {
+                session.layoutOwed = false;
+                GotTerrainTiles tiles = tilesFor(player.serverLevel());
+                if (tiles != null) {
+                    GotTerrainTiles.Layout l = tiles.layout();
+                    PacketDistributor.sendToPlayer(player,
+                            new MapTileLayoutPayload(tiles.key(), l.width(), l.height(), l.blocksPerPixel()));
+                    session.tokens -= OVERHEAD;
+                }
+            }
+
+            // In request order; a tile still rendering does not hold up those behind it.
+            Iterator<Pending> q = session.queue.iterator();
+            while (q.hasNext()) {
+                Pending p = q.next();
+                if (p.tile == null && !startRender(session, p)) continue;
+                if (!p.tile.isDone() || session.tokens <= 0) continue;
+                q.remove();
+
+                Encoded tile = result(p);
+                if (p.charged) {
+                    session.rendering = false;
+                    if (tile != null) session.renderNanos -= tile.renderNanos;
+                }
+                if (tile == null) {
+                    reject(player, session, p.key.layout, p.key.level, p.key.tx, p.key.tz);
+                    continue;
+                }
+                boolean same = tile.hash == p.known;
+                PacketDistributor.sendToPlayer(player, new MapTilePayload(
+                        p.key.layout, p.key.level, p.key.tx, p.key.tz, tile.hash, same ? new byte[0] : tile.data));
+                session.tokens -= OVERHEAD + (same ? 0 : tile.data.length);
+            }
+            if (session.idle()) it.remove();
+        }
+    }
+
+    /** Tells the client to free its request for a tile and ask again later. */
+    private static void reject(ServerPlayer player, Session session, long layout, int level, int tx, int tz) {
+        PacketDistributor.sendToPlayer(player, MapTilePayload.rejected(layout, level, tx, tz));
+        session.tokens -= OVERHEAD;
+    }
+
+    /* ============================================================= */
+    /* ========================== TILES ============================ */
+    /* ============================================================= */
+
+    @Nullable
+    private static GotTerrainTiles tilesFor(ServerLevel level) {
+        ServerChunkCache source = level.getChunkSource();
+        return source.getGenerator() instanceof GotChunkGenerator got
+                ? GotTerrainTiles.of(got, source.randomState())
+                : null;
+    }
+
+    /**
+     * Gives {@code p} its tile future: from the cache if another request has
+     * rendered it since, otherwise by starting a render on the session's
+     * budget.  {@code false} if the render has to wait.
+     */
+    private static boolean startRender(Session session, Pending p) {
+        p.tile = TILES.getIfPresent(p.key);
+        if (p.tile != null) return true;
+        if (session.rendering || session.renderNanos <= 0 || RENDERING.get() >= MAX_RENDERS) return false;
+
+        p.tile            = render(p.tiles, p.key);
+        p.charged         = true;
+        session.rendering = true;
+        return true;
+    }
+
+    private static CompletableFuture<Encoded> render(GotTerrainTiles tiles, TileKey key) {
+        try {
+            return TILES.get(key, () -> {
+                RENDERING.incrementAndGet();
+                return CompletableFuture.supplyAsync(() -> {
+                    long  start = System.nanoTime();
+                    int[] argb  = tiles.render(key.level, key.tx, key.tz);
+                    byte[] data = MapTilePayload.encode(argb, tiles.layout().tileWidth(key.level, key.tx));
+                    return new Encoded(GotTerrainTiles.hash(argb), data, System.nanoTime() - start);
+                }, GotTerrainTiles.executor()).whenComplete((tile, error) -> RENDERING.decrementAndGet());
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Nullable
+    private static Encoded result(Pending p) {
+        try {
+            return p.tile.join();
+        } catch (RuntimeException e) {
+            TILES.asMap().remove(p.key, p.tile);
+            LOGGER.warn("[GoT Map] Failed to render terrain tile {}/{}_{}: {}",
+                    p.key.level, p.key.tx, p.key.tz, e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package net.got.worldgen;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.fml.loading.FMLPaths;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Compiled form of single-PNG biomemaps, so a server start or {@code /reload}
+ * with an unchanged map skips PNG decoding and quantisation.
+ *
+ * <h2>Format</h2>
+ * <p>One file per map id, {@code <cache>/<namespace>/<path>.gotmap}:
+ * <pre>
+ *   int   magic 'GMAP', int format
+ *   byte[32] key          SHA-256 of the PNG bytes and the palette colours
+ *   int   width, height   level 0
+ *   byte[width × height]  level-0 palette indices, row-major
+ * </pre>
+ * <p>Indices depend on the palette colours as well as the pixels, so both
+ * feed the key; a different PNG, palette or {@link #FORMAT} simply misses
+ * and the file is rewritten.  Writes go to a temporary file that is moved
+ * into place, so a crash mid-write never leaves a file that parses.
+ *
+ * <h2>Location</h2>
+ * <p>The game directory's {@code .cache/got/biomemap}, or
+ * {@code -Dgot.biomemap.cacheDir}.  Datapacks are loaded before the server —
+ * and with it the world directory — exists, so the cache lives beside the
+ * game rather than a world; worlds on the same map share one entry.
+ *
+ * <p>Failures to read or write the cache are logged and fall back to a
+ * plain decode; the cache never stops a map from loading.
+ */
+final class BiomemapCache {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final int MAGIC  = 0x474D4150; // "GMAP"
+    private static final int FORMAT = 2;
+    private static final int HEADER = 4 + 4 + 32 + 2 * 4;
+
+    private BiomemapCache() {}
+
+    /**
+     * Loads map {@code id} from the compiled cache if its key matches,
+     * otherwise decodes the PNG and refreshes the cache.
+     */
+    static BiomemapSnapshot load(ResourceLocation id, InputStream stream, GotBiomePalette palette) throws IOException {
+        byte[] png  = stream.readAllBytes();
+        byte[] key  = key(png, palette);
+        Path   file = directory().resolve(id.getNamespace()).resolve(id.getPath() + ".gotmap");
+
+        if (Files.isRegularFile(file)) {
+            try {
+                BiomemapSnapshot hit = read(file, key, palette);
+                if (hit != null) return hit;
+            } catch (Exception e) {
+                LOGGER.warn("[GoT Worldgen] Ignoring unreadable biomemap cache {}: {}", file, e.toString());
+            }
+        }
+
+        BiomemapLoader.Decoded decoded = BiomemapLoader.decode(png, palette);
+        BiomemapSnapshot       map     = BiomemapLoader.assemble(decoded, palette);
+        try {
+            write(file, key, decoded);
+        } catch (IOException e) {
+            LOGGER.warn("[GoT Worldgen] Could not write biomemap cache {}: {}", file, e.toString());
+        }
+        return map;
+    }
+
+    private static Path directory() {
+        String dir = System.getProperty("got.biomemap.cacheDir");
+        return dir != null ? Path.of(dir) : FMLPaths.GAMEDIR.get().resolve(".cache/got/biomemap");
+    }
+
+    private static byte[] key(byte[] png, GotBiomePalette palette) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(png);
+            ByteBuffer colors = ByteBuffer.allocate(4 * palette.size());
+            for (int i = 0; i < palette.size(); i++) colors.putInt(palette.color(i));
+            sha.update(colors.array());
+            return sha.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ── File I/O ──────────────────────────────────────────────────────────
+
+    /** The cached snapshot, or {@code null} if the file was compiled from something else. */
+    private static BiomemapSnapshot read(Path file, byte[] key, GotBiomePalette palette) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(HEADER).order(ByteOrder.BIG_ENDIAN);
+            readFully(ch, head);
+            head.flip();
+            if (head.getInt() != MAGIC || head.getInt() != FORMAT) return null;
+            byte[] stored = new byte[32];
+            head.get(stored);
+            if (!Arrays.equals(stored, key)) return null;
+
+            int w = head.getInt(), h = head.getInt();
+            if (ch.size() != HEADER + (long) w * h) return null;
+
+            byte[] indices = new byte[w * h];
+            readFully(ch, ByteBuffer.wrap(indices));
+            return BiomemapLoader.assemble(new BiomemapLoader.Decoded(w, h, indices), palette);
+        }
+    }
+
+    private static void write(Path file, byte[] key, BiomemapLoader.Decoded decoded) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        ByteBuffer head = ByteBuffer.allocate(HEADER).order(ByteOrder.BIG_ENDIAN);
+        head.putInt(MAGIC).putInt(FORMAT).put(key)
+            .putInt(decoded.width()).putInt(decoded.height())
+            .flip();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(ch, head);
+            writeFully(ch, ByteBuffer.wrap(decoded.indices()));
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (ch.read(buf) < 0) throw new IOException("Truncated biomemap cache");
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+}
@@ -1,118 +1,481 @@
 package net.got.worldgen;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import net.minecraft.Util;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.GsonHelper;
+
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Loads the biome-paint PNG and exposes pixel colours for world coordinates.
+ * Loads biome-paint PNGs into {@link BiomemapSnapshot}s and keeps the
+ * current set, keyed by map id.
  *
  * Coordinate mapping:
- *   1 pixel = {@value MAP_SCALE} world blocks
+ *   1 pixel = {@link BiomemapSnapshot#scale()} world blocks
+ *             ({@value MAP_SCALE} for a single PNG)
  *   pixel (0,0) = world block (−width/2 * scale, −height/2 * scale)
  *
- * Pixel colours are matched against the palette in {@link GotBiomeSource}
- * using nearest-RGB-distance, so minor PNG compression artefacts are
- * handled gracefully.
+ * Each PNG is quantised once at load against the {@link GotBiomePalette}
+ * (nearest-RGB-distance, so minor PNG compression artefacts are handled
+ * gracefully) into palette indices, one byte per pixel, stored with their
+ * coarser levels by {@link BiomemapTiles} — a flat array for any map up to
+ * {@value BiomemapTiles#RESIDENT_PIXELS} pixels, so a query is a single array
+ * load followed by a dense palette lookup.
+ *
+ * <h3>Tiled maps</h3>
+ * Finer paint does not fit one PNG: a map four times finer than the known
+ * world is sixteen times the pixels.  A tiled map is described by
+ * {@code <ns>:worldgen/map/<path>.json}
+ * <pre>
+ *   { "width": 10052, "height": 7848, "scale": 24 }
+ * </pre>
+ * with its pixels in {@value TILE_SIZE}² tiles
+ * {@code <ns>:worldgen/map_tiles/<path>/<tileX>_<tileZ>.png} (edge tiles
+ * cropped to the map).  {@link #buildTiled} decodes one tile at a time, and
+ * only the coarse levels stay in memory; the rest page on demand.
+ *
+ * <h3>Map ids</h3>
+ * Every {@code <namespace>:worldgen/map/<path>.png} (or tiled-map
+ * {@code .json}) in the loaded datapacks is a map with id
+ * {@code <namespace>:<path>}; a {@link GotChunkGenerator}
+ * selects one with its {@code "biomemap"} codec field, defaulting to
+ * {@link #DEFAULT_MAP}.  Dimensions painted from different maps therefore
+ * share nothing but the palette.
+ *
+ * <h3>Shoreline distance field</h3>
+ * A snapshot can give the signed Euclidean distance from every pixel to the
+ * painted shoreline — the boundary between water-biome pixels
+ * ({@link GotBiomePalette#isWater}) and land pixels — positive on land,
+ * negative in water.  It is exact (two-pass squared distance transform, run
+ * by the snapshot on its first shore query rather than at load time) and
+ * stored as a {@code short[]} in
+ * {@code 1/}{@value SHORE_UNITS} pixel steps, at the finest resident level
+ * (level 0 unless the map pages).  Shoreline features query it
+ * through {@link BiomemapSnapshot#shoreDistance(float, float)} instead of
+ * scanning neighbourhoods of the map.
+ *
+ * <h3>Concurrency</h3>
+ * The set of maps is an immutable {@code Map} of immutable snapshots,
+ * published through a single {@code volatile} reference.  {@link #build}
+ * runs on the reload worker and touches no shared state but its own spill
+ * file; {@link #publish}
+ * swaps the reference, so chunk-gen workers either see the previous maps or
+ * the complete new ones.  Code that makes several related queries should
+ * take {@link #snapshot} once and query that instance.
  */
 public final class BiomemapLoader {
 
-    /** World blocks per pixel — must match the map art's scale. */
+    /** World blocks per pixel of a single-PNG map, and the default {@code "scale"} of a tiled one. */
     public static final int MAP_SCALE = 96;
 
-    private static int     imageWidth;
-    private static int     imageHeight;
-    /** [pixelX][pixelZ] = 0xRRGGBB (alpha stripped). */
-    private static int[][] pixels;
-    private static boolean loaded = false;
+    /** Side of one tile of a tiled map, and of the paging unit. */
+    public static final int TILE_SIZE = BiomemapTiles.TILE_SIZE;
+
+    /** The map a generator uses when its codec names none: {@code worldgen/map/biomemap.png}. */
+    public static final ResourceLocation DEFAULT_MAP = ResourceLocation.fromNamespaceAndPath("got", "biomemap");
+
+    /** Shore distances are stored in steps of {@code 1 / SHORE_UNITS} pixel. */
+    static final int SHORE_UNITS = 16;
+
+    /** Last version handed out; {@link BiomemapSnapshot#EMPTY} is version 0. */
+    private static final AtomicInteger VERSION = new AtomicInteger();
+
+    private static volatile Map<ResourceLocation, BiomemapSnapshot> maps = Map.of();
 
     private BiomemapLoader() {}
 
     // ── Load ──────────────────────────────────────────────────────────────
 
     /**
-     * Called once by {@link MapReloadListener} during datapack (re)load.
-     * Reads every pixel and stores its 24-bit RGB value.
+     * Reads every pixel of a single-PNG map, quantises it against
+     * {@code newPalette} and derives the coarser levels.
+     * Touches no shared state, so it is safe on the reload worker; the result
+     * becomes visible only through {@link #publish}.  {@link BiomemapCache}
+     * skips the decode when the PNG has been compiled before.
      */
-    public static void load(InputStream stream) {
+    public static BiomemapSnapshot build(InputStream stream, GotBiomePalette newPalette) {
+        try {
+            return assemble(decode(stream.readAllBytes(), newPalette), newPalette);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load GoT biomemap", e);
+        }
+    }
+
+    /** A single-PNG map's level-0 palette indices, row-major. */
+    record Decoded(int width, int height, byte[] indices) {}
+
+    /** Decodes and quantises a single-PNG map. */
+    static Decoded decode(byte[] png, GotBiomePalette palette) {
         try {
-            BufferedImage img = ImageIO.read(stream);
+            BufferedImage img = ImageIO.read(new ByteArrayInputStream(png));
             if (img == null) throw new IllegalStateException("ImageIO returned null – check PNG validity");
 
-            imageWidth  = img.getWidth();
-            imageHeight = img.getHeight();
-            pixels = new int[imageWidth][imageHeight];
+            int    w   = img.getWidth();
+            int    h   = img.getHeight();
+            byte[] idx = new byte[w * h];
+            quantise(img, palette, idx, w);
+            return new Decoded(w, h, idx);
+
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load GoT biomemap", e);
+        }
+    }
+
+    /**
+     * Builds the levels of a decoded single-PNG map and wraps them in a new
+     * snapshot.
+     */
+    static BiomemapSnapshot assemble(Decoded map, GotBiomePalette palette) {
+        BiomemapTiles.Builder tiles = new BiomemapTiles.Builder(map.width(), map.height());
+        try {
+            tiles.putPlane(0, map.indices());
+            long pixels = Hashing.murmur3_128().hashBytes(map.indices()).asLong();
+            return finish(map.width(), map.height(), MAP_SCALE, tiles, pixels, palette);
+        } catch (Exception e) {
+            tiles.abandon();
+            throw new RuntimeException("Failed to load GoT biomemap", e);
+        }
+    }
+
+    /** Shape of a tiled map, from its {@code worldgen/map/<path>.json} descriptor. */
+    public record TiledMap(int width, int height, int scale) {
+
+        public static TiledMap parse(InputStream stream) {
+            JsonObject json = JsonParser.parseReader(
+                    new InputStreamReader(stream, StandardCharsets.UTF_8)).getAsJsonObject();
+            int width  = GsonHelper.getAsInt(json, "width");
+            int height = GsonHelper.getAsInt(json, "height");
+            int scale  = GsonHelper.getAsInt(json, "scale", MAP_SCALE);
+            if (width < 1 || height < 1 || scale < 1) {
+                throw new IllegalArgumentException("Tiled biomemap needs positive width, height and scale");
+            }
+            return new TiledMap(width, height, scale);
+        }
+
+        public int tilesX() { return (width  + TILE_SIZE - 1) / TILE_SIZE; }
+        public int tilesZ() { return (height + TILE_SIZE - 1) / TILE_SIZE; }
+    }
+
+    /** Opens tile {@code (tileX, tileZ)} of a tiled map, or returns {@code null} if it is absent. */
+    @FunctionalInterface
+    public interface TileOpener {
+        InputStream open(int tileX, int tileZ) throws IOException;
+    }
+
+    /**
+     * Builds a tiled map one {@value #TILE_SIZE}² tile PNG at a time, so the
+     * full-resolution image is never decoded as a whole.  Level-0 tiles go
+     * straight to the paging store and are folded into level 1 as they are
+     * read; a missing tile is painted with the palette's fallback biome.
+     */
+    public static BiomemapSnapshot buildTiled(TiledMap spec, TileOpener opener, GotBiomePalette newPalette) {
+        int w = spec.width(), h = spec.height();
+        BiomemapTiles.Builder tiles = new BiomemapTiles.Builder(w, h);
+        try {
+            boolean flat  = tiles.residentLevel == 0;
+            byte[]  plane = flat ? new byte[w * h] : null;
+            int     w1    = (w + 1) >> 1;
+            byte[]  half  = flat ? null : new byte[w1 * ((h + 1) >> 1)];
+            byte[]  tile  = new byte[TILE_SIZE * TILE_SIZE];
+            Hasher  hash  = Hashing.murmur3_128().newHasher();
 
-            for (int x = 0; x < imageWidth; x++) {
-                for (int z = 0; z < imageHeight; z++) {
-                    pixels[x][z] = img.getRGB(x, z) & 0xFF_FF_FF; // strip alpha
+            for (int tz = 0; tz < spec.tilesZ(); tz++) {
+                for (int tx = 0; tx < spec.tilesX(); tx++) {
+                    int x0 = tx * TILE_SIZE, z0 = tz * TILE_SIZE;
+                    int tw = Math.min(TILE_SIZE, w - x0), th = Math.min(TILE_SIZE, h - z0);
+
+                    Arrays.fill(tile, (byte) newPalette.fallbackIndex());
+                    try (InputStream in = opener.open(tx, tz)) {
+                        if (in == null) {
+                            System.out.printf("[GoT] Biomemap tile %d_%d missing; using the fallback biome%n", tx, tz);
+                        } else {
+                            BufferedImage img = ImageIO.read(in);
+                            if (img == null || img.getWidth() != tw || img.getHeight() != th) {
+                                throw new IllegalStateException("Biomemap tile " + tx + "_" + tz
+                                        + " must be a " + tw + "×" + th + " PNG");
+                            }
+                            quantise(img, newPalette, tile, TILE_SIZE);
+                        }
+                    }
+                    hash.putBytes(tile);
+
+                    if (flat) {
+                        for (int z = 0; z < th; z++) System.arraycopy(tile, z * TILE_SIZE, plane, (z0 + z) * w + x0, tw);
+                    } else {
+                        tiles.writeTile(0, tx, tz, tile);
+                        BiomemapTiles.downsample(tile, TILE_SIZE, 0, 0, tw, th, half, w1, x0 >> 1, z0 >> 1);
+                    }
                 }
             }
 
-            loaded = true;
-            System.out.printf("[GoT] Biomemap loaded: %d×%d  (1 px = %d blocks)%n",
-                    imageWidth, imageHeight, MAP_SCALE);
+            if (flat) tiles.putPlane(0, plane);
+            else      tiles.putPlane(1, half);
+            return finish(w, h, spec.scale(), tiles, hash.hash().asLong(), newPalette);
 
         } catch (Exception e) {
-            throw new RuntimeException("Failed to load GoT biomemap", e);
+            tiles.abandon();
+            throw new RuntimeException("Failed to load tiled GoT biomemap", e);
         }
     }
 
-    // ── Query ─────────────────────────────────────────────────────────────
-
     /**
-     * Returns the 0xRRGGBB pixel colour at the given world XZ position.
-     * Out-of-bounds coordinates return {@code 0x110751} (deep ocean).
-     *
-     * @param worldX world block X
-     * @param worldZ world block Z
-     * @return 24-bit RGB colour
+     * Assembles the snapshot; its shore field is left until first use.
+     * {@code pixels} is a 64-bit hash of every level-0 index, in load order.
      */
-    public static int getColorAtWorld(int worldX, int worldZ) {
-        if (!loaded) return 0x110751;
+    private static BiomemapSnapshot finish(int w, int h, int scale, BiomemapTiles.Builder builder,
+                                           long pixels, GotBiomePalette palette) throws IOException {
+        return new BiomemapSnapshot(VERSION.incrementAndGet(), w, h, scale, builder.build(), pixels, palette);
+    }
 
-        int px = (int) Math.floor(worldX / (float) MAP_SCALE + imageWidth  * 0.5f);
-        int pz = (int) Math.floor(worldZ / (float) MAP_SCALE + imageHeight * 0.5f);
+    // ── Publication ───────────────────────────────────────────────────────
 
-        if (px < 0 || pz < 0 || px >= imageWidth || pz >= imageHeight) {
-            return 0x110751;
+    /**
+     * Replaces the whole set of maps; ids absent from {@code loaded} stop
+     * resolving.  Replaced snapshots release their paged levels.
+     */
+    public static void publish(Map<ResourceLocation, BiomemapSnapshot> loaded) {
+        Map<ResourceLocation, BiomemapSnapshot> previous = maps;
+        maps = Map.copyOf(loaded);
+        for (BiomemapSnapshot old : previous.values()) {
+            if (loaded.values().stream().noneMatch(m -> m == old)) old.release();
         }
+        loaded.forEach((id, map) -> System.out.printf(
+                "[GoT] Biomemap %s loaded: %d×%d  (1 px = %d blocks, %d levels, resident from %d, %d palette entries, v%d)%n",
+                id, map.width(), map.height(), map.scale(), map.levels(), map.residentLevel(),
+                map.palette().size(), map.version()));
+    }
 
-        return pixels[px][pz];
+    /** The current map with this id; {@link BiomemapSnapshot#EMPTY} if none is loaded. */
+    public static BiomemapSnapshot snapshot(ResourceLocation id) {
+        return maps.getOrDefault(id, BiomemapSnapshot.EMPTY);
     }
 
+    // ── Quantisation (load time only) ─────────────────────────────────────
+
+    /** Below this many pixels an image is quantised on the calling thread. */
+    private static final int PARALLEL_PIXELS = 1 << 20;
+
     /**
-     * Returns the 0xRRGGBB colour at the given IMAGE-SPACE pixel coordinate.
-     * Coordinates are clamped to image bounds.
-     *
-     * @param px pixel column
-     * @param pz pixel row
-     * @return 24-bit RGB colour, or {@code 0x110751} if image not yet loaded
+     * Quantises {@code img} into {@code out} with row stride {@code stride}.
+     * Large images are split into row bands on the background executor;
+     * every band keeps its own last-colour memo.
      */
-    public static int getRawPixel(int px, int pz) {
-        if (!loaded) return 0x110751;
-        px = Math.max(0, Math.min(imageWidth  - 1, px));
-        pz = Math.max(0, Math.min(imageHeight - 1, pz));
-        return pixels[px][pz];
+    private static void quantise(BufferedImage img, GotBiomePalette palette, byte[] out, int stride) {
+        int       w     = img.getWidth();
+        int       h     = img.getHeight();
+        RowReader rows  = RowReader.of(img);
+        int       bands = (long) w * h < PARALLEL_PIXELS ? 1
+                : Math.min(h, Runtime.getRuntime().availableProcessors());
+        if (bands == 1) {
+            quantiseRows(rows, palette, out, stride, w, 0, h);
+            return;
+        }
+        CompletableFuture<?>[] jobs = new CompletableFuture<?>[bands];
+        for (int b = 0; b < bands; b++) {
+            int z0 = (int) ((long) h * b / bands);
+            int z1 = (int) ((long) h * (b + 1) / bands);
+            jobs[b] = CompletableFuture.runAsync(
+                    () -> quantiseRows(rows, palette, out, stride, w, z0, z1), Util.backgroundExecutor());
+        }
+        CompletableFuture.allOf(jobs).join();
+    }
+
+    private static void quantiseRows(RowReader rows, GotBiomePalette palette, byte[] out, int stride,
+                                     int w, int z0, int z1) {
+        int[] row = new int[w];
+        // Neighbouring pixels are almost always the same colour, so
+        // remembering the last match skips nearly every palette search.
+        int lastRgb   = -1;
+        int lastIndex = palette.fallbackIndex();
+        for (int z = z0; z < z1; z++) {
+            rows.read(z, row);
+            for (int x = 0; x < w; x++) {
+                int rgb = row[x] & 0xFF_FF_FF; // strip alpha
+                if (rgb != lastRgb) {
+                    lastRgb   = rgb;
+                    lastIndex = palette.indexOf(rgb);
+                }
+                out[z * stride + x] = (byte) lastIndex;
+            }
+        }
     }
 
     /**
-     * Returns the pixel coordinate for the given world position.
-     *
-     * @return int[2] { pixelX, pixelZ } (clamped to image bounds)
+     * Reads one image row as {@code 0x??RRGGBB}.  The layouts ImageIO's PNG
+     * reader produces for 8-bit RGB, RGBA and palette images are read
+     * straight from the raster's {@link java.awt.image.DataBuffer};
+     * anything else goes through {@link BufferedImage#getRGB}.  Readers are
+     * stateless, so bands may share one.
      */
-    public static int[] getPixelForWorld(int worldX, int worldZ) {
-        if (!loaded) return new int[]{0, 0};
-        int px = Math.max(0, Math.min(imageWidth  - 1,
-                (int) Math.floor(worldX / (float) MAP_SCALE + imageWidth  * 0.5f)));
-        int pz = Math.max(0, Math.min(imageHeight - 1,
-                (int) Math.floor(worldZ / (float) MAP_SCALE + imageHeight * 0.5f)));
-        return new int[]{ px, pz };
+    @FunctionalInterface
+    private interface RowReader {
+        void read(int z, int[] row);
+
+        static RowReader of(BufferedImage img) {
+            int    w      = img.getWidth();
+            Raster raster = img.getRaster();
+            if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0) {
+                return (z, row) -> img.getRGB(0, z, w, 1, row, 0, w);
+            }
+            SampleModel sm = raster.getSampleModel();
+            ColorModel  cm = img.getColorModel();
+
+            if (raster.getDataBuffer() instanceof DataBufferInt buf
+                    && sm instanceof SinglePixelPackedSampleModel packed
+                    && (img.getType() == BufferedImage.TYPE_INT_RGB || img.getType() == BufferedImage.TYPE_INT_ARGB)) {
+                int[] data = buf.getData();
+                int   scan = packed.getScanlineStride();
+                int   off  = buf.getOffset();
+                return (z, row) -> System.arraycopy(data, off + z * scan, row, 0, w);
+            }
+
+            if (raster.getDataBuffer() instanceof DataBufferByte buf
+                    && sm instanceof ComponentSampleModel comp && buf.getNumBanks() == 1) {
+                byte[] data  = buf.getData();
+                int    scan  = comp.getScanlineStride();
+                int    pix   = comp.getPixelStride();
+                int[]  bands = comp.getBandOffsets();
+                int    off   = buf.getOffset();
+
+                if (cm instanceof IndexColorModel icm && comp.getNumBands() == 1) {
+                    int[] lut = new int[256];
+                    icm.getRGBs(lut);
+                    return (z, row) -> {
+                        int i = off + z * scan + bands[0];
+                        for (int x = 0; x < w; x++, i += pix) row[x] = lut[data[i] & 0xFF];
+                    };
+                }
+                if (cm instanceof ComponentColorModel && cm.getColorSpace().isCS_sRGB()
+                        && comp.getNumBands() >= 3 && cm.getComponentSize(0) == 8) {
+                    int r = bands[0], g = bands[1], b = bands[2];
+                    return (z, row) -> {
+                        int i = off + z * scan;
+                        for (int x = 0; x < w; x++, i += pix) {
+                            row[x] = (data[i + r] & 0xFF) << 16 | (data[i + g] & 0xFF) << 8 | (data[i + b] & 0xFF);
+                        }
+                    };
+                }
+            }
+            return (z, row) -> img.getRGB(0, z, w, 1, row, 0, w);
+        }
     }
 
-    // ── Accessors ─────────────────────────────────────────────────────────
+    // ── Shoreline distance transform (first shore query) ──────────────────
+    //
+    // Squared Euclidean distance transform of Felzenszwalb & Huttenlocher:
+    // one 1-D lower-envelope-of-parabolas pass down every column, then one
+    // along every row — O(pixels), exact.  Run once to the nearest water
+    // pixel and once to the nearest land pixel; the shoreline sits half a
+    // pixel from each, so the signed distance is (dist − ½) with the sign of
+    // the pixel's side.
 
-    public static boolean isLoaded()  { return loaded;      }
-    public static int     getWidth()  { return imageWidth;  }
-    public static int     getHeight() { return imageHeight; }
+    private static final float EDT_INF = 1e20f;
+
+    static short[] shoreDistance(byte[] idx, int w, int h, GotBiomePalette pal) {
+        int n = w * h;
+        float[] toWater = new float[n];
+        float[] toLand  = new float[n];
+        for (int i = 0; i < n; i++) {
+            boolean water = pal.isWater(idx[i] & 0xFF);
+            toWater[i] = water ? 0f : EDT_INF;
+            toLand[i]  = water ? EDT_INF : 0f;
+        }
+
+        EdtScratch scratch = new EdtScratch(Math.max(w, h));
+        edt2d(toWater, w, h, scratch);
+        edt2d(toLand,  w, h, scratch);
+
+        short[] out = new short[n];
+        for (int i = 0; i < n; i++) {
+            boolean water = pal.isWater(idx[i] & 0xFF);
+            float d = water
+                    ? -((float) Math.sqrt(toLand[i])  - 0.5f)
+                    :  ((float) Math.sqrt(toWater[i]) - 0.5f);
+            out[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(d * SHORE_UNITS)));
+        }
+        return out;
+    }
+
+    private static final class EdtScratch {
+        final float[]  f, d;
+        final double[] z;
+        final int[]    v;
+
+        EdtScratch(int n) {
+            f = new float[n];
+            d = new float[n];
+            z = new double[n + 1];
+            v = new int[n];
+        }
+    }
+
+    /** In-place 2-D squared distance transform of {@code grid[z * w + x]}. */
+    private static void edt2d(float[] grid, int w, int h, EdtScratch s) {
+        for (int x = 0; x < w; x++) {
+            for (int z = 0; z < h; z++) s.f[z] = grid[z * w + x];
+            edt1d(s, h);
+            for (int z = 0; z < h; z++) grid[z * w + x] = s.d[z];
+        }
+        for (int z = 0; z < h; z++) {
+            System.arraycopy(grid, z * w, s.f, 0, w);
+            edt1d(s, w);
+            System.arraycopy(s.d, 0, grid, z * w, w);
+        }
+    }
+
+    /** 1-D squared distance transform of {@code s.f[0..n)} into {@code s.d[0..n)}. */
+    private static void edt1d(EdtScratch s, int n) {
+        float[]  f = s.f, d = s.d;
+        double[] z = s.z;
+        int[]    v = s.v;
+        int k = 0;
+        v[0] = 0;
+        z[0] = Double.NEGATIVE_INFINITY;
+        z[1] = Double.POSITIVE_INFINITY;
+        for (int q = 1; q < n; q++) {
+            double sq = intersect(f, q, v[k]);
+            while (sq <= z[k]) {
+                k--;
+                sq = intersect(f, q, v[k]);
+            }
+            k++;
+            v[k]     = q;
+            z[k]     = sq;
+            z[k + 1] = Double.POSITIVE_INFINITY;
+        }
+        k = 0;
+        for (int q = 0; q < n; q++) {
+            while (z[k + 1] < q) k++;
+            float dq = q - v[k];
+            d[q] = Math.min(EDT_INF, dq * dq + f[v[k]]);
+        }
+    }
+
+    /** Position where the parabolas rooted at {@code q} and {@code p} intersect. */
+    private static double intersect(float[] f, int q, int p) {
+        return ((f[q] + (double) q * q) - (f[p] + (double) p * p)) / (2.0 * q - 2.0 * p);
+    }
 }
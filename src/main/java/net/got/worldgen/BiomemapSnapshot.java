@@ -0,0 +1,266 @@
+package net.got.worldgen;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * One immutable, fully built biomemap: the quantised palette-index levels
+ * ({@link BiomemapTiles}), the shoreline distance field and the palette they
+ * were built against.
+ *
+ * <h2>Publication</h2>
+ * <p>{@link BiomemapLoader} builds snapshots off-thread and publishes them
+ * through a single {@code volatile} reference.  Every field is final and the
+ * arrays are never written after construction, so a reader that obtained a
+ * snapshot sees all of it — there is no window in which the width belongs to
+ * one image and the pixels to another.  A caller making several related
+ * queries (a blend, a chunk's worth of pixels) should read
+ * {@link GotTerrainContext#map()} once and query that instance.
+ *
+ * <h2>Versions</h2>
+ * <p>Each published snapshot carries a {@link #version()} that increases with
+ * every load.  Derived caches ({@link GotBlendField}, {@link GotBiomeQuarts},
+ * {@link GotBiomeSource}'s holder table) record the version they were built
+ * from and rebuild on mismatch, so a {@code /reload} invalidates them without
+ * any lock.  {@link #EMPTY} (version {@code 0}) stands in before the first load.
+ *
+ * <h2>Resolution</h2>
+ * <p>Each map has its own {@link #scale()} in blocks per level-0 pixel.  The
+ * single-pixel queries below read level 0; {@link #paletteIndex(int, int, int)}
+ * reads any coarser level, whose pixel {@code (px, pz)} covers level-0 pixels
+ * {@code [px << level, (px + 1) << level)}.  Level 0 of a very large map
+ * pages on demand, so code that scans whole maps should scan
+ * {@link #residentLevel()} instead.
+ *
+ * <p>Coordinate mapping and storage are described on {@link BiomemapLoader}.
+ */
+public final class BiomemapSnapshot {
+
+    /** Deep-ocean colour returned for queries outside the map or before a load. */
+    private static final int OUTSIDE_COLOR = 0x110751;
+
+    /** Stands in for a map id that is not (yet) loaded. */
+    public static final BiomemapSnapshot EMPTY =
+            new BiomemapSnapshot(0, 0, 0, BiomemapLoader.MAP_SCALE, null, 0L, null);
+
+    private final int             version;
+    private final int             width;
+    private final int             height;
+    private final int             scale;
+    private final BiomemapTiles   tiles;
+    /** Level of {@link #shore}: the finest resident level. */
+    private final int             shoreLevel;
+    private final int             shoreWidth;
+    private final int             shoreHeight;
+    /**
+     * [pixelZ * shoreWidth + pixelX] at {@link #shoreLevel} = signed shore distance in 1/{@value BiomemapLoader#SHORE_UNITS} px; + land, − water.
+     * {@code null} until the first shore query; see {@link #shoreField()}.
+     */
+    private volatile short[]      shore;
+    private final GotBiomePalette palette;
+    /** 64-bit hash of every level-0 palette index, taken at load time. */
+    private final long            pixelHash;
+    /** Lazily computed {@link #fingerprint()}; {@code 0} until then. */
+    private volatile long         fingerprint;
+
+    BiomemapSnapshot(int version, int width, int height, int scale,
+                     BiomemapTiles tiles, long pixelHash, GotBiomePalette palette) {
+        this.version     = version;
+        this.width       = width;
+        this.height      = height;
+        this.scale       = scale;
+        this.tiles       = tiles;
+        this.shoreLevel  = tiles == null ? 0 : tiles.residentLevel();
+        this.shoreWidth  = tiles == null ? 0 : tiles.width(shoreLevel);
+        this.shoreHeight = tiles == null ? 0 : tiles.height(shoreLevel);
+        this.palette     = palette;
+        this.pixelHash   = pixelHash;
+    }
+
+    // ── Query ─────────────────────────────────────────────────────────────
+
+    /**
+     * Returns the palette index at the given IMAGE-SPACE pixel coordinate.
+     * Coordinates are clamped to image bounds.
+     *
+     * @return palette index, or {@code 0} if this is {@link #EMPTY}
+     */
+    public int paletteIndex(int px, int pz) {
+        if (palette == null) return 0;
+        px = Math.max(0, Math.min(width  - 1, px));
+        pz = Math.max(0, Math.min(height - 1, pz));
+        return tiles.index(0, px, pz);
+    }
+
+    /**
+     * Returns the palette index at pixel {@code (px, pz)} of resolution
+     * {@code level}; coordinates are clamped to that level's bounds.
+     *
+     * @return palette index, or {@code 0} if this is {@link #EMPTY}
+     */
+    public int paletteIndex(int level, int px, int pz) {
+        if (palette == null) return 0;
+        px = Math.max(0, Math.min(tiles.width(level)  - 1, px));
+        pz = Math.max(0, Math.min(tiles.height(level) - 1, pz));
+        return tiles.index(level, px, pz);
+    }
+
+    /**
+     * Returns the canonical 0xRRGGBB palette colour at the given world XZ
+     * position; out-of-bounds coordinates return deep ocean.
+     */
+    public int colorAtWorld(int worldX, int worldZ) {
+        if (palette == null) return OUTSIDE_COLOR;
+
+        int px = (int) Math.floor(worldX / (float) scale + width  * 0.5f);
+        int pz = (int) Math.floor(worldZ / (float) scale + height * 0.5f);
+
+        if (px < 0 || pz < 0 || px >= width || pz >= height) {
+            return OUTSIDE_COLOR;
+        }
+
+        return palette.color(tiles.index(0, px, pz));
+    }
+
+    /**
+     * Returns the canonical 0xRRGGBB palette colour at the given IMAGE-SPACE
+     * pixel coordinate.  Coordinates are clamped to image bounds.
+     */
+    public int rawPixel(int px, int pz) {
+        if (palette == null) return OUTSIDE_COLOR;
+        return palette.color(paletteIndex(px, pz));
+    }
+
+    /**
+     * Returns the pixel coordinate for the given world position.
+     *
+     * @return int[2] { pixelX, pixelZ } (clamped to image bounds)
+     */
+    public int[] pixelForWorld(int worldX, int worldZ) {
+        if (palette == null) return new int[]{0, 0};
+        int px = Math.max(0, Math.min(width  - 1,
+                (int) Math.floor(worldX / (float) scale + width  * 0.5f)));
+        int pz = Math.max(0, Math.min(height - 1,
+                (int) Math.floor(worldZ / (float) scale + height * 0.5f)));
+        return new int[]{ px, pz };
+    }
+
+    /**
+     * Signed distance in blocks from world position {@code (worldX, worldZ)}
+     * to the painted shoreline: positive on land, negative over water,
+     * bilinearly interpolated between pixel centres.  Pass domain-warped
+     * coordinates ({@link GotBlendField#warpedX}) to measure against the
+     * coastline the terrain actually follows.
+     *
+     * <p>This is the coast as painted; terrain noise can still push the real
+     * waterline up to a biome's {@code scale} blocks vertically either way,
+     * which is why the per-block decisions in {@link GotChunkGenerator} use
+     * generated column heights.
+     *
+     * <p>The field is computed at {@link #residentLevel()}, so on a map
+     * large enough to page its resolution is that level's pixel size.  The
+     * first call on a snapshot computes it, which takes a moment on a large
+     * map.
+     *
+     * @return distance in blocks, or {@code 0} for {@link #EMPTY}
+     */
+    public float shoreDistance(float worldX, float worldZ) {
+        if (palette == null) return 0f;
+        float fx = (worldX / scale + width  * 0.5f) / (1 << shoreLevel) - 0.5f;
+        float fz = (worldZ / scale + height * 0.5f) / (1 << shoreLevel) - 0.5f;
+        int   x0 = (int) Math.floor(fx);
+        int   z0 = (int) Math.floor(fz);
+        float tx = fx - x0;
+        float tz = fz - z0;
+        float d00 = shorePixel(x0,     z0);
+        float d10 = shorePixel(x0 + 1, z0);
+        float d01 = shorePixel(x0,     z0 + 1);
+        float d11 = shorePixel(x0 + 1, z0 + 1);
+        float d = (d00 + (d10 - d00) * tx) * (1f - tz) + (d01 + (d11 - d01) * tx) * tz;
+        return d * (scale << shoreLevel) / BiomemapLoader.SHORE_UNITS;
+    }
+
+    /**
+     * Signed distance in level-0 pixels from level-0 pixel {@code (px, pz)}
+     * to the painted shoreline; coordinates are clamped to image bounds.
+     */
+    public float shoreDistancePx(int px, int pz) {
+        if (palette == null) return 0f;
+        px = Math.max(0, Math.min(width  - 1, px));
+        pz = Math.max(0, Math.min(height - 1, pz));
+        return shorePixel(px >> shoreLevel, pz >> shoreLevel) * (float) (1 << shoreLevel) / BiomemapLoader.SHORE_UNITS;
+    }
+
+    private int shorePixel(int px, int pz) {
+        px = Math.max(0, Math.min(shoreWidth  - 1, px));
+        pz = Math.max(0, Math.min(shoreHeight - 1, pz));
+        return shoreField()[pz * shoreWidth + px];
+    }
+
+    /**
+     * The shore field, running the distance transform on the first call.
+     * It costs two {@code float} planes the size of the resident level, so
+     * maps are not charged for it until something measures a shore.
+     */
+    private short[] shoreField() {
+        short[] s = shore;
+        if (s != null) return s;
+        synchronized (this) {
+            if (shore == null) {
+                shore = BiomemapLoader.shoreDistance(tiles.plane(shoreLevel), shoreWidth, shoreHeight, palette);
+            }
+            return shore;
+        }
+    }
+
+    // ── Accessors ─────────────────────────────────────────────────────────
+
+    /** {@code false} only for {@link #EMPTY}. */
+    public boolean         isLoaded() { return palette != null; }
+    public int             version()  { return version;         }
+    /** Level-0 width in pixels. */
+    public int             width()    { return width;           }
+    /** Level-0 height in pixels. */
+    public int             height()   { return height;          }
+    /** World blocks per level-0 pixel. */
+    public int             scale()    { return scale;           }
+    /** The palette this map was quantised against, or {@code null} for {@link #EMPTY}. */
+    public GotBiomePalette palette()  { return palette;         }
+
+    /** Number of resolution levels; {@code 0} for {@link #EMPTY}. */
+    public int levels()                { return tiles == null ? 0 : tiles.levels(); }
+    /** The finest level that never pages. */
+    public int residentLevel()         { return shoreLevel; }
+    public int levelWidth(int level)   { return tiles.width(level);  }
+    public int levelHeight(int level)  { return tiles.height(level); }
+
+    /**
+     * A 64-bit content hash of this map — every level-0 pixel, geometry and
+     * palette (colours and density params) — that, unlike {@link #version()},
+     * is the same for the same map in every session.  For keying persistent
+     * caches of anything derived from the terrain; {@code 0} for
+     * {@link #EMPTY}.
+     */
+    public long fingerprint() {
+        long f = fingerprint;
+        if (f != 0L || palette == null) return f;
+
+        Hasher h = Hashing.murmur3_128().newHasher()
+                .putLong(pixelHash)
+                .putInt(width)
+                .putInt(height)
+                .putInt(scale);
+        for (int i = 0; i < palette.size(); i++) {
+            GotBiomeDensityParams.Params p = palette.params(i);
+            h.putInt(palette.color(i)).putFloat(p.depth).putFloat(p.scale);
+        }
+        f = h.hash().asLong();
+        fingerprint = f = f == 0L ? 1L : f;
+        return f;
+    }
+
+    /** Frees the paged levels' backing store once this snapshot has been replaced. */
+    void release() {
+        if (tiles != null) tiles.release();
+    }
+}
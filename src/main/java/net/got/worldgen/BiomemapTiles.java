@@ -0,0 +1,306 @@
+package net.got.worldgen;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The palette-index planes of one {@link BiomemapSnapshot}, at every
+ * resolution level, stored so that only the coarse levels need to stay in
+ * memory.
+ *
+ * <h2>Levels</h2>
+ * <p>Level 0 is the map as painted.  Each further level halves both sides,
+ * every pixel taking the majority index of the 2 × 2 block beneath it (ties
+ * go to the top-left pixel), until the whole level fits in one tile.  The
+ * first level of at most {@value #RESIDENT_PIXELS} pixels and every coarser
+ * one are <em>resident</em>: one flat row-major {@code byte[]} each, read
+ * with a single array load.  For a map the size of the known world that is
+ * level 0 itself, so nothing pages and lookups cost what they always have.
+ *
+ * <h2>Paging</h2>
+ * <p>Finer levels are cut into {@value #TILE_SIZE}² tiles and written once to
+ * a spill file while the map is built.  A lookup reads the tile through a
+ * per-level slot table, so a hit is one array load more than a resident read.
+ * A miss reads the tile back from the spill file and installs it in
+ * {@link #PAGED}, a byte-bounded LRU shared by every loaded map (size from
+ * {@code -Dgot.biomemap.tileCacheMiB}, default 64); eviction clears the slot
+ * again.  Hits do not go through the cache, so a tile's recency is refreshed
+ * at most once per page-in anywhere ({@link #epoch}), which keeps hot tiles
+ * resident without a hash lookup per pixel.
+ *
+ * <h2>Release</h2>
+ * <p>{@link BiomemapLoader#publish} {@link #release() releases} a replaced
+ * map, deleting its spill file.  A worker still holding that snapshot may
+ * then miss; the miss is answered from the resident level, which is the
+ * coarser answer rather than a wrong one.
+ */
+final class BiomemapTiles {
+
+    static final int TILE_SHIFT = 8;
+    static final int TILE_SIZE  = 1 << TILE_SHIFT;
+    private static final int TILE_MASK  = TILE_SIZE - 1;
+    private static final int TILE_BYTES = TILE_SIZE * TILE_SIZE;
+
+    /** Size bound of the finest resident level. */
+    static final long RESIDENT_PIXELS = 1L << 24;
+
+    private static final Cache<TileKey, Tile> PAGED = CacheBuilder.newBuilder()
+            .maximumWeight(Long.getLong("got.biomemap.tileCacheMiB", 64L) << 20)
+            .weigher((TileKey key, Tile tile) -> tile.indices.length)
+            .concurrencyLevel(Math.max(4, Runtime.getRuntime().availableProcessors()))
+            .removalListener(n -> {
+                TileKey key = n.getKey();
+                if (key != null) key.owner.slots[key.level].compareAndSet(key.slot, n.getValue(), null);
+            })
+            .build();
+
+    /**
+     * Bumped on every page-in.  A hit on a tile stamped with an older epoch
+     * refreshes the tile's LRU position; lost increments are harmless.
+     */
+    private static volatile int epoch;
+
+    private record TileKey(BiomemapTiles owner, int level, int slot) {}
+
+    private static final class Tile {
+        final byte[] indices;
+        int epoch;
+
+        Tile(byte[] indices) { this.indices = indices; }
+    }
+
+    private final int    levels;
+    private final int    residentLevel;
+    private final int[]  widths, heights, tilesX;
+    /** Resident planes, {@code null} for paged levels. */
+    private final byte[][] resident;
+    /** Installed tiles of paged levels, {@code null} for resident levels. */
+    private final AtomicReferenceArray<Tile>[] slots;
+    /** First spill-file tile of each paged level. */
+    private final long[] spillBase;
+    private final File             spillPath;
+    private final RandomAccessFile spill;
+
+    private BiomemapTiles(Builder b) {
+        this.levels        = b.levels;
+        this.residentLevel = b.residentLevel;
+        this.widths        = b.widths;
+        this.heights       = b.heights;
+        this.tilesX        = b.tilesX;
+        this.resident      = b.resident;
+        this.spillBase     = b.spillBase;
+        this.spillPath     = b.spillPath;
+        this.spill         = b.spill;
+        @SuppressWarnings("unchecked")
+        AtomicReferenceArray<Tile>[] s = new AtomicReferenceArray[levels];
+        for (int l = 0; l < residentLevel; l++) s[l] = new AtomicReferenceArray<>(tilesX[l] * b.tilesZ[l]);
+        this.slots = s;
+    }
+
+    // ── Lookup ────────────────────────────────────────────────────────────
+
+    /** Palette index at in-bounds pixel {@code (px, pz)} of {@code level}. */
+    int index(int level, int px, int pz) {
+        byte[] plane = resident[level];
+        if (plane != null) return plane[pz * widths[level] + px] & 0xFF;
+
+        int  slot = (pz >> TILE_SHIFT) * tilesX[level] + (px >> TILE_SHIFT);
+        Tile tile = slots[level].getAcquire(slot);
+        if (tile == null) {
+            tile = page(level, slot);
+            if (tile == null) {
+                int shift = residentLevel - level;
+                return resident[residentLevel][(pz >> shift) * widths[residentLevel] + (px >> shift)] & 0xFF;
+            }
+        } else if (tile.epoch != epoch) {
+            tile.epoch = epoch;
+            PAGED.getIfPresent(new TileKey(this, level, slot));
+        }
+        return tile.indices[((pz & TILE_MASK) << TILE_SHIFT) | (px & TILE_MASK)] & 0xFF;
+    }
+
+    /** Reads a tile back from the spill file; {@code null} once the map has been released. */
+    private Tile page(int level, int slot) {
+        TileKey key = new TileKey(this, level, slot);
+        Tile tile;
+        try {
+            tile = PAGED.get(key, () -> new Tile(readTile(spillBase[level] + slot)));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            return null;
+        }
+        tile.epoch = ++epoch;
+        slots[level].compareAndSet(slot, null, tile);
+        // Evicted between load and install: don't keep it behind the cache's back.
+        if (PAGED.getIfPresent(key) != tile) slots[level].compareAndSet(slot, tile, null);
+        return tile;
+    }
+
+    private byte[] readTile(long tile) throws IOException {
+        byte[] out = new byte[TILE_BYTES];
+        synchronized (spill) {
+            spill.seek(tile * TILE_BYTES);
+            spill.readFully(out);
+        }
+        return out;
+    }
+
+    /** Deletes the spill file and drops this map's paged tiles. */
+    void release() {
+        if (spill == null) return;
+        synchronized (spill) {
+            try {
+                spill.close();
+            } catch (IOException ignored) {
+            }
+        }
+        spillPath.delete();
+        PAGED.asMap().keySet().removeIf(k -> k.owner == this);
+    }
+
+    // ── Accessors ─────────────────────────────────────────────────────────
+
+    int levels()              { return levels;         }
+    int residentLevel()       { return residentLevel;  }
+    int width(int level)      { return widths[level];  }
+    int height(int level)     { return heights[level]; }
+    /** The flat plane of a resident level. */
+    byte[] plane(int level)   { return resident[level]; }
+
+    // ── Building ──────────────────────────────────────────────────────────
+
+    /**
+     * Collects the levels of one map as the loader produces them.  Hand it
+     * level 0 (or the level-0 tiles and then level 1) and it derives, keeps
+     * or spills everything coarser.  Single-threaded, load time only.
+     */
+    static final class Builder {
+        final int      levels;
+        final int      residentLevel;
+        final int[]    widths, heights, tilesX, tilesZ;
+        final byte[][] resident;
+        final long[]   spillBase;
+        File             spillPath;
+        RandomAccessFile spill;
+        private final byte[] scratch = new byte[TILE_BYTES];
+
+        Builder(int width, int height) {
+            int n = 1;
+            for (int w = width, h = height; w > TILE_SIZE || h > TILE_SIZE; w = (w + 1) >> 1, h = (h + 1) >> 1) n++;
+            levels    = n;
+            widths    = new int[n];
+            heights   = new int[n];
+            tilesX    = new int[n];
+            tilesZ    = new int[n];
+            spillBase = new long[n];
+            resident  = new byte[n][];
+            int  first = n - 1;
+            long base  = 0;
+            for (int l = 0, w = width, h = height; l < n; l++, w = (w + 1) >> 1, h = (h + 1) >> 1) {
+                widths[l]    = w;
+                heights[l]   = h;
+                tilesX[l]    = (w + TILE_MASK) >> TILE_SHIFT;
+                tilesZ[l]    = (h + TILE_MASK) >> TILE_SHIFT;
+                spillBase[l] = base;
+                base += (long) tilesX[l] * tilesZ[l];
+                if ((long) w * h <= RESIDENT_PIXELS) first = Math.min(first, l);
+            }
+            residentLevel = first;
+        }
+
+        /**
+         * Supplies the full plane of {@code level} and derives every coarser
+         * level from it; paged levels go to the spill file.
+         */
+        void putPlane(int level, byte[] plane) {
+            for (;; level++) {
+                if (level >= residentLevel) resident[level] = plane;
+                else spillPlane(level, plane);
+                if (level + 1 == levels) return;
+                int w = widths[level], h = heights[level];
+                byte[] next = new byte[widths[level + 1] * heights[level + 1]];
+                downsample(plane, w, 0, 0, w, h, next, widths[level + 1], 0, 0);
+                plane = next;
+            }
+        }
+
+        private void spillPlane(int level, byte[] plane) {
+            int w = widths[level], h = heights[level];
+            for (int tz = 0; tz < tilesZ[level]; tz++) {
+                for (int tx = 0; tx < tilesX[level]; tx++) {
+                    int x0 = tx << TILE_SHIFT, z0 = tz << TILE_SHIFT;
+                    int tw = Math.min(TILE_SIZE, w - x0), th = Math.min(TILE_SIZE, h - z0);
+                    java.util.Arrays.fill(scratch, (byte) 0);
+                    for (int z = 0; z < th; z++) {
+                        System.arraycopy(plane, (z0 + z) * w + x0, scratch, z << TILE_SHIFT, tw);
+                    }
+                    writeTile(level, tx, tz, scratch);
+                }
+            }
+        }
+
+        /** Writes one {@value #TILE_SIZE}²-byte tile (row stride {@value #TILE_SIZE}) of a paged level. */
+        void writeTile(int level, int tileX, int tileZ, byte[] tile) {
+            try {
+                if (spill == null) {
+                    spillPath = File.createTempFile("got-biomemap-", ".tiles");
+                    spillPath.deleteOnExit();
+                    spill = new RandomAccessFile(spillPath, "rw");
+                }
+                spill.seek((spillBase[level] + (long) tileZ * tilesX[level] + tileX) * TILE_BYTES);
+                spill.write(tile, 0, TILE_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write biomemap spill file", e);
+            }
+        }
+
+        BiomemapTiles build() throws IOException {
+            for (int l = 0; l < levels; l++) {
+                if (l >= residentLevel && resident[l] == null) throw new EOFException("Biomemap level " + l + " missing");
+            }
+            return new BiomemapTiles(this);
+        }
+
+        /** Discards a partly built map. */
+        void abandon() {
+            if (spill == null) return;
+            try {
+                spill.close();
+            } catch (IOException ignored) {
+            }
+            spillPath.delete();
+        }
+    }
+
+    /**
+     * Halves the {@code w × h} region at {@code (x0, z0)} of {@code src} into
+     * {@code dst} at {@code (dx, dz)}: each output pixel is the majority of
+     * its 2 × 2 block (clamped at odd edges), ties going to the top-left.
+     */
+    static void downsample(byte[] src, int srcStride, int x0, int z0, int w, int h,
+                           byte[] dst, int dstStride, int dx, int dz) {
+        int ow = (w + 1) >> 1, oh = (h + 1) >> 1;
+        for (int z = 0; z < oh; z++) {
+            int r0 = (z0 + 2 * z) * srcStride + x0;
+            int r1 = (z0 + Math.min(2 * z + 1, h - 1)) * srcStride + x0;
+            for (int x = 0; x < ow; x++) {
+                int  x1 = Math.min(2 * x + 1, w - 1);
+                byte a = src[r0 + 2 * x], b = src[r0 + x1];
+                byte c = src[r1 + 2 * x], d = src[r1 + x1];
+                byte m = (a == b || a == c || a == d) ? a
+                       : (b == c || b == d)           ? b
+                       : (c == d)                     ? c
+                       : a;
+                dst[(dz + z) * dstStride + dx + x] = m;
+            }
+        }
+    }
+}
@@ -80,8 +80,7 @@ public final class GotBiomeDensityParams {
 
     // ── Biome name → Params table ─────────────────────────────────────────
 
-    private static final Map<String, Params> BY_NAME  = new HashMap<>();
-    private static final Map<Integer, Params> BY_COLOR = new HashMap<>();
+    private static final Map<String, Params> BY_NAME = new HashMap<>();
     private static final Params FALLBACK;
 
     static {
@@ -107,24 +106,6 @@ public final class GotBiomeDensityParams {
         water("ocean",                45f,     5f);   // open ocean floor
         water("deep_ocean",           35f,     6f);   // abyssal depths
 
-        // ── Colour palette (must mirror GotBiomeSource exactly) ───────────
-        BY_COLOR.put(0x949038, BY_NAME.get("north"));
-        BY_COLOR.put(0xADA942, BY_NAME.get("barrowlands"));
-        BY_COLOR.put(0x92B0AC, BY_NAME.get("stony_shore"));
-        BY_COLOR.put(0x808F81, BY_NAME.get("north_hills"));
-        BY_COLOR.put(0x2F4A33, BY_NAME.get("neck"));
-        BY_COLOR.put(0x02450D, BY_NAME.get("ironwood"));
-        BY_COLOR.put(0x047D17, BY_NAME.get("wolfswood"));
-        BY_COLOR.put(0x537053, BY_NAME.get("haunted_forest"));
-        BY_COLOR.put(0x00229D, BY_NAME.get("ocean"));
-        BY_COLOR.put(0x110751, BY_NAME.get("deep_ocean"));
-        BY_COLOR.put(0x2D6796, BY_NAME.get("river"));
-        BY_COLOR.put(0x35A180, BY_NAME.get("neck_river"));
-        BY_COLOR.put(0x4B91E6, BY_NAME.get("frozen_river"));
-        BY_COLOR.put(0xBBCCCD, BY_NAME.get("frostfangs"));
-        BY_COLOR.put(0xFFFFFF, BY_NAME.get("always_winter"));
-        BY_COLOR.put(0xA5B7B9, BY_NAME.get("north_mountains"));
-
         FALLBACK = BY_NAME.get("ocean");
     }
 
@@ -141,34 +122,10 @@ public final class GotBiomeDensityParams {
     // ── Public API ────────────────────────────────────────────────────────
 
     /**
-     * Returns the {@link Params} for the given 24-bit biomemap RGB colour.
-     * Uses exact lookup first; falls back to nearest-colour-distance for
-     * compressed or anti-aliased border pixels.
+     * Returns the {@link Params} by biome registry path (e.g. {@code "north_mountains"}).
+     * Colour lookups go through {@link GotBiomePalette}, which resolves each
+     * palette entry here once at load time.
      */
-    public static Params forColor(int rgb) {
-        Params exact = BY_COLOR.get(rgb);
-        if (exact != null) return exact;
-
-        int r = (rgb >> 16) & 0xFF;
-        int g = (rgb >>  8) & 0xFF;
-        int b =  rgb        & 0xFF;
-
-        int    bestDist = Integer.MAX_VALUE;
-        Params best     = FALLBACK;
-
-        for (Map.Entry<Integer, Params> e : BY_COLOR.entrySet()) {
-            int c  = e.getKey();
-            int dr = ((c >> 16) & 0xFF) - r;
-            int dg = ((c >>  8) & 0xFF) - g;
-            int db = ( c        & 0xFF) - b;
-            int d  = dr * dr + dg * dg + db * db;
-            if (d < bestDist) { bestDist = d; best = e.getValue(); }
-        }
-
-        return best;
-    }
-
-    /** Returns the {@link Params} by biome registry path (e.g. {@code "north_mountains"}). */
     public static Params forName(String name) {
         return BY_NAME.getOrDefault(name, FALLBACK);
     }
@@ -0,0 +1,119 @@
+package net.got.worldgen;
+
+/**
+ * Coarse spatial index of a biomemap: for every palette index, which
+ * {@value #CELL_SIZE} × {@value #CELL_SIZE}-pixel cells contain at least one
+ * pixel of it.  Lets {@link GotBiomeSource}'s biome searches skip every
+ * column that provably cannot return a wanted biome.
+ *
+ * <h2>Why skipping is exact</h2>
+ * <p>{@link GotBiomeSource#getNoiseBiome} returns the land or water winner of
+ * the four pixels around the column's <em>warped</em> position, and the warp
+ * moves a column by at most {@link GotChunkGenerator#WARP_REACH} blocks plus
+ * the lattice's {@link GotWarpLattice#errorBound()}.  A column whose reach
+ * rectangle, widened by one pixel for the bilinear neighbour, touches no cell
+ * holding a wanted index therefore cannot match, and a search that skips it
+ * visits the remaining columns in the same order with the same answers.
+ * Columns that may match are still decided by the exact lookup.
+ *
+ * <h2>Cost</h2>
+ * <p>Built once per biomemap version from level 0 — one pass over the
+ * pixels, a bit per palette index per cell.  A query ORs the wanted indices'
+ * cells into a summed-area table, after which any rectangle test is four
+ * array loads.
+ */
+final class GotBiomeIndex {
+
+    private static final int CELL_SHIFT = 4;
+    static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private final BiomemapSnapshot map;
+    private final int              cellsX;
+    private final int              cellsZ;
+    /** [paletteIndex][cell >> 6] — cell bitsets, {@code cell = cz * cellsX + cx}. */
+    private final long[][]         presence;
+
+    GotBiomeIndex(BiomemapSnapshot map) {
+        this.map    = map;
+        int w = map.width(), h = map.height();
+        this.cellsX = (w + CELL_SIZE - 1) >> CELL_SHIFT;
+        this.cellsZ = (h + CELL_SIZE - 1) >> CELL_SHIFT;
+        int words   = (cellsX * cellsZ + 63) >> 6;
+        this.presence = new long[map.palette().size()][words];
+
+        for (int pz = 0; pz < h; pz++) {
+            int rowCell = (pz >> CELL_SHIFT) * cellsX;
+            for (int px = 0; px < w; px++) {
+                int cell = rowCell + (px >> CELL_SHIFT);
+                presence[map.paletteIndex(px, pz)][cell >> 6] |= 1L << cell;
+            }
+        }
+    }
+
+    BiomemapSnapshot map() { return map; }
+
+    /**
+     * The cells holding any index with {@code wanted[index]}, for columns
+     * that move at most {@code reach} blocks before sampling.
+     */
+    Candidates candidates(boolean[] wanted, int reach) {
+        int[] indices = new int[wanted.length];
+        int   n       = 0;
+        for (int i = 0; i < wanted.length; i++) if (wanted[i]) indices[n++] = i;
+
+        int[] sat = new int[(cellsX + 1) * (cellsZ + 1)];
+        boolean any = false;
+        for (int cz = 0; cz < cellsZ; cz++) {
+            int run = 0;
+            for (int cx = 0; cx < cellsX; cx++) {
+                int cell = cz * cellsX + cx;
+                for (int k = 0; k < n; k++) {
+                    if ((presence[indices[k]][cell >> 6] & (1L << cell)) != 0) {
+                        run++;
+                        any = true;
+                        break;
+                    }
+                }
+                sat[(cz + 1) * (cellsX + 1) + cx + 1] = sat[cz * (cellsX + 1) + cx + 1] + run;
+            }
+        }
+        return new Candidates(any ? sat : null, reach);
+    }
+
+    /** The answer to one search's "could this column match?". */
+    final class Candidates {
+        private final int[] sat;
+        private final int   reach;
+
+        private Candidates(int[] sat, int reach) {
+            this.sat   = sat;
+            this.reach = reach;
+        }
+
+        /** {@code true} if no pixel of the map has a wanted index. */
+        boolean isEmpty() { return sat == null; }
+
+        /** Whether the column at world {@code (wx, wz)} may sample a wanted pixel. */
+        boolean mayContain(int wx, int wz) {
+            return mayContain(wx, wz, wx, wz);
+        }
+
+        /** Whether any column in the world-block rectangle may sample a wanted pixel. */
+        boolean mayContain(int minX, int minZ, int maxX, int maxZ) {
+            if (sat == null) return false;
+            int c0x = cell(minX - reach, map.width(),  true);
+            int c1x = cell(maxX + reach, map.width(),  false);
+            int c0z = cell(minZ - reach, map.height(), true);
+            int c1z = cell(maxZ + reach, map.height(), false);
+            int stride = cellsX + 1;
+            return sat[(c1z + 1) * stride + c1x + 1] - sat[c0z * stride + c1x + 1]
+                 - sat[(c1z + 1) * stride + c0x]     + sat[c0z * stride + c0x] > 0;
+        }
+
+        /** Cell of the pixel a world coordinate samples, plus the bilinear neighbour on the high side. */
+        private int cell(int world, int size, boolean low) {
+            int px = (int) Math.floor(world / (float) map.scale() + size * 0.5f) + (low ? 0 : 1);
+            return Math.max(0, Math.min(size - 1, px)) >> CELL_SHIFT;
+        }
+    }
+}
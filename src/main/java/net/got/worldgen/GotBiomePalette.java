@@ -0,0 +1,128 @@
+package net.got.worldgen;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The single biomemap palette, loaded from
+ * {@code got:worldgen/biomecolors/biome_colors.json}.
+ *
+ * <p>Each JSON entry maps a paint colour ({@code "#RRGGBB"}) to a biome id.
+ * Entries are numbered in file order; that number is the <em>palette index</em>
+ * stored per pixel by {@link BiomemapLoader}.  Everything a worldgen query
+ * needs about a pixel is then a dense array indexed by it:
+ *
+ * <ul>
+ *   <li>{@link #color(int)}  — the canonical 24-bit paint colour</li>
+ *   <li>{@link #biome(int)}  — the biome registry id</li>
+ *   <li>{@link #params(int)} — the {@link GotBiomeDensityParams.Params} terrain parameters</li>
+ * </ul>
+ *
+ * <p>Nearest-colour matching for anti-aliased or compressed border pixels
+ * happens exactly once, at load time ({@link #indexOf}), never per query.
+ */
+public final class GotBiomePalette {
+
+    /** Palette indices are stored in a {@code byte}; see {@link BiomemapLoader}. */
+    public static final int MAX_ENTRIES = 256;
+
+    /** Colour used for everything outside the painted map. */
+    private static final int OUT_OF_MAP_COLOR = 0x110751;   // deep ocean
+
+    private final int[]                          colors;
+    private final ResourceLocation[]             biomes;
+    private final GotBiomeDensityParams.Params[] params;
+    private final Map<Integer, Integer>          exact;
+    private final int                            fallbackIndex;
+
+    private GotBiomePalette(List<Integer> colors, List<ResourceLocation> biomes) {
+        int n = colors.size();
+        if (n == 0)           throw new IllegalArgumentException("Biome palette is empty");
+        if (n > MAX_ENTRIES)  throw new IllegalArgumentException("Biome palette has " + n + " entries; max " + MAX_ENTRIES);
+
+        this.colors = new int[n];
+        this.biomes = new ResourceLocation[n];
+        this.params = new GotBiomeDensityParams.Params[n];
+        this.exact  = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            this.colors[i] = colors.get(i);
+            this.biomes[i] = biomes.get(i);
+            this.params[i] = GotBiomeDensityParams.forName(biomes.get(i).getPath());
+            this.exact.putIfAbsent(this.colors[i], i);
+        }
+        this.fallbackIndex = indexOf(OUT_OF_MAP_COLOR);
+    }
+
+    // ── Load ──────────────────────────────────────────────────────────────
+
+    /**
+     * Parses {@code biome_colors.json}: a flat object of
+     * {@code "#RRGGBB": "namespace:biome"} pairs, in palette order.
+     */
+    public static GotBiomePalette load(InputStream stream) {
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+
+            List<Integer>          colors = new ArrayList<>(json.size());
+            List<ResourceLocation> biomes = new ArrayList<>(json.size());
+            for (Map.Entry<String, JsonElement> e : json.entrySet()) {
+                String key = e.getKey().startsWith("#") ? e.getKey().substring(1) : e.getKey();
+                colors.add(Integer.parseInt(key, 16) & 0xFF_FF_FF);
+                biomes.add(ResourceLocation.parse(e.getValue().getAsString()));
+            }
+            return new GotBiomePalette(colors, biomes);
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load GoT biome palette", e);
+        }
+    }
+
+    // ── Quantisation (load time only) ─────────────────────────────────────
+
+    /**
+     * Returns the palette index whose colour is nearest (squared Euclidean
+     * distance in RGB) to {@code rgb}.  Exact matches short-circuit.
+     */
+    public int indexOf(int rgb) {
+        Integer hit = exact.get(rgb);
+        if (hit != null) return hit;
+
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >>  8) & 0xFF;
+        int b =  rgb        & 0xFF;
+
+        int bestDist  = Integer.MAX_VALUE;
+        int bestIndex = 0;
+        for (int i = 0; i < colors.length; i++) {
+            int c  = colors[i];
+            int dr = ((c >> 16) & 0xFF) - r;
+            int dg = ((c >>  8) & 0xFF) - g;
+            int db = ( c        & 0xFF) - b;
+            int d  = dr * dr + dg * dg + db * db;
+            if (d < bestDist) { bestDist = d; bestIndex = i; }
+        }
+        return bestIndex;
+    }
+
+    // ── Dense lookups ─────────────────────────────────────────────────────
+
+    public int                          size()              { return colors.length;  }
+    public int                          color(int index)    { return colors[index];  }
+    public ResourceLocation             biome(int index)    { return biomes[index];  }
+    public GotBiomeDensityParams.Params params(int index)   { return params[index];  }
+    public boolean                      isWater(int index)  { return params[index].isWater; }
+
+    /** Index used for pixels outside the map and before the map is loaded. */
+    public int fallbackIndex() { return fallbackIndex; }
+}
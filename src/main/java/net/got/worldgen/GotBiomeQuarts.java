@@ -0,0 +1,167 @@
+package net.got.worldgen;
+
+import net.minecraft.world.level.ChunkPos;
+
+/**
+ * Per-chunk cache of {@link GotBiomeSource} decisions for the 4 × 4 quart
+ * columns (4 × 4-block biome cells) of a chunk.
+ *
+ * <h2>What is stored</h2>
+ * <p>For every quart column, everything {@link GotBiomeSource#getNoiseBiome}
+ * needs that does not depend on Y:
+ * <ul>
+ *   <li>{@code land}  — the dominant non-water palette index (or the overall
+ *       winner if all four pixels are water);</li>
+ *   <li>{@code water} — the dominant water palette index (or the overall
+ *       winner if no water pixel contributes);</li>
+ *   <li>{@code openFromY} — the lowest Y at which the terrain density is
+ *       ≤ 0.  In {@link GotTerrainMode#HEIGHTFIELD} density is
+ *       {@code surface − y}, so the Y-aware water check collapses to the
+ *       integer compare {@code y ≥ openFromY}.</li>
+ * </ul>
+ *
+ * <p>In {@link GotTerrainMode#NOISE_3D} density is not monotonic in Y, so the
+ * winners are still cached but the water check evaluates the density per call
+ * ({@link #isExact()} is {@code false}).
+ *
+ * <h2>Tie-breaking</h2>
+ * <p>Weights are accumulated in a four-slot primitive accumulator.  Equal
+ * weights resolve to the lower palette index, matching the previous
+ * {@code HashMap<Integer, Float>} iteration order.
+ *
+ * <h2>Concurrency</h2>
+ * <p>Entries are immutable and held in a bounded, concurrent LRU keyed by
+ * {@link ChunkPos#toLong}, alongside {@link GotBlendField} in the owning
+ * {@link GotTerrainContext}.  Each entry records the biomemap it was built
+ * from and the noise seed it was built with; an entry from an older map
+ * version, or one queried before the generator derived the world's noise
+ * seed, is rebuilt on lookup ({@link GotTerrainContext#quarts}).
+ */
+public final class GotBiomeQuarts {
+
+    /** Quart columns per chunk axis. */
+    private static final int QUARTS = 4;
+
+    /** Same footprint policy as {@link GotBlendField}; an entry is ≈ 100 bytes. */
+    static final int CACHE_SIZE = 4096;
+
+    // ── Fields ────────────────────────────────────────────────────────────
+
+    private final int              originX;
+    private final int              originZ;
+    private final BiomemapSnapshot map;
+    private final int              noiseSeed;
+    private final GotTerrainMode   mode;
+    private final byte[]           land      = new byte[QUARTS * QUARTS];
+    private final byte[]           water     = new byte[QUARTS * QUARTS];
+    private final int[]            openFromY = new int[QUARTS * QUARTS];
+
+    GotBiomeQuarts(GotTerrainContext context, int chunkX, int chunkZ) {
+        this.originX   = chunkX << 4;
+        this.originZ   = chunkZ << 4;
+        this.noiseSeed = context.noiseSeed();
+        this.mode      = context.mode();
+
+        // The field and every pixel read below come from the same snapshot.
+        GotBlendField   field   = context.blendField(chunkX, chunkZ);
+        this.map = field.map();
+        GotBiomePalette palette = map.palette();
+        int     width  = map.width();
+        int     height = map.height();
+        int     scale  = map.scale();
+        int[]   idx = new int[4];
+        float[] w   = new float[4];
+
+        for (int qx = 0; qx < QUARTS; qx++) {
+            for (int qz = 0; qz < QUARTS; qz++) {
+                int wx = originX + (qx << 2);
+                int wz = originZ + (qz << 2);
+
+                float cx = field.warpedX(wx, wz) / (float) scale + width  * 0.5f;
+                float cz = field.warpedZ(wx, wz) / (float) scale + height * 0.5f;
+                int   px0 = (int) Math.floor(cx);
+                int   pz0 = (int) Math.floor(cz);
+
+                // Same double-smoothstep sharpening as the terrain blend.
+                float tx = GotChunkGenerator.sharpenBlend(cx - px0);
+                float tz = GotChunkGenerator.sharpenBlend(cz - pz0);
+
+                int n = 0;
+                n = accumulate(idx, w, n, map.paletteIndex(px0,     pz0),     (1f - tx) * (1f - tz));
+                n = accumulate(idx, w, n, map.paletteIndex(px0 + 1, pz0),     tx        * (1f - tz));
+                n = accumulate(idx, w, n, map.paletteIndex(px0,     pz0 + 1), (1f - tx) * tz);
+                n = accumulate(idx, w, n, map.paletteIndex(px0 + 1, pz0 + 1), tx        * tz);
+
+                int any = best(idx, w, n, palette, true,  true);
+                int dry = best(idx, w, n, palette, true,  false);
+                int wet = best(idx, w, n, palette, false, true);
+
+                int q = qx * QUARTS + qz;
+                land[q]  = (byte) (dry >= 0 ? dry : any);
+                water[q] = (byte) (wet >= 0 ? wet : any);
+                openFromY[q] = mode == GotTerrainMode.HEIGHTFIELD
+                        ? GotChunkGenerator.openFromY(wx, wz, field.depth(wx, wz), field.scale(wx, wz), noiseSeed)
+                        : Integer.MIN_VALUE;
+            }
+        }
+    }
+
+    // ── Accessors ─────────────────────────────────────────────────────────
+    //
+    // Quart coordinates are absolute (world block >> 2) and must lie within
+    // this entry's chunk.
+
+    /** The biomemap the palette indices below refer to. */
+    public BiomemapSnapshot map() { return map; }
+
+    /** The noise seed {@link #isOpen} was resolved with. */
+    int noiseSeed() { return noiseSeed; }
+
+    /** {@code true} when {@link #isOpen} is a pure integer compare (heightfield mode). */
+    public boolean isExact() { return mode == GotTerrainMode.HEIGHTFIELD; }
+
+    public int landIndex (int quartX, int quartZ) { return land [index(quartX, quartZ)] & 0xFF; }
+    public int waterIndex(int quartX, int quartZ) { return water[index(quartX, quartZ)] & 0xFF; }
+
+    /**
+     * Heightfield mode only: {@code true} when block {@code worldY} of the
+     * quart column is open (density ≤ 0), identical to
+     * {@code evalDensity(...) <= 0}.
+     */
+    public boolean isOpen(int quartX, int quartZ, int worldY) {
+        return worldY >= openFromY[index(quartX, quartZ)];
+    }
+
+    private int index(int quartX, int quartZ) {
+        return (quartX - (originX >> 2)) * QUARTS + (quartZ - (originZ >> 2));
+    }
+
+    // ── Accumulator ───────────────────────────────────────────────────────
+
+    /** Adds {@code weight} to {@code index}'s slot, opening a new slot if needed. */
+    private static int accumulate(int[] idx, float[] w, int n, int index, float weight) {
+        if (weight <= 0f) return n;
+        for (int i = 0; i < n; i++) {
+            if (idx[i] == index) { w[i] += weight; return n; }
+        }
+        idx[n] = index;
+        w[n]   = weight;
+        return n + 1;
+    }
+
+    /** Highest-weight slot among the allowed kinds, lower index on ties; −1 if none. */
+    private static int best(int[] idx, float[] w, int n, GotBiomePalette palette,
+                            boolean allowLand, boolean allowWater) {
+        int   bestIndex  = -1;
+        float bestWeight = -1f;
+        for (int i = 0; i < n; i++) {
+            boolean wet = palette.isWater(idx[i]);
+            if (wet ? !allowWater : !allowLand) continue;
+            if (w[i] > bestWeight || (w[i] == bestWeight && idx[i] < bestIndex)) {
+                bestWeight = w[i];
+                bestIndex  = idx[i];
+            }
+        }
+        return bestIndex;
+    }
+}
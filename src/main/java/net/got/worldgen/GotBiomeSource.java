@@ -1,18 +1,27 @@
 package net.got.worldgen;
 
+import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
 import net.minecraft.core.Holder;
 import net.minecraft.core.HolderSet;
+import net.minecraft.core.QuartPos;
 import net.minecraft.core.RegistryCodecs;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.Mth;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.LevelReader;
 import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.biome.BiomeSource;
 import net.minecraft.world.level.biome.Climate;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -36,7 +45,7 @@ import java.util.stream.Stream;
  *
  * <p>To eliminate this mismatch, {@link #getNoiseBiome} evaluates the exact
  * terrain density at every noise cell that is at or below sea level (using
- * {@link GotChunkGenerator#evalDensity} with the shared {@link GotChunkGenerator#sharedNoiseSeed}).
+ * {@link GotTerrainContext#evalDensity} with the generator's own noise seed).
  * If the density is ≤ 0 (open, filled with water by the generator) the method
  * returns the <em>water</em> biome carrying the highest pixel weight — making
  * biome assignment block-for-block identical to the carved terrain for rivers,
@@ -49,38 +58,24 @@ import java.util.stream.Stream;
  *       {@link GotChunkGenerator#bilinearBlend}.</li>
  *   <li>For the four surrounding pixels compute the same bilinear weights
  *       {@code (1-tx)(1-tz)}, {@code tx(1-tz)}, etc.</li>
- *   <li>Accumulate each weight into a per-{@link ResourceLocation} total.</li>
+ *   <li>Accumulate each weight into a per-palette-index total; the palette
+ *       index of a pixel is a single array load ({@link BiomemapSnapshot#paletteIndex}).</li>
  *   <li>If the cell is open water (Y-sync check passes), return the highest-weight
  *       water biome; otherwise return the highest-weight biome overall.</li>
  * </ol>
+ *
+ * <p>Steps 1–4 and the column's water line are computed once per chunk and
+ * cached by {@link GotBiomeQuarts}; a query is then two array loads and, in
+ * heightfield mode, one integer compare.  Nothing is allocated per call.
+ *
+ * <h2>Biome search</h2>
+ * <p>{@link #findClosestBiome3d} and {@link #findBiomeHorizontal} keep
+ * vanilla's sample order and results but consult a {@link GotBiomeIndex} of
+ * the map first, so a {@code /locate biome} across the known world evaluates
+ * only the columns near a pixel of the wanted biome.
  */
 public final class GotBiomeSource extends BiomeSource {
 
-    // ── Colour → registry path palette ───────────────────────────────────
-
-    private static final Map<Integer, ResourceLocation> PALETTE;
-
-    static {
-        Map<Integer, ResourceLocation> m = new LinkedHashMap<>();
-        m.put(0x949038, rl("north"));
-        m.put(0xADA942, rl("barrowlands"));
-        m.put(0x92B0AC, rl("stony_shore"));
-        m.put(0x808F81, rl("north_hills"));
-        m.put(0x2F4A33, rl("neck"));
-        m.put(0x02450D, rl("ironwood"));
-        m.put(0x047D17, rl("wolfswood"));
-        m.put(0x537053, rl("haunted_forest"));
-        m.put(0x00229D, rl("ocean"));
-        m.put(0x110751, rl("deep_ocean"));
-        m.put(0x2D6796, rl("river"));
-        m.put(0x35A180, rl("neck_river"));
-        m.put(0x4B91E6, rl("frozen_river"));
-        m.put(0xBBCCCD, rl("frostfangs"));
-        m.put(0xFFFFFF, rl("always_winter"));
-        m.put(0xA5B7B9, rl("north_mountains"));
-        PALETTE = Collections.unmodifiableMap(m);
-    }
-
     private static ResourceLocation rl(String path) {
         return ResourceLocation.fromNamespaceAndPath("got", path);
     }
@@ -103,6 +98,25 @@ public final class GotBiomeSource extends BiomeSource {
     private final Map<ResourceLocation, Holder<Biome>> locationToHolder;
     private final Holder<Biome> fallback;
 
+    /**
+     * Palette index → biome holder, rebuilt whenever {@link BiomemapLoader}
+     * publishes a new snapshot version.  Indices whose biome is not in
+     * {@link #biomes} resolve to {@link #fallback}.
+     */
+    private volatile HolderTable holderTable;
+
+    private record HolderTable(int mapVersion, Holder<Biome>[] holders) {}
+
+    /** Spatial index of the current map for the biome searches; rebuilt per map version. */
+    private volatile GotBiomeIndex biomeIndex;
+
+    /**
+     * The terrain state of the generator this source belongs to; set by
+     * {@link GotChunkGenerator}'s constructor.  Until then every query
+     * returns {@link #fallback}.
+     */
+    private volatile GotTerrainContext context;
+
     public GotBiomeSource(List<Holder<Biome>> biomes) {
         this.biomes = List.copyOf(biomes);
         this.locationToHolder = new HashMap<>(biomes.size() * 2);
@@ -115,6 +129,11 @@ public final class GotBiomeSource extends BiomeSource {
         this.fallback = Objects.requireNonNull(fb, "GotBiomeSource: biome list is empty!");
     }
 
+    /** Ties this source to its generator's map, noise seed and caches. */
+    void bind(GotTerrainContext context) {
+        this.context = context;
+    }
+
     // ── BiomeSource overrides ─────────────────────────────────────────────
 
     @Override
@@ -143,165 +162,172 @@ public final class GotBiomeSource extends BiomeSource {
      *
      * <p>To fix this, for every noise cell whose bottom edge ({@code worldY})
      * is at or below {@link GotChunkGenerator#SEA_LEVEL} this method evaluates
-     * the terrain density at that point using {@link GotChunkGenerator#evalDensity}
+     * the terrain density at that point using {@link GotTerrainContext#evalDensity}
      * — the exact same formula the chunk generator uses.  If the density is
      * ≤ 0 (open, filled with water by the generator) the method returns the
      * <em>water</em> biome with the highest accumulated pixel weight instead of
      * the overall dominant biome, making the biome assignment block-for-block
-     * identical to the carved terrain.
+     * identical to the carved terrain.  In heightfield mode the density test
+     * is the cached {@code worldY >= openFromY} compare, which is exact.
      */
     @Override
     public @NotNull Holder<Biome> getNoiseBiome(int x, int y, int z,
                                                 Climate.@NotNull Sampler sampler) {
-        int worldX = x << 2;
-        int worldY = y << 2;
-        int worldZ = z << 2;
-
-        if (!BiomemapLoader.isLoaded()) return fallback;
+        GotTerrainContext ctx = context;
+        if (ctx == null || !ctx.map().isLoaded()) return fallback;
 
-        // Apply the same domain warp as GotChunkGenerator.bilinearBlend so that
-        // biome boundaries follow the same organic curves as the terrain shape.
-        float[] warped = GotChunkGenerator.warpCoordinates(worldX, worldZ);
-        float cx = warped[0] / (float) BiomemapLoader.MAP_SCALE + BiomemapLoader.getWidth()  * 0.5f;
-        float cz = warped[1] / (float) BiomemapLoader.MAP_SCALE + BiomemapLoader.getHeight() * 0.5f;
-
-        int   px0 = (int) Math.floor(cx);
-        int   pz0 = (int) Math.floor(cz);
-
-        // ↓ Apply the same double-smoothstep sharpening as GotChunkGenerator
-        //   so biome weights transition in the same narrow band as the terrain.
-        float tx  = GotChunkGenerator.sharpenBlend(cx - px0);
-        float tz  = GotChunkGenerator.sharpenBlend(cz - pz0);
-
-        float w00 = (1f - tx) * (1f - tz);
-        float w10 = tx        * (1f - tz);
-        float w01 = (1f - tx) * tz;
-        float w11 = tx        * tz;
-
-        Map<ResourceLocation, Float> weights = new HashMap<>(8);
-        addPixelWeight(weights, px0,     pz0,     w00);
-        addPixelWeight(weights, px0 + 1, pz0,     w10);
-        addPixelWeight(weights, px0,     pz0 + 1, w01);
-        addPixelWeight(weights, px0 + 1, pz0 + 1, w11);
+        // The XZ winners and the column's water line are resolved once per
+        // chunk by GotBiomeQuarts; only the Y decision is made here.  The
+        // holder table must match the snapshot the entry's indices came from.
+        GotBiomeQuarts  quarts  = ctx.quarts(x, z);
+        Holder<Biome>[] holders = holdersFor(quarts.map());
 
         // ── Y-aware water biome sync ──────────────────────────────────────
-        // Track whether this 4-block noise cell is genuinely open water.
-        // Used below to decide whether water biomes are eligible candidates.
-        boolean cellIsOpenWater = false;
-
-        if (worldY <= GotChunkGenerator.SEA_LEVEL) {
-            float[] bp      = GotChunkGenerator.bilinearBlend(worldX, worldZ);
-            float   density = GotChunkGenerator.evalDensity(worldX, worldY, worldZ, bp[0], bp[1]);
-
-            if (density <= 0f) {
-                cellIsOpenWater = true;
-
-                // Return the water biome carrying the largest pixel weight.
-                ResourceLocation bestWater = null;
-                float            bestW     = -1f;
-                for (Map.Entry<ResourceLocation, Float> e : weights.entrySet()) {
-                    if (isWaterBiome(e.getKey()) && e.getValue() > bestW) {
-                        bestW     = e.getValue();
-                        bestWater = e.getKey();
-                    }
-                }
-                if (bestWater != null) {
-                    Holder<Biome> wh = locationToHolder.get(bestWater);
-                    if (wh != null) return wh;
-                }
-                // Fell through: density <= 0 (open water) but no water pixel
-                // contributes weight here.  We keep cellIsOpenWater = true so
-                // the dominant-weight pass below can still pick a water biome
-                // if one happens to be in the weight map via another path.
-            }
+        // Water biomes are only eligible when this 4-block noise cell is
+        // genuinely open water; otherwise a river pixel nearest to a bank
+        // column could hand a river biome to solid ground.
+        int worldY = y << 2;
+        if (worldY <= GotChunkGenerator.SEA_LEVEL && isOpenWater(ctx, quarts, x, worldY, z)) {
+            return holders[quarts.waterIndex(x, z)];
         }
+        return holders[quarts.landIndex(x, z)];
+    }
+
+    // ── Biome search ──────────────────────────────────────────────────────
+    //
+    // Vanilla's searches (/locate biome, stronghold rings, spawn-biome checks)
+    // call getNoiseBiome at every sample point of a huge area.  These
+    // overrides walk the same points in the same order but first ask the
+    // GotBiomeIndex whether the point can possibly match, so only the few
+    // columns near a wanted pixel pay for the exact lookup.  Results, and the
+    // RandomSource draws of the non-closest horizontal search, are identical.
 
-        // ── Dominant-weight biome selection ───────────────────────────────
-        // FIX: Water biomes (river, ocean, deep_ocean) are only eligible when
-        // the cell is confirmed open water.  Without this guard, a river pixel
-        // that is the nearest neighbour to a land column could win the weight
-        // comparison and assign a river biome to solid ground — causing wrong
-        // foliage colours and spawn behaviour along riverbanks.
-        ResourceLocation bestLoc    = null;
-        float            bestWeight = -1f;
-        for (Map.Entry<ResourceLocation, Float> e : weights.entrySet()) {
-            // Skip water biomes for solid/above-sea-level cells.
-            if (!cellIsOpenWater && isWaterBiome(e.getKey())) continue;
-            if (e.getValue() > bestWeight) {
-                bestWeight = e.getValue();
-                bestLoc    = e.getKey();
+    @Override
+    public @Nullable Pair<BlockPos, Holder<Biome>> findClosestBiome3d(BlockPos pos, int radius,
+                                                                       int horizontalStep, int verticalStep,
+                                                                       @NotNull Predicate<Holder<Biome>> biomePredicate,
+                                                                       Climate.@NotNull Sampler sampler,
+                                                                       @NotNull LevelReader level) {
+        GotTerrainContext ctx = context;
+        if (ctx == null || !ctx.map().isLoaded()) {
+            return super.findClosestBiome3d(pos, radius, horizontalStep, verticalStep, biomePredicate, sampler, level);
+        }
+        Set<Holder<Biome>> wanted = possibleBiomes().stream().filter(biomePredicate)
+                .collect(Collectors.toUnmodifiableSet());
+        if (wanted.isEmpty()) return null;
+
+        int steps  = Math.floorDiv(radius, horizontalStep);
+        int extent = steps * horizontalStep;
+        GotBiomeIndex.Candidates candidates = candidates(ctx, wanted::contains);
+        if (!candidates.mayContain(pos.getX() - extent, pos.getZ() - extent,
+                                   pos.getX() + extent, pos.getZ() + extent)) return null;
+
+        int[] ys = Mth.outFromOrigin(pos.getY(), level.getMinY() + 1, level.getMaxY() + 1, verticalStep).toArray();
+        for (BlockPos.MutableBlockPos offset : BlockPos.spiralAround(BlockPos.ZERO, steps, Direction.EAST, Direction.SOUTH)) {
+            int x  = pos.getX() + offset.getX() * horizontalStep;
+            int z  = pos.getZ() + offset.getZ() * horizontalStep;
+            int qx = QuartPos.fromBlock(x);
+            int qz = QuartPos.fromBlock(z);
+            if (!candidates.mayContain(QuartPos.toBlock(qx), QuartPos.toBlock(qz))) continue;
+            for (int y : ys) {
+                Holder<Biome> holder = getNoiseBiome(qx, QuartPos.fromBlock(y), qz, sampler);
+                if (wanted.contains(holder)) return Pair.of(new BlockPos(x, y, z), holder);
             }
         }
+        return null;
+    }
 
-        // If every candidate was a water biome (edge case: cell is above sea
-        // level but all four surrounding pixels are ocean), fall back to the
-        // nearest overall winner including water biomes.
-        if (bestLoc == null) {
-            for (Map.Entry<ResourceLocation, Float> e : weights.entrySet()) {
-                if (e.getValue() > bestWeight) {
-                    bestWeight = e.getValue();
-                    bestLoc    = e.getKey();
+    @Override
+    public @Nullable Pair<BlockPos, Holder<Biome>> findBiomeHorizontal(int x, int y, int z, int radius, int increment,
+                                                                        @NotNull Predicate<Holder<Biome>> biomePredicate,
+                                                                        @NotNull RandomSource random, boolean findClosest,
+                                                                        Climate.@NotNull Sampler sampler) {
+        GotTerrainContext ctx = context;
+        if (ctx == null || !ctx.map().isLoaded()) {
+            return super.findBiomeHorizontal(x, y, z, radius, increment, biomePredicate, random, findClosest, sampler);
+        }
+        int qx0 = QuartPos.fromBlock(x);
+        int qz0 = QuartPos.fromBlock(z);
+        int qr  = QuartPos.fromBlock(radius);
+        int qy  = QuartPos.fromBlock(y);
+
+        GotBiomeIndex.Candidates candidates = candidates(ctx, biomePredicate);
+        if (!candidates.mayContain(QuartPos.toBlock(qx0 - qr), QuartPos.toBlock(qz0 - qr),
+                                   QuartPos.toBlock(qx0 + qr), QuartPos.toBlock(qz0 + qr))) return null;
+
+        Pair<BlockPos, Holder<Biome>> found = null;
+        int matches = 0;
+        for (int r = findClosest ? 0 : qr; r <= qr; r += increment) {
+            for (int dz = -r; dz <= r; dz += increment) {
+                int     qz    = qz0 + dz;
+                boolean edgeZ = Math.abs(dz) == r;
+                if (!candidates.mayContain(QuartPos.toBlock(qx0 - r), QuartPos.toBlock(qz),
+                                           QuartPos.toBlock(qx0 + r), QuartPos.toBlock(qz))) continue;
+                for (int dx = -r; dx <= r; dx += increment) {
+                    if (findClosest && !edgeZ && Math.abs(dx) != r) continue;
+                    int qx = qx0 + dx;
+                    if (!candidates.mayContain(QuartPos.toBlock(qx), QuartPos.toBlock(qz))) continue;
+
+                    Holder<Biome> holder = getNoiseBiome(qx, qy, qz, sampler);
+                    if (!biomePredicate.test(holder)) continue;
+                    if (found == null || random.nextInt(matches + 1) == 0) {
+                        BlockPos at = new BlockPos(QuartPos.toBlock(qx), y, QuartPos.toBlock(qz));
+                        if (findClosest) return Pair.of(at, holder);
+                        found = Pair.of(at, holder);
+                    }
+                    matches++;
                 }
             }
         }
+        return found;
+    }
 
-        if (bestLoc == null) return fallback;
-        Holder<Biome> h = locationToHolder.get(bestLoc);
-        return h != null ? h : fallback;
+    /** The index cells that may yield a biome accepted by {@code predicate}. */
+    private GotBiomeIndex.Candidates candidates(GotTerrainContext ctx, Predicate<Holder<Biome>> predicate) {
+        BiomemapSnapshot map   = ctx.map();
+        GotBiomeIndex    index = biomeIndex;
+        if (index == null || index.map().version() != map.version()) {
+            index = new GotBiomeIndex(map);
+            biomeIndex = index;
+        }
+        Holder<Biome>[] holders = holdersFor(index.map());
+        boolean[]       wanted  = new boolean[holders.length];
+        for (int i = 0; i < holders.length; i++) wanted[i] = predicate.test(holders[i]);
+        int reach = (int) Math.ceil(GotChunkGenerator.WARP_REACH + ctx.lattice().errorBound());
+        return index.candidates(wanted, reach);
     }
 
     // ── Helpers ───────────────────────────────────────────────────────────
 
     /**
-     * Looks up the pixel colour at {@code (px, pz)}, resolves it to a
-     * {@link ResourceLocation} via nearest-palette-distance, and adds
-     * {@code weight} to that location's running total in {@code acc}.
+     * {@code true} if the terrain density at the cell's bottom corner is ≤ 0.
+     * A single integer compare in heightfield mode; the exact density in 3D mode.
      */
-    private static void addPixelWeight(Map<ResourceLocation, Float> acc,
-                                       int px, int pz, float weight) {
-        if (weight <= 0f) return;
-        int color = BiomemapLoader.getRawPixel(px, pz);
-        ResourceLocation loc = closestPaletteMatch(color);
-        if (loc != null) acc.merge(loc, weight, Float::sum);
-    }
+    private static boolean isOpenWater(GotTerrainContext ctx, GotBiomeQuarts quarts, int x, int worldY, int z) {
+        if (quarts.isExact()) return quarts.isOpen(x, z, worldY);
 
-    /**
-     * Returns the palette {@link ResourceLocation} whose RGB is nearest (by
-     * squared Euclidean distance in RGB space) to the given 24-bit colour.
-     * Handles minor PNG compression artefacts at pixel boundaries.
-     */
-    private static ResourceLocation closestPaletteMatch(int color) {
-        ResourceLocation exact = PALETTE.get(color);
-        if (exact != null) return exact;
-
-        int r = (color >> 16) & 0xFF;
-        int g = (color >>  8) & 0xFF;
-        int b =  color        & 0xFF;
-
-        int              bestDist = Integer.MAX_VALUE;
-        ResourceLocation bestLoc  = null;
-
-        for (Map.Entry<Integer, ResourceLocation> entry : PALETTE.entrySet()) {
-            int c  = entry.getKey();
-            int dr = ((c >> 16) & 0xFF) - r;
-            int dg = ((c >>  8) & 0xFF) - g;
-            int db = ( c        & 0xFF) - b;
-            int d  = dr * dr + dg * dg + db * db;
-            if (d < bestDist) { bestDist = d; bestLoc = entry.getValue(); }
-        }
-
-        return bestLoc;
+        int worldX = x << 2;
+        int worldZ = z << 2;
+        GotBlendField field = ctx.blendFieldAt(worldX, worldZ);
+        return ctx.evalDensity(worldX, worldY, worldZ,
+                field.depth(worldX, worldZ), field.scale(worldX, worldZ)) <= 0f;
     }
 
     /**
-     * Returns {@code true} if the biome identified by {@code loc} is a water
-     * biome (river, ocean, deep ocean, etc.) as declared in
-     * {@link GotBiomeDensityParams}.  Used by the Y-aware water-sync logic to
-     * prefer the correct water biome over a dominant land biome when a noise
-     * cell is open water in the generated terrain.
+     * Returns the palette-index → holder table for {@code map}'s palette,
+     * building it on first use after each biomemap (re)load.
      */
-    private static boolean isWaterBiome(ResourceLocation loc) {
-        GotBiomeDensityParams.Params p = GotBiomeDensityParams.forName(loc.getPath());
-        return p != null && p.isWater;
+    @SuppressWarnings("unchecked")
+    private Holder<Biome>[] holdersFor(BiomemapSnapshot map) {
+        HolderTable table = holderTable;
+        if (table != null && table.mapVersion() == map.version()) return table.holders();
+
+        GotBiomePalette palette = map.palette();
+        Holder<Biome>[] holders = (Holder<Biome>[]) new Holder[palette.size()];
+        for (int i = 0; i < holders.length; i++) {
+            holders[i] = locationToHolder.getOrDefault(palette.biome(i), fallback);
+        }
+        holderTable = new HolderTable(map.version(), holders);
+        return holders;
     }
-}
\ No newline at end of file
+}
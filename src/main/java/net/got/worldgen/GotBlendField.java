@@ -0,0 +1,112 @@
+package net.got.worldgen;
+
+import net.minecraft.world.level.ChunkPos;
+
+/**
+ * Per-chunk cache of the biomemap blend — the warped coordinates and the
+ * blended {@code depth} / {@code scale} of every column in a chunk plus a
+ * {@value #MARGIN}-block margin on each side.
+ *
+ * <h2>Why</h2>
+ * <p>{@link GotChunkGenerator#bilinearBlend} costs a warp lookup and four
+ * palette lookups.  Without a cache the same column is re-blended by
+ * {@code fillFromNoise} (cell corners), {@code applyCoastalMud} (the column
+ * itself plus up to 16 shore neighbours), {@code getBaseHeight},
+ * {@code getBaseColumn}, the F3 debug line and — once per noise cell — by
+ * {@link GotBiomeSource#getNoiseBiome}.  A field is built once per chunk and
+ * every one of those call sites reads from it.
+ *
+ * <h2>Layout</h2>
+ * <p>A single primitive {@code float[]} of {@value #SIZE} × {@value #SIZE}
+ * columns, four floats per column ({@code warpedX, warpedZ, depth, scale}),
+ * row-major in X.  Grid cell {@code (0, 0)} is world column
+ * {@code (chunkMinX − MARGIN, chunkMinZ − MARGIN)}.  The margin covers the
+ * far cell corners at {@code +16} and the 8-block shore scan of the mud pass,
+ * so a chunk never has to consult a neighbouring field.
+ *
+ * <h2>Concurrency</h2>
+ * <p>Fields are immutable once built and held in a bounded, concurrent LRU
+ * keyed by {@link ChunkPos#toLong}, one per {@link GotTerrainContext} (see
+ * {@link GotTerrainContext#blendField}).  Concurrent requests for the same
+ * chunk block on a single build rather than racing to compute it twice.
+ * Each field keeps the {@link BiomemapSnapshot} it was blended from; a
+ * lookup that finds a field from an older snapshot version rebuilds it, so a
+ * {@code /reload} needs no lock and no coordinated flush.
+ */
+public final class GotBlendField {
+
+    /** Extra columns stored on every side of the 16 × 16 chunk. */
+    public static final int MARGIN = 8;
+
+    /** Grid edge length in columns. */
+    public static final int SIZE = 16 + MARGIN * 2;
+
+    private static final int STRIDE = 4;
+    private static final int WARP_X = 0;
+    private static final int WARP_Z = 1;
+    private static final int DEPTH  = 2;
+    private static final int SCALE  = 3;
+
+    /**
+     * Chunk fields kept alive per context.  Worldgen works on a moving front a
+     * few dozen chunks wide per worker thread; 4096 × 16 KiB ≈ 64 MiB worst case.
+     */
+    static final int CACHE_SIZE = 4096;
+
+    // ── Fields ────────────────────────────────────────────────────────────
+
+    private final int              originX;
+    private final int              originZ;
+    private final BiomemapSnapshot map;
+    private final float[]          data;
+
+    GotBlendField(GotTerrainContext context, int chunkX, int chunkZ) {
+        this.originX = (chunkX << 4) - MARGIN;
+        this.originZ = (chunkZ << 4) - MARGIN;
+        this.map     = context.map();
+        this.data    = new float[SIZE * SIZE * STRIDE];
+
+        // Both warp planes are interpolated from the cached warp lattice.
+        float[] warpX = new float[SIZE * SIZE];
+        float[] warpZ = new float[SIZE * SIZE];
+        context.lattice().fill(originX, originZ, SIZE, warpX, warpZ);
+
+        float[] blend = new float[2];
+        for (int gx = 0; gx < SIZE; gx++) {
+            for (int gz = 0; gz < SIZE; gz++) {
+                float ux = warpX[gz * SIZE + gx];
+                float uz = warpZ[gz * SIZE + gx];
+                GotChunkGenerator.blendWarped(map, ux, uz, blend);
+
+                int i = (gx * SIZE + gz) * STRIDE;
+                data[i + WARP_X] = ux;
+                data[i + WARP_Z] = uz;
+                data[i + DEPTH]  = blend[0];
+                data[i + SCALE]  = blend[1];
+            }
+        }
+    }
+
+    // ── Accessors ─────────────────────────────────────────────────────────
+    //
+    // All accessors take WORLD coordinates.  The column must lie within the
+    // chunk this field was built for, extended by MARGIN on every side.
+
+    /** The biomemap this field was blended from. */
+    public BiomemapSnapshot map() { return map; }
+
+    public boolean contains(int wx, int wz) {
+        int gx = wx - originX;
+        int gz = wz - originZ;
+        return gx >= 0 && gz >= 0 && gx < SIZE && gz < SIZE;
+    }
+
+    public float warpedX(int wx, int wz) { return data[index(wx, wz) + WARP_X]; }
+    public float warpedZ(int wx, int wz) { return data[index(wx, wz) + WARP_Z]; }
+    public float depth  (int wx, int wz) { return data[index(wx, wz) + DEPTH];  }
+    public float scale  (int wx, int wz) { return data[index(wx, wz) + SCALE];  }
+
+    private int index(int wx, int wz) {
+        return ((wx - originX) * SIZE + (wz - originZ)) * STRIDE;
+    }
+}
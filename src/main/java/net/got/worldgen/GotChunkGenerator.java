@@ -1,11 +1,15 @@
 package net.got.worldgen;
 
+import com.google.common.base.Suppliers;
+import com.mojang.serialization.DataResult;
 import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.core.Holder;
 import net.minecraft.server.level.WorldGenRegion;
+import net.minecraft.Util;
 import net.minecraft.util.Mth;
 import net.minecraft.util.RandomSource;
 import net.minecraft.world.level.*;
@@ -13,16 +17,22 @@ import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.biome.BiomeManager;
 import net.minecraft.world.level.biome.BiomeSource;
 import net.got.init.GotModBlocks;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.ChunkGenerator;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.levelgen.*;
 import net.minecraft.world.level.levelgen.blending.Blender;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Chunk generator for the GoT mod — cell-based 3D density field with Perlin noise.
@@ -53,14 +63,38 @@ import java.util.concurrent.CompletableFuture;
  *
  * <h3>Step 4 — Block assignment</h3>
  * <ul>
- *   <li>{@code density > 0} → STONE</li>
+ *   <li>{@code density > 0} → STONE (deepslate below Y 8, see {@link GotSurfaceBuilder#rock})</li>
  *   <li>{@code density ≤ 0 && y ≤ SEA_LEVEL} → default fluid</li>
  *   <li>otherwise → AIR</li>
  * </ul>
  *
+ * <h3>Step 5 — Surface</h3>
+ * <p>{@link GotSurfaceBuilder} replaces the top of every column from a
+ * per-biome table using the heights recorded in step 4, and the coastal mud
+ * pass follows.  Neither builds a vanilla {@code NoiseChunk}.
+ *
+ * <h2>Terrain modes</h2>
+ * <p>The {@code "terrain_mode"} codec field selects a {@link GotTerrainMode}.
+ * In the default {@code heightfield} mode steps 2–4 collapse to one surface
+ * height per column (see {@code fillHeightfield}); {@code noise_3d} runs the
+ * full cell lattice above with Y-varying noise for overhangs.
+ *
+ * <p>{@code "warp_spacing"} (default 16) is the node spacing of the cached
+ * {@link GotWarpLattice} the domain warp is interpolated from; {@code 0}
+ * evaluates the exact warp per column.
+ *
+ * <h2>Per-dimension state</h2>
+ * <p>{@code "biomemap"} (default {@code got:biomemap}) names the map painted
+ * into this dimension — {@code <ns>:worldgen/map/<path>.png} — and
+ * {@code "noise_seed"} fixes the terrain noise seed instead of deriving it
+ * from the world seed.  Both, together with the terrain mode, the warp
+ * lattice and every per-chunk cache, live in this generator's
+ * {@link GotTerrainContext}, so several GoT dimensions generate side by side
+ * without sharing or overwriting each other's state.
+ *
  * <h2>Noise architecture</h2>
- * <p>Three-octave fBm via {@link GotPerlinNoise#fbm}.  The Y coordinate is
- * fixed at 0 inside the noise call so the field is purely horizontal.
+ * <p>Three-octave fBm via {@link GotPerlinNoise#fbm}.  In heightfield mode the
+ * Y coordinate is fixed at 0 inside the noise call so the field is purely horizontal.
  * Because noise is constant along the Y axis for any (X, Z) column the
  * density function is strictly monotonically decreasing with altitude —
  * guaranteeing solid, overhang-free terrain with no floating islands.
@@ -94,8 +128,8 @@ public final class GotChunkGenerator extends ChunkGenerator {
     //              terrain features, reducing cell count in the most expensive
     //              axis without losing significant detail.
 
-    private static final int CELL_H = 4;   // horizontal cell size in blocks
-    private static final int CELL_V = 8;   // vertical   cell size in blocks
+    static final int CELL_H = 4;   // horizontal cell size in blocks
+    static final int CELL_V = 8;   // vertical   cell size in blocks
 
     // ── Perlin noise frequencies ──────────────────────────────────────────
     //
@@ -115,9 +149,10 @@ public final class GotChunkGenerator extends ChunkGenerator {
 
     private static final float FREQ_H = 1f / 256f;  // horizontal base frequency
 
-    // Base seed constant — XOR'd with the world seed at runtime so every
-    // world/save produces different terrain within the same biome layout.
-    private static final int SEED_TERRAIN = 0x3F9A1B;
+    // FREQ_V is used only in GotTerrainMode.NOISE_3D, where datapacks opt in
+    // to Y-varying noise (and therefore overhangs).  Half the horizontal
+    // frequency keeps vertical features taller than they are wide.
+    private static final float FREQ_V = 1f / 128f;  // vertical base frequency (3D mode)
 
     // ── Codec ─────────────────────────────────────────────────────────────
 
@@ -132,74 +167,273 @@ public final class GotChunkGenerator extends ChunkGenerator {
                             .forGetter(g -> g.spawnPixelX),
                     com.mojang.serialization.Codec.INT
                             .optionalFieldOf("spawn_pixel_z", -1)
-                            .forGetter(g -> g.spawnPixelZ)
+                            .forGetter(g -> g.spawnPixelZ),
+                    GotTerrainMode.CODEC
+                            .optionalFieldOf("terrain_mode", GotTerrainMode.HEIGHTFIELD)
+                            .forGetter(g -> g.terrainMode),
+                    com.mojang.serialization.Codec.INT
+                            .validate(s -> GotWarpLattice.isValidSpacing(s)
+                                    ? DataResult.success(s)
+                                    : DataResult.error(() -> "warp_spacing must be 0 or a power of two up to "
+                                            + GotWarpLattice.MAX_SPACING + ", got " + s))
+                            .optionalFieldOf("warp_spacing", GotWarpLattice.DEFAULT_SPACING)
+                            .forGetter(g -> g.warpSpacing),
+                    ResourceLocation.CODEC
+                            .optionalFieldOf("biomemap", BiomemapLoader.DEFAULT_MAP)
+                            .forGetter(g -> g.context.mapId()),
+                    com.mojang.serialization.Codec.LONG
+                            .optionalFieldOf("noise_seed")
+                            .forGetter(g -> g.context.configuredNoiseSeed())
             ).apply(i, GotChunkGenerator::new));
 
     // ── Fields ────────────────────────────────────────────────────────────
 
     private final Holder<NoiseGeneratorSettings> settings;
     private final NoiseBasedChunkGenerator vanilla;
+    /** Whether any biome this generator can place has carvers; resolved once biomes are bound. */
+    private final Supplier<Boolean> hasCarvers = Suppliers.memoize(() ->
+            getBiomeSource().possibleBiomes().stream()
+                    .anyMatch(b -> b.value().getGenerationSettings().getCarvers().iterator().hasNext()));
     private final int spawnPixelX;
     private final int spawnPixelZ;
+    private final GotTerrainMode terrainMode;
+    private final int warpSpacing;
 
-    /** Mixed into the noise seed so every world seed produces different terrain. */
-    private volatile int noiseSeed = SEED_TERRAIN;
-
-    /**
-     * Shared copy of {@link #noiseSeed} written on first chunk generation and
-     * readable by {@link GotBiomeSource} so its Y-aware density check uses the
-     * same seed as the terrain — keeping biomes block-for-block in sync.
-     *
-     * <p>Initialised to {@link #SEED_TERRAIN} (the same default the instance
-     * field uses) so that biome queries issued before the first chunk generate
-     * still agree with the terrain once it is produced.
-     */
-    static volatile int sharedNoiseSeed = SEED_TERRAIN;
-
-    private static int configuredSpawnPixelX = -1;
-    private static int configuredSpawnPixelZ = -1;
+    /** This generator's map, noise seed, warp lattice and derived caches; shared with its biome source. */
+    private final GotTerrainContext context;
+    /** Chunk-free surface height queries; see {@link #heightField}. */
+    private final GotHeightField heights;
 
     // ── Constructor ───────────────────────────────────────────────────────
 
     public GotChunkGenerator(BiomeSource biomeSource,
                              Holder<NoiseGeneratorSettings> settings,
                              int spawnPixelX,
-                             int spawnPixelZ) {
+                             int spawnPixelZ,
+                             GotTerrainMode terrainMode,
+                             int warpSpacing,
+                             ResourceLocation biomemap,
+                             Optional<Long> noiseSeed) {
         super(biomeSource);
         this.settings    = settings;
         this.spawnPixelX = spawnPixelX;
         this.spawnPixelZ = spawnPixelZ;
+        this.terrainMode = terrainMode;
+        this.warpSpacing = warpSpacing;
         this.vanilla     = new NoiseBasedChunkGenerator(biomeSource, settings);
-        configuredSpawnPixelX = spawnPixelX;
-        configuredSpawnPixelZ = spawnPixelZ;
+        this.context     = new GotTerrainContext(biomemap, terrainMode, warpSpacing, noiseSeed);
+        if (biomeSource instanceof GotBiomeSource got) got.bind(context);
+        this.heights     = new GotHeightField(this, context);
+    }
+
+    /** Spawn pixel from the {@code "spawn_pixel_x"} codec field, or {@code -1} if unset. */
+    public int getSpawnPixelX() { return spawnPixelX; }
+    /** Spawn pixel from the {@code "spawn_pixel_z"} codec field, or {@code -1} if unset. */
+    public int getSpawnPixelZ() { return spawnPixelZ; }
+
+    public GotTerrainContext context() { return context; }
+
+    /**
+     * Approximate surface heights of this dimension that never touch a chunk;
+     * see {@link GotHeightField}.  Applies the world's noise seed first, like
+     * every other entry point that is handed a {@link RandomState}.
+     */
+    public GotHeightField heightField(RandomState random) {
+        context.ensureNoiseSeed(random);
+        return heights;
+    }
+
+    // ── Stage profiling ───────────────────────────────────────────────────
+
+    /** Attached by {@link GotWorldgenBench} for the duration of a run; {@code null} otherwise. */
+    private volatile GotWorldgenProfiler profiler;
+
+    public void setProfiler(GotWorldgenProfiler profiler) { this.profiler = profiler; }
+
+    private long stageStart() {
+        return profiler != null ? System.nanoTime() : 0L;
     }
 
-    public static int getConfiguredSpawnPixelX() { return configuredSpawnPixelX; }
-    public static int getConfiguredSpawnPixelZ() { return configuredSpawnPixelZ; }
+    private void stageEnd(GotWorldgenProfiler.Stage stage, long start) {
+        GotWorldgenProfiler p = profiler;
+        if (p != null && start != 0L) p.record(stage, System.nanoTime() - start);
+    }
 
     @Override
     protected @NotNull MapCodec<? extends ChunkGenerator> codec() { return CODEC; }
 
     // ── Terrain generation ────────────────────────────────────────────────
 
+    /**
+     * Vanilla behaviour; only overridden so a bench run can time the biome
+     * pass on the worker that actually executes it.
+     */
+    @Override
+    public @NotNull CompletableFuture<ChunkAccess> createBiomes(
+            @NotNull RandomState random, @NotNull Blender blender,
+            @NotNull StructureManager structures, @NotNull ChunkAccess chunk) {
+        if (profiler == null) return super.createBiomes(random, blender, structures, chunk);
+        return CompletableFuture.supplyAsync(() -> {
+            long t0 = stageStart();
+            chunk.fillBiomesFromNoise(biomeSource, random.sampler());
+            stageEnd(GotWorldgenProfiler.Stage.BIOMES, t0);
+            return chunk;
+        }, Util.backgroundExecutor());
+    }
+
     @Override
     public @NotNull CompletableFuture<ChunkAccess> fillFromNoise(
             @NotNull Blender blender, @NotNull RandomState random,
             @NotNull StructureManager structures, @NotNull ChunkAccess chunk) {
 
-        if (!BiomemapLoader.isLoaded()) return fillFlat(chunk);
-
-        // Derive a per-world noise seed from the level seed the first time we
-        // generate a chunk.  This is what makes different world seeds produce
-        // different terrain shapes within the same biome layout.
-        if (noiseSeed == SEED_TERRAIN) {
-            long s = random.getOrCreateRandomFactory(
-                            ResourceLocation.fromNamespaceAndPath("got", "terrain_seed"))
-                    .at(BlockPos.ZERO).nextLong();
-            noiseSeed = SEED_TERRAIN ^ (int)(s ^ (s >>> 32));
-            sharedNoiseSeed = noiseSeed;   // visible to GotBiomeSource
+        if (!context.map().isLoaded()) return fillFlat(chunk);
+
+        long t0 = stageStart();
+        context.ensureNoiseSeed(random);
+        CompletableFuture<ChunkAccess> done = terrainMode == GotTerrainMode.HEIGHTFIELD
+                ? fillHeightfield(chunk)
+                : fillNoise3d(chunk);
+        stageEnd(GotWorldgenProfiler.Stage.NOISE, t0);
+        return done;
+    }
+
+    // ── Heightfield fill ──────────────────────────────────────────────────
+    //
+    // In HEIGHTFIELD mode the density at a cell corner is
+    //   (depth − y) + noise(x, z) × scale  =  H − y,   H = depth + noise × scale
+    // i.e. linear in Y.  Trilinear interpolation of a field that is linear in
+    // Y collapses to "bilinear H, minus y", so the surface of every column is
+    // the bilinear blend of the four surrounding corner heights and a block is
+    // solid exactly when y < H.  That is 25 noise evaluations per chunk
+    // instead of 25 × ROWS, and the per-block work is one integer compare.
+
+    private CompletableFuture<ChunkAccess> fillHeightfield(ChunkAccess chunk) {
+        NoiseSettings ns = settings.value().noiseSettings();
+        int minY = ns.minY();
+        int maxY = minY + ns.height();
+        int sea  = getSeaLevel();
+        ChunkPos pos = chunk.getPos();
+
+        FillScratch scratch = FILL_SCRATCH.get();
+        int[] top = scratch.columnTop;
+        columnTops(pos, minY, maxY, top);
+
+        int minTop = Integer.MAX_VALUE, maxTop = Integer.MIN_VALUE;
+        scratch.resetColumns();
+        for (int i = 0; i < 256; i++) {
+            int t = top[i];
+            if (t < minTop) minTop = t;
+            if (t > maxTop) maxTop = t;
+            if (t >= minY)              scratch.topSolid[i] = t;
+            if (sea > t && sea >= minY) scratch.topFluid[i] = Math.min(sea, maxY - 1);
+        }
+
+        byte[] mat = scratch.section;
+        int sectionCount = chunk.getSectionsCount();
+        for (int si = 0; si < sectionCount; si++) {
+            int sectionMinY = SectionPos.sectionToBlockCoord(chunk.getSectionYFromSectionIndex(si));
+            int sectionMaxY = sectionMinY + 15;
+            if (sectionMaxY < minY || sectionMinY >= maxY) continue;
+
+            // Whole-section shortcuts: above every column top and above the sea.
+            if (sectionMinY > maxTop && sectionMinY > sea) continue;
+            boolean inRange = sectionMinY >= minY && sectionMaxY < maxY;
+            if (inRange && sectionMaxY <= minTop) {
+                Arrays.fill(mat, MAT_SOLID);
+                writeSection(chunk, si, mat, SECTION_VOLUME, 0);
+                continue;
+            }
+            if (inRange && sectionMinY > maxTop && sectionMaxY <= sea) {
+                Arrays.fill(mat, MAT_FLUID);
+                writeSection(chunk, si, mat, 0, SECTION_VOLUME);
+                continue;
+            }
+
+            int solid = 0, fluid = 0;
+            for (int ly = 0; ly < 16; ly++) {
+                int y = sectionMinY + ly;
+                if (y < minY || y >= maxY) {
+                    Arrays.fill(mat, ly << 8, (ly + 1) << 8, MAT_AIR);
+                    continue;
+                }
+                for (int i = 0; i < 256; i++) {
+                    byte m;
+                    if      (y <= top[i]) { m = MAT_SOLID; solid++; }
+                    else if (y <= sea)    { m = MAT_FLUID; fluid++; }
+                    else                  { m = MAT_AIR; }
+                    mat[(ly << 8) | i] = m;
+                }
+            }
+            writeSection(chunk, si, mat, solid, fluid);
+        }
+
+        primeWorldgenHeightmaps(chunk, scratch);
+        return CompletableFuture.completedFuture(chunk);
+    }
+
+    /**
+     * Writes the topmost solid Y of every column of {@code pos} into
+     * {@code out[lz * 16 + lx]}, clamped to {@code [minY − 1, maxY − 1]}
+     * ({@code minY − 1} meaning "no solid block").
+     */
+    private void columnTops(ChunkPos pos, int minY, int maxY, int[] out) {
+        int COLS   = 16 / CELL_H + 1;
+        int chunkX = pos.getMinBlockX();
+        int chunkZ = pos.getMinBlockZ();
+        GotBlendField field = context.blendField(pos.x, pos.z);
+        int           seed  = context.noiseSeed();
+
+        float[] cornerH = FILL_SCRATCH.get().corners(COLS * COLS);
+        for (int cx = 0; cx < COLS; cx++) {
+            for (int cz = 0; cz < COLS; cz++) {
+                int wx = chunkX + cx * CELL_H;
+                int wz = chunkZ + cz * CELL_H;
+                cornerH[cx * COLS + cz] = cornerSurface(wx, wz,
+                        field.depth(wx, wz), field.scale(wx, wz), seed);
+            }
+        }
+
+        for (int lz = 0; lz < 16; lz++) {
+            int   cellZ = lz / CELL_H;
+            float tz    = (lz % CELL_H) / (float) CELL_H;
+            for (int lx = 0; lx < 16; lx++) {
+                int   cellX = lx / CELL_H;
+                float tx    = (lx % CELL_H) / (float) CELL_H;
+                float h = lerp(tz,
+                        lerp(tx, cornerH[cellX * COLS + cellZ],     cornerH[(cellX + 1) * COLS + cellZ]),
+                        lerp(tx, cornerH[cellX * COLS + cellZ + 1], cornerH[(cellX + 1) * COLS + cellZ + 1]));
+                out[(lz << 4) | lx] = topSolidY(h, minY, maxY);
+            }
         }
+    }
+
+    /**
+     * Surface height of a single column in HEIGHTFIELD mode, interpolated
+     * between its four enclosing cell corners exactly as {@link #fillHeightfield}
+     * does, so analytic queries agree with the generated blocks.
+     */
+    private float columnSurface(int x, int z) {
+        int   x0 = Math.floorDiv(x, CELL_H) * CELL_H;
+        int   z0 = Math.floorDiv(z, CELL_H) * CELL_H;
+        float tx = (x - x0) / (float) CELL_H;
+        float tz = (z - z0) / (float) CELL_H;
+        GotBlendField field = context.blendFieldAt(x, z);
+        int           seed  = context.noiseSeed();
+        float h00 = cornerSurface(x0,          z0,          field.depth(x0,          z0),          field.scale(x0,          z0),          seed);
+        float h10 = cornerSurface(x0 + CELL_H, z0,          field.depth(x0 + CELL_H, z0),          field.scale(x0 + CELL_H, z0),          seed);
+        float h01 = cornerSurface(x0,          z0 + CELL_H, field.depth(x0,          z0 + CELL_H), field.scale(x0,          z0 + CELL_H), seed);
+        float h11 = cornerSurface(x0 + CELL_H, z0 + CELL_H, field.depth(x0 + CELL_H, z0 + CELL_H), field.scale(x0 + CELL_H, z0 + CELL_H), seed);
+        return lerp(tz, lerp(tx, h00, h10), lerp(tx, h01, h11));
+    }
+
+    /** Highest Y with {@code y < h} (i.e. solid), clamped to {@code [minY − 1, maxY − 1]}. */
+    private static int topSolidY(float h, int minY, int maxY) {
+        return Mth.clamp(Mth.ceil(h) - 1, minY - 1, maxY - 1);
+    }
+
+    // ── 3D noise fill ─────────────────────────────────────────────────────
 
+    private CompletableFuture<ChunkAccess> fillNoise3d(ChunkAccess chunk) {
         NoiseSettings ns = settings.value().noiseSettings();
         int minY = ns.minY();
         int maxY = minY + ns.height();
@@ -210,7 +444,7 @@ public final class GotChunkGenerator extends ChunkGenerator {
 
         // ── Build the cell-corner density grid ────────────────────────────
         //
-        // cornerDensity[cx][cz][cy] is the density at world position:
+        // corners[(cx*COLS + cz)*ROWS + cy] is the density at world position:
         //   (chunkX + cx*CELL_H,  minY + cy*CELL_V,  chunkZ + cz*CELL_H)
         //
         // The grid is (COLS × COLS × ROWS) where:
@@ -220,89 +454,308 @@ public final class GotChunkGenerator extends ChunkGenerator {
         int COLS     = 16 / CELL_H + 1;                                // 5
         int ROWS     = (maxY - minY + CELL_V - 1) / CELL_V + 1;
 
-        float[][][] cornerDensity = new float[COLS][COLS][ROWS];
+        FillScratch scratch = FILL_SCRATCH.get();
+        float[] corners = scratch.corners(COLS * COLS * ROWS);
+        GotBlendField field = context.blendField(pos.x, pos.z);
+        int           seed  = context.noiseSeed();
 
         for (int cx = 0; cx < COLS; cx++) {
             for (int cz = 0; cz < COLS; cz++) {
                 int wx = chunkX + cx * CELL_H;
                 int wz = chunkZ + cz * CELL_H;
 
-                // Bilinear blend: one call per XZ corner, not per block.
-                float[] bp    = bilinearBlend(wx, wz);
-                float   depth = bp[0];
-                float   scale = bp[1];
+                // Blend read from the shared per-chunk field (corner 4 lies in its margin).
+                float depth = field.depth(wx, wz);
+                float scale = field.scale(wx, wz);
 
+                int base = (cx * COLS + cz) * ROWS;
                 for (int cy = 0; cy < ROWS; cy++) {
                     int wy = minY + cy * CELL_V;
-                    cornerDensity[cx][cz][cy] = cornerDensity(wx, wy, wz, depth, scale, noiseSeed);
+                    corners[base + cy] = cornerDensity3d(wx, wy, wz, depth, scale, seed);
                 }
             }
         }
 
-        // ── Trilinearly interpolate and fill blocks ────────────────────────
-
-        for (int lx = 0; lx < 16; lx++) {
-            for (int lz = 0; lz < 16; lz++) {
-                int cellX = lx / CELL_H;          // XZ cell index (0-3)
-                int cellZ = lz / CELL_H;
-                float tx = (lx % CELL_H) / (float) CELL_H;   // fraction within cell
-                float tz = (lz % CELL_H) / (float) CELL_H;
-
-                for (int y = minY; y < maxY; y++) {
-                    int   cellY = (y - minY) / CELL_V;
-                    float ty    = ((y - minY) % CELL_V) / (float) CELL_V;
-
-                    // Trilinear interpolation of the 8 surrounding corner densities.
-                    float density = trilinear(tx, ty, tz,
-                            cornerDensity[cellX    ][cellZ    ][cellY    ],
-                            cornerDensity[cellX + 1][cellZ    ][cellY    ],
-                            cornerDensity[cellX    ][cellZ + 1][cellY    ],
-                            cornerDensity[cellX + 1][cellZ + 1][cellY    ],
-                            cornerDensity[cellX    ][cellZ    ][cellY + 1],
-                            cornerDensity[cellX + 1][cellZ    ][cellY + 1],
-                            cornerDensity[cellX    ][cellZ + 1][cellY + 1],
-                            cornerDensity[cellX + 1][cellZ + 1][cellY + 1]);
-
-                    BlockState state;
-                    if (density > 0f) {
-                        state = Blocks.STONE.defaultBlockState();
-                    } else if (y <= sea) {
-                        state = settings.value().defaultFluid();
-                    } else {
-                        state = Blocks.AIR.defaultBlockState();
+        // ── Classify cell by cell, one section at a time ──────────────────
+        //
+        // A trilinear blend is a convex combination of its eight corners, so
+        // every block of a cell lies within [min, max] of those corners.  A
+        // cell whose corners are all > 0 is solid throughout and one whose
+        // corners are all ≤ 0 is open throughout; only cells straddling zero
+        // — a thin band around the surface and any overhangs — are
+        // interpolated per block.  Sections are 16 tall and minY is a
+        // multiple of 16, so each section holds exactly two cell layers.
+
+        scratch.resetColumns();
+        byte[] mat = scratch.section;
+        int sectionCount = chunk.getSectionsCount();
+
+        for (int si = 0; si < sectionCount; si++) {
+            int sectionMinY = SectionPos.sectionToBlockCoord(chunk.getSectionYFromSectionIndex(si));
+            if (sectionMinY + 16 <= minY || sectionMinY >= maxY) continue;
+            boolean inWorld = sectionMinY >= minY && sectionMinY + 16 <= maxY;
+            int     cellY0  = (sectionMinY - minY) / CELL_V;
+
+            // Whole-section shortcuts, from the bounds of all its corners.
+            if (inWorld) {
+                float lo = Float.POSITIVE_INFINITY, hi = Float.NEGATIVE_INFINITY;
+                for (int c = 0; c < COLS * COLS; c++) {
+                    for (int cy = cellY0; cy <= cellY0 + 16 / CELL_V; cy++) {
+                        float d = corners[c * ROWS + cy];
+                        if (d < lo) lo = d;
+                        if (d > hi) hi = d;
                     }
+                }
+                if (lo > 0f) {
+                    for (int i = 0; i < 256; i++) scratch.recordTop(i & 15, i >> 4, sectionMinY + 15, MAT_SOLID);
+                    Arrays.fill(mat, MAT_SOLID);                      // read inside the deepslate gradient
+                    writeSection(chunk, si, mat, SECTION_VOLUME, 0);
+                    continue;
+                }
+                if (hi <= 0f && sectionMinY > sea) continue;          // open air: stays air
+            }
 
-                    chunk.setBlockState(new BlockPos(lx, y, lz), state, false);
+            int solid = 0, fluid = 0;
+            for (int cellLy = 0; cellLy < 16; cellLy += CELL_V) {
+                int y0    = sectionMinY + cellLy;
+                int cellY = cellY0 + cellLy / CELL_V;
+
+                for (int cellX = 0; cellX < COLS - 1; cellX++) {
+                    for (int cellZ = 0; cellZ < COLS - 1; cellZ++) {
+                        int c00 = ((cellX    ) * COLS + cellZ    ) * ROWS + cellY;
+                        int c10 = ((cellX + 1) * COLS + cellZ    ) * ROWS + cellY;
+                        int c01 = ((cellX    ) * COLS + cellZ + 1) * ROWS + cellY;
+                        int c11 = ((cellX + 1) * COLS + cellZ + 1) * ROWS + cellY;
+                        float d000 = corners[c00],     d100 = corners[c10];
+                        float d010 = corners[c01],     d110 = corners[c11];
+                        float d001 = corners[c00 + 1], d101 = corners[c10 + 1];
+                        float d011 = corners[c01 + 1], d111 = corners[c11 + 1];
+
+                        float lo = Math.min(Math.min(Math.min(d000, d100), Math.min(d010, d110)),
+                                            Math.min(Math.min(d001, d101), Math.min(d011, d111)));
+                        float hi = Math.max(Math.max(Math.max(d000, d100), Math.max(d010, d110)),
+                                            Math.max(Math.max(d001, d101), Math.max(d011, d111)));
+                        boolean straddles = lo <= 0f && hi > 0f;
+
+                        int lx0 = cellX * CELL_H;
+                        int lz0 = cellZ * CELL_H;
+                        for (int dy = 0; dy < CELL_V; dy++) {
+                            int y  = y0 + dy;
+                            int ly = cellLy + dy;
+                            boolean yInWorld = y >= minY && y < maxY;
+
+                            if (!straddles || !yInWorld) {
+                                // Uniform layer of a uniform cell: one material, row fills.
+                                byte m = !yInWorld ? MAT_AIR
+                                        : lo > 0f  ? MAT_SOLID
+                                        : y <= sea ? MAT_FLUID
+                                        : MAT_AIR;
+                                for (int dz = 0; dz < CELL_H; dz++) {
+                                    int row = (ly << 8) | ((lz0 + dz) << 4) | lx0;
+                                    Arrays.fill(mat, row, row + CELL_H, m);
+                                }
+                                if (m == MAT_AIR) continue;
+                                if (m == MAT_SOLID) solid += CELL_H * CELL_H; else fluid += CELL_H * CELL_H;
+                                for (int dz = 0; dz < CELL_H; dz++) {
+                                    for (int dx = 0; dx < CELL_H; dx++) scratch.recordTop(lx0 + dx, lz0 + dz, y, m);
+                                }
+                                continue;
+                            }
+
+                            // Straddling cell: trilinear interpolation per block.
+                            float ty = dy / (float) CELL_V;
+                            for (int dz = 0; dz < CELL_H; dz++) {
+                                int   lz  = lz0 + dz;
+                                float tz  = dz / (float) CELL_H;
+                                int   row = (ly << 8) | (lz << 4);
+                                for (int dx = 0; dx < CELL_H; dx++) {
+                                    int   lx = lx0 + dx;
+                                    float density = trilinear(dx / (float) CELL_H, ty, tz,
+                                            d000, d100, d010, d110, d001, d101, d011, d111);
+
+                                    byte m;
+                                    if (density > 0f)  { m = MAT_SOLID; solid++; }
+                                    else if (y <= sea) { m = MAT_FLUID; fluid++; }
+                                    else               { m = MAT_AIR; }
+                                    mat[row | lx] = m;
+                                    if (m != MAT_AIR) scratch.recordTop(lx, lz, y, m);
+                                }
+                            }
+                        }
+                    }
                 }
             }
+            writeSection(chunk, si, mat, solid, fluid);
         }
 
+        primeWorldgenHeightmaps(chunk, scratch);
         return CompletableFuture.completedFuture(chunk);
     }
 
+    // ── Section-direct block output ───────────────────────────────────────
+    //
+    // fillFromNoise and fillFlat classify every block of a section into a
+    // thread-confined byte[4096] (AIR / SOLID / FLUID) and then hand it to
+    // writeSection, which writes straight into the LevelChunkSection:
+    //
+    //   • sections that stay entirely air are skipped — a fresh proto-chunk
+    //     section already holds only air;
+    //   • sections that are entirely stone or entirely fluid are replaced by a
+    //     single-value palette container in one step;
+    //   • mixed sections are written per block straight into the section's
+    //     palette container, bypassing both ChunkAccess.setBlockState
+    //     (BlockPos, heightmap and light bookkeeping per call) and
+    //     LevelChunkSection.setBlockState (per-block count updates); the
+    //     section's non-empty / ticking counts are then set once from the
+    //     classification tallies.
+    //
+    // The worldgen heightmaps are then written once per column from the
+    // topmost solid / fluid Y recorded during classification — no later
+    // stage needs to prime them by scanning.
+
+    private static final byte MAT_AIR   = 0;
+    private static final byte MAT_SOLID = 1;
+    private static final byte MAT_FLUID = 2;
+
+    private static final int SECTION_VOLUME = 16 * 16 * 16;
+
+    /** Per-thread fill buffers — worldgen workers never allocate per chunk. */
+    private static final class FillScratch {
+        private float[] corners = new float[0];
+        final byte[]    section = new byte[SECTION_VOLUME];
+        /** Highest solid / fluid Y per column ({@code lz * 16 + lx}); {@code Integer.MIN_VALUE} if none. */
+        final int[]     topSolid = new int[256];
+        final int[]     topFluid = new int[256];
+        /** Heightfield mode: topmost solid Y per column. */
+        final int[]     columnTop = new int[256];
+        /** Coastal mud: sea-level water mask over the chunk plus apron, and per-column result. */
+        final boolean[] seaWater  = new boolean[SHORE_SIZE * SHORE_SIZE];
+        final boolean[] nearWater = new boolean[256];
+        final float[]   blend     = new float[2];
+
+        float[] corners(int size) {
+            if (corners.length < size) corners = new float[size];
+            return corners;
+        }
+
+        void resetColumns() {
+            Arrays.fill(topSolid, Integer.MIN_VALUE);
+            Arrays.fill(topFluid, Integer.MIN_VALUE);
+        }
+
+        void recordTop(int lx, int lz, int y, byte m) {
+            int[] top = m == MAT_SOLID ? topSolid : topFluid;
+            int   i   = (lz << 4) | lx;
+            if (y > top[i]) top[i] = y;
+        }
+    }
+
+    private static final ThreadLocal<FillScratch> FILL_SCRATCH = ThreadLocal.withInitial(FillScratch::new);
+
+    private void writeSection(ChunkAccess chunk, int sectionIndex, byte[] mat, int solid, int fluid) {
+        if (solid == 0 && fluid == 0) return;                    // untouched: stays air
+
+        LevelChunkSection[] sections = chunk.getSections();
+        LevelChunkSection   section  = sections[sectionIndex];
+        BlockState water = settings.value().defaultFluid();
+        // Stone or deepslate for the whole section, or null inside the deepslate gradient.
+        int        sectionMinY = SectionPos.sectionToBlockCoord(chunk.getSectionYFromSectionIndex(sectionIndex));
+        BlockState rock        = GotSurfaceBuilder.uniformRock(sectionMinY);
+
+        if (((solid == SECTION_VOLUME && rock != null) || fluid == SECTION_VOLUME) && section.hasOnlyAir()) {
+            BlockState fill = solid == SECTION_VOLUME ? rock : water;
+            sections[sectionIndex] = new LevelChunkSection(
+                    new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY, fill,
+                            PalettedContainer.Strategy.SECTION_STATES),
+                    section.getBiomes());
+            return;
+        }
+
+        // The direct path sets the counts outright, so it needs a section
+        // nothing else has written to yet — always the case during the fill.
+        boolean direct = section.hasOnlyAir();
+        PalettedContainer<BlockState> states = section.getStates();
+        int chunkX = chunk.getPos().getMinBlockX();
+        int chunkZ = chunk.getPos().getMinBlockZ();
+        int seed   = context.noiseSeed();
+        for (int i = 0; i < SECTION_VOLUME; i++) {
+            byte m = mat[i];
+            if (m == MAT_AIR) continue;
+            int lx = i & 15, ly = i >> 8, lz = (i >> 4) & 15;
+            BlockState state = m == MAT_FLUID ? water
+                    : rock != null ? rock
+                    : GotSurfaceBuilder.rock(chunkX + lx, sectionMinY + ly, chunkZ + lz, seed);
+            if (direct) states.getAndSetUnchecked(lx, ly, lz, state);
+            else        section.setBlockState(lx, ly, lz, state, false);
+        }
+        if (direct) {
+            // Rock never ticks; the fluid may (lava seas).
+            section.nonEmptyBlockCount = (short) (solid + fluid);
+            section.tickingBlockCount  = (short) (water.isRandomlyTicking() ? fluid : 0);
+            section.tickingFluidCount  = (short) (water.getFluidState().isRandomlyTicking() ? fluid : 0);
+        }
+    }
+
+    /**
+     * Writes {@code OCEAN_FLOOR_WG} (solid only) and {@code WORLD_SURFACE_WG}
+     * (solid or fluid) from the per-column tops recorded during the fill.
+     *
+     * <p>The tops are exact — every non-air block the fill placed is either
+     * rock or the default fluid — so the heights are stored outright instead
+     * of going through {@link Heightmap#update}'s per-call predicate test.
+     * Columns the fill left empty keep the unprimed minimum.
+     */
+    private void primeWorldgenHeightmaps(ChunkAccess chunk, FillScratch scratch) {
+        Heightmap oceanFloor = chunk.getOrCreateHeightmapUnprimed(Heightmap.Types.OCEAN_FLOOR_WG);
+        Heightmap surface    = chunk.getOrCreateHeightmapUnprimed(Heightmap.Types.WORLD_SURFACE_WG);
+
+        for (int i = 0; i < 256; i++) {
+            int lx = i & 15, lz = i >> 4;
+            int ts = scratch.topSolid[i];
+            int tf = scratch.topFluid[i];
+            if (ts != Integer.MIN_VALUE) oceanFloor.setHeight(lx, lz, ts + 1);
+            int top = Math.max(ts, tf);
+            if (top != Integer.MIN_VALUE) surface.setHeight(lx, lz, top + 1);
+        }
+    }
+
     @Override
     public void buildSurface(@NotNull WorldGenRegion region,
                              @NotNull StructureManager structures,
                              @NotNull RandomState random,
                              @NotNull ChunkAccess chunk) {
-        vanilla.buildSurface(region, structures, random, chunk);
-        if (BiomemapLoader.isLoaded()) {
-            applyCoastalMud(chunk);
+        buildSurface(chunk);
+    }
+
+    /**
+     * The surface pass proper: the native {@link GotSurfaceBuilder} table,
+     * then the coastal mud pass.  Needs nothing from a {@link WorldGenRegion}.
+     */
+    void buildSurface(ChunkAccess chunk) {
+        long t0 = stageStart();
+        GotSurfaceBuilder.build(chunk, context.noiseSeed(), terrainMode == GotTerrainMode.NOISE_3D);
+        stageEnd(GotWorldgenProfiler.Stage.SURFACE, t0);
+        if (context.map().isLoaded()) {
+            t0 = stageStart();
+            applyCoastalMud(chunk, GotModBlocks.QUAGMIRE.get().defaultBlockState());
+            stageEnd(GotWorldgenProfiler.Stage.MUD, t0);
         }
     }
 
     // ── Coastal mud / quagmire pass ───────────────────────────────────────
     //
-    // After the vanilla surface pass has placed grass/dirt/sand/gravel etc.,
+    // After the surface pass (GotSurfaceBuilder) has placed grass/dirt/sand/gravel etc.,
     // we scan every column in the chunk and — where the solid floor is near
     // sea level AND close to open water — place Quagmire (on land) or Mud
     // (on the submerged floor) using Perlin noise to shape organic patches.
     //
-    // "Near water" is detected mathematically: we evaluate the terrain density
-    // at sea level for four neighbouring positions.  If any neighbour returns
-    // density ≤ 0 (i.e. would be open water) the current column is coastal.
-    // Using evalDensity instead of reading live blocks avoids any dependency
-    // on neighbouring chunk state at this generation stage.
+    // "Near water" is detected mathematically: a sea-level water mask for the
+    // chunk plus an 8-block apron is interpolated from the fill's own cell
+    // corners (nearWaterMask), and a column is coastal if the mask is open at
+    // any of sixteen probes around it.  Deriving the mask from the density
+    // instead of reading live blocks avoids any dependency on neighbouring
+    // chunk state at this generation stage.  For map-scale shore distance
+    // see BiomemapSnapshot.shoreDistance.
 
     // ── Coastal mud / quagmire constants ─────────────────────────────────
     //
@@ -329,36 +782,38 @@ public final class GotChunkGenerator extends ChunkGenerator {
             { 1, 1}, { 1,-1}, {-1, 1}, {-1,-1}
     };
 
-    private void applyCoastalMud(ChunkAccess chunk) {
+    /** Farthest near-water probe: radii 4 and 8 along {@link #SHORE_DIRS}. */
+    private static final int SHORE_REACH = 8;
+    /** Edge of the sea-level water mask: the chunk plus {@link #SHORE_REACH} on every side. */
+    private static final int SHORE_SIZE  = 16 + SHORE_REACH * 2;
+
+    /**
+     * Runs the mud / quagmire pass over {@code chunk}.  The quagmire state is
+     * passed in so it is resolved once per chunk rather than per column, and
+     * so the pass can run outside a registered game (benchmarks).
+     */
+    void applyCoastalMud(ChunkAccess chunk, BlockState quagmire) {
         ChunkPos pos = chunk.getPos();
         int chunkX   = pos.getMinBlockX();
         int chunkZ   = pos.getMinBlockZ();
 
+        GotBlendField field = context.blendField(pos.x, pos.z);
+        FillScratch scratch = FILL_SCRATCH.get();
+        boolean[] nearWater = null;   // built on the first column that passes the altitude cull
+
         for (int lx = 0; lx < 16; lx++) {
             for (int lz = 0; lz < 16; lz++) {
                 int wx = chunkX + lx;
                 int wz = chunkZ + lz;
 
                 // Fast altitude cull using the blended depth approximation.
-                float depth = bilinearBlend(wx, wz)[0];
+                float depth = field.depth(wx, wz);
                 if (depth < SEA_LEVEL - MUD_ALTITUDE_RANGE - 2
                         || depth > SEA_LEVEL + MUD_ALTITUDE_RANGE + 2) continue;
 
                 // Is there open water within 8 blocks?
-                boolean nearWater = false;
-                outer:
-                for (int r = 4; r <= 8; r += 4) {
-                    for (int[] d : SHORE_DIRS) {
-                        int nx = wx + d[0] * r;
-                        int nz = wz + d[1] * r;
-                        float[] nbp = bilinearBlend(nx, nz);
-                        if (evalDensity(nx, SEA_LEVEL, nz, nbp[0], nbp[1]) <= 0f) {
-                            nearWater = true;
-                            break outer;
-                        }
-                    }
-                }
-                if (!nearWater) continue;
+                if (nearWater == null) nearWater = nearWaterMask(pos, field, scratch);
+                if (!nearWater[(lz << 4) | lx]) continue;
 
                 // PATCH noise: are we inside a mud/quagmire patch?
                 float patch = GotPerlinNoise.sample(
@@ -375,15 +830,89 @@ public final class GotChunkGenerator extends ChunkGenerator {
                 // MIX noise: mud or quagmire?  Mud wins ~65% of the time.
                 float mix = GotPerlinNoise.sample(
                         wx * MUD_MIX_FREQ, 0f, wz * MUD_MIX_FREQ, MUD_SEED_MIX);
-                BlockState place = (mix > 0.25f)
-                        ? GotModBlocks.QUAGMIRE.get().defaultBlockState()
-                        : Blocks.MUD.defaultBlockState();
+                BlockState place = (mix > 0.25f) ? quagmire : Blocks.MUD.defaultBlockState();
 
                 chunk.setBlockState(floorPos, place, false);
             }
         }
     }
 
+    /**
+     * Per-column "open water within {@value #SHORE_REACH} blocks" flags for
+     * {@code pos}, indexed {@code lz * 16 + lx}.
+     *
+     * <p>Built from a sea-level water mask over the chunk plus a
+     * {@value #SHORE_REACH}-block apron, itself interpolated from the same
+     * {@value #CELL_H}-block cell corners the noise fill uses — so "water"
+     * means a column the fill actually leaves open at {@link #SEA_LEVEL}.
+     * That is 81 corner evaluations per chunk (162 in 3D mode) in place of
+     * up to sixteen exact density evaluations per column.
+     */
+    private boolean[] nearWaterMask(ChunkPos pos, GotBlendField field, FillScratch scratch) {
+        int COLS    = SHORE_SIZE / CELL_H + 1;                         // 9
+        int originX = pos.getMinBlockX() - SHORE_REACH;
+        int originZ = pos.getMinBlockZ() - SHORE_REACH;
+
+        // ── Sea-level density at every cell corner of the apron ───────────
+        NoiseSettings ns = settings.value().noiseSettings();
+        int   cellY = Math.floorDiv(SEA_LEVEL - ns.minY(), CELL_V);
+        int   y0    = ns.minY() + cellY * CELL_V;
+        float ty    = (SEA_LEVEL - y0) / (float) CELL_V;
+
+        float[] corners = scratch.corners(COLS * COLS);
+        float[] blend   = scratch.blend;
+        int     seed    = context.noiseSeed();
+        for (int cx = 0; cx < COLS; cx++) {
+            for (int cz = 0; cz < COLS; cz++) {
+                int wx = originX + cx * CELL_H;
+                int wz = originZ + cz * CELL_H;
+                // The far apron edge is one block past the blend field's margin.
+                if (field.contains(wx, wz)) {
+                    blend[0] = field.depth(wx, wz);
+                    blend[1] = field.scale(wx, wz);
+                } else {
+                    blendWarped(field.map(), context.lattice().warpX(wx, wz), context.lattice().warpZ(wx, wz), blend);
+                }
+                corners[cx * COLS + cz] = terrainMode == GotTerrainMode.HEIGHTFIELD
+                        ? cornerSurface(wx, wz, blend[0], blend[1], seed) - SEA_LEVEL
+                        : lerp(ty, cornerDensity3d(wx, y0,          wz, blend[0], blend[1], seed),
+                                   cornerDensity3d(wx, y0 + CELL_V, wz, blend[0], blend[1], seed));
+            }
+        }
+
+        // ── Bilinear fill of the water mask ───────────────────────────────
+        boolean[] water = scratch.seaWater;
+        for (int gz = 0; gz < SHORE_SIZE; gz++) {
+            int   cellZ = gz / CELL_H;
+            float tz    = (gz % CELL_H) / (float) CELL_H;
+            for (int gx = 0; gx < SHORE_SIZE; gx++) {
+                int   cellX = gx / CELL_H;
+                float tx    = (gx % CELL_H) / (float) CELL_H;
+                float d = lerp(tz,
+                        lerp(tx, corners[cellX * COLS + cellZ],     corners[(cellX + 1) * COLS + cellZ]),
+                        lerp(tx, corners[cellX * COLS + cellZ + 1], corners[(cellX + 1) * COLS + cellZ + 1]));
+                water[gz * SHORE_SIZE + gx] = d <= 0f;
+            }
+        }
+
+        // ── Probe the mask along SHORE_DIRS at radii 4 and 8 ─────────────
+        boolean[] near = scratch.nearWater;
+        for (int lz = 0; lz < 16; lz++) {
+            for (int lx = 0; lx < 16; lx++) {
+                boolean hit = false;
+                for (int r = 4; r <= SHORE_REACH && !hit; r += 4) {
+                    for (int[] d : SHORE_DIRS) {
+                        int gx = lx + SHORE_REACH + d[0] * r;
+                        int gz = lz + SHORE_REACH + d[1] * r;
+                        if (water[gz * SHORE_SIZE + gx]) { hit = true; break; }
+                    }
+                }
+                near[(lz << 4) | lx] = hit;
+            }
+        }
+        return near;
+    }
+
     /** Blocks that mud and quagmire are allowed to replace. */
     private static boolean isMudReplaceable(BlockState s) {
         return s.is(Blocks.GRASS_BLOCK)
@@ -400,7 +929,7 @@ public final class GotChunkGenerator extends ChunkGenerator {
      * Evaluates the signed density at a cell corner.
      *
      * <pre>
-     *   density = (blendedDepth − worldY) + fbm3D(worldX, worldY, worldZ) × blendedScale
+     *   density = (blendedDepth − worldY) + fbm(worldX, [worldY,] worldZ) × blendedScale
      * </pre>
      *
      * <ul>
@@ -410,34 +939,95 @@ public final class GotChunkGenerator extends ChunkGenerator {
      *
      * @param depth blended baseline surface Y from the biomemap
      * @param scale blended noise amplitude in blocks
+     * @param mode  whether the noise term varies with Y
      */
-    private static float cornerDensity(int wx, int wy, int wz,
-                                       float depth, float scale, int seed) {
-        float gradient = depth - wy;
-        // Y is fixed at 0 — purely horizontal noise — preserving the
-        // no-overhang guarantee.  The seed varies per world so mountains,
-        // plains, etc. all look different in every new world.
+    static float cornerDensity(int wx, int wy, int wz,
+                                       float depth, float scale, int seed,
+                                       GotTerrainMode mode) {
+        return mode == GotTerrainMode.HEIGHTFIELD
+                ? cornerSurface(wx, wz, depth, scale, seed) - wy
+                : cornerDensity3d(wx, wy, wz, depth, scale, seed);
+    }
+
+    /**
+     * HEIGHTFIELD mode: the column's density zero-crossing.
+     * Y is fixed at 0 — purely horizontal noise — preserving the no-overhang
+     * guarantee.  The seed varies per world so mountains, plains, etc. all
+     * look different in every new world.
+     */
+    private static float cornerSurface(int wx, int wz, float depth, float scale, int seed) {
         float noise = GotPerlinNoise.fbm(
                 wx * FREQ_H,
                 0f,
                 wz * FREQ_H,
                 seed);
+        return depth + noise * scale;
+    }
+
+    /** NOISE_3D mode: the noise term also varies with Y, so overhangs can form. */
+    private static float cornerDensity3d(int wx, int wy, int wz,
+                                         float depth, float scale, int seed) {
+        float gradient = depth - wy;
+        float noise = GotPerlinNoise.fbm(
+                wx * FREQ_H,
+                wy * FREQ_V,
+                wz * FREQ_H,
+                seed);
         return gradient + noise * scale;
     }
 
-    // ── Package-private API used by GotBiomeSource ────────────────────────
+    // ── Package-private API used by GotBiomeQuarts ────────────────────────
+
+    /**
+     * HEIGHTFIELD mode: the lowest integer Y whose density is ≤ 0 in column
+     * {@code (wx, wz)}.  Density there is {@code surface − y}, which is ≤ 0
+     * exactly when {@code y ≥ surface}, so {@code y >= openFromY(...)} gives
+     * the same answer as {@link GotTerrainContext#evalDensity}{@code (...) <= 0} for every Y.
+     */
+    static int openFromY(int wx, int wz, float depth, float scale, int seed) {
+        return Mth.ceil(cornerSurface(wx, wz, depth, scale, seed));
+    }
+
+    // ── Package-private API used by GotHeightField ────────────────────────
 
     /**
-     * Evaluates the signed density at an arbitrary world position using the
-     * same formula as {@link #cornerDensity} but reading {@link #sharedNoiseSeed}
-     * so that {@link GotBiomeSource} can reproduce the terrain generator's exact
-     * solid/open decision for every noise cell.
+     * Surface of the column at cell corner {@code (wx, wz)}: solid below the
+     * returned Y, open above.  Blends straight from {@code map} rather than
+     * through a {@link GotBlendField}, so scattered queries never churn the
+     * chunk cache.
      *
-     * <p>Called once per noise cell (4 × 4 × 4 blocks) that is at or below sea
-     * level, so the extra cost is negligible compared with full chunk generation.
+     * <p>HEIGHTFIELD: the corner height {@link #fillHeightfield} interpolates.
+     * NOISE_3D: where the density, linearly interpolated between the
+     * {@value #CELL_V}-block corners as {@link #fillNoise3d} does, last falls
+     * to zero — scanning down from the highest Y the noise can reach, so
+     * overhangs report their top.
      */
-    static float evalDensity(int wx, int wy, int wz, float depth, float scale) {
-        return cornerDensity(wx, wy, wz, depth, scale, sharedNoiseSeed);
+    float cornerSurfaceAt(BiomemapSnapshot map, int wx, int wz, int seed, float[] blend) {
+        GotWarpLattice lattice = context.lattice();
+        blendWarped(map, lattice.warpX(wx, wz), lattice.warpZ(wx, wz), blend);
+        float depth = blend[0];
+        float scale = blend[1];
+        if (terrainMode == GotTerrainMode.HEIGHTFIELD) return cornerSurface(wx, wz, depth, scale, seed);
+
+        int minY = getMinY();
+        int maxY = minY + getGenDepth();
+        int rows = getGenDepth() / CELL_V;
+        // |fbm| stays below 2, so nothing above depth + 2·|scale| is solid.
+        int reach = Mth.clamp(Mth.ceil(depth + 2f * Math.abs(scale)), minY, maxY);
+        int top   = Math.min(rows, -Math.floorDiv(minY - reach, CELL_V));
+        float upper = cornerDensity3d(wx, minY + top * CELL_V, wz, depth, scale, seed);
+        if (upper > 0f && top < rows) {
+            top   = rows;
+            upper = cornerDensity3d(wx, maxY, wz, depth, scale, seed);
+        }
+        if (upper > 0f) return maxY;
+        for (int cy = top - 1; cy >= 0; cy--) {
+            int   y = minY + cy * CELL_V;
+            float d = cornerDensity3d(wx, y, wz, depth, scale, seed);
+            if (d > 0f) return y + CELL_V * d / (d - upper);
+            upper = d;
+        }
+        return minY;
     }
 
     // ── Domain warp ───────────────────────────────────────────────────────
@@ -464,19 +1054,51 @@ public final class GotChunkGenerator extends ChunkGenerator {
     private static final int   WARP_SEED_Z = 0xEF56_78AB;
 
     /**
-     * Applies domain warp to a world (wx, wz) position.
+     * Upper bound on {@code |warpX(wx, wz) − wx|} (and Z), in blocks.  The
+     * normalised noise only reaches ±1 at its nominal bound; twice the
+     * amplitude leaves room for the raw gradient sum overshooting it.
+     * {@link GotBiomeIndex} relies on this never being exceeded.
+     */
+    static final float WARP_REACH  = 2f * WARP_AMP;
+
+    /**
+     * Exact domain warp of world X at {@code (wx, wz)}.
      *
      * <p>Two independent Perlin samples displace the X and Z axes separately,
-     * breaking up the rectilinear pixel-grid layout into organic curves.  Both
-     * {@link #bilinearBlend} and {@link GotBiomeSource#getNoiseBiome} call this
-     * helper so that terrain and biome boundaries are always in perfect sync.
-     *
-     * @return float[2] { warpedWorldX, warpedWorldZ }
+     * breaking up the rectilinear pixel-grid layout into organic curves.
+     * Worldgen reads the warp through {@link GotWarpLattice}, which samples
+     * these exact functions on a coarse grid and interpolates between them;
+     * they remain the reference the lattice is measured against.
+     */
+    static float warpX(float wx, float wz) {
+        return wx + GotPerlinNoise.sample(wx * WARP_FREQ, 0f, wz * WARP_FREQ, WARP_SEED_X) * WARP_AMP;
+    }
+
+    /** Exact domain warp of world Z at {@code (wx, wz)}; see {@link #warpX}. */
+    static float warpZ(float wx, float wz) {
+        return wz + GotPerlinNoise.sample(wx * WARP_FREQ, 0f, wz * WARP_FREQ, WARP_SEED_Z) * WARP_AMP;
+    }
+
+    /**
+     * Exact warp <em>offsets</em> (warped minus unwarped, in blocks) on the
+     * {@code count × count} grid of world columns
+     * {@code (originX + i × step, originZ + j × step)}, written
+     * {@code [j * count + i]} via the batch noise API.  Adding the column
+     * coordinate back reproduces {@link #warpX} / {@link #warpZ} bit-for-bit.
      */
-    static float[] warpCoordinates(float wx, float wz) {
-        float dx = GotPerlinNoise.sample(wx * WARP_FREQ, 0f, wz * WARP_FREQ, WARP_SEED_X);
-        float dz = GotPerlinNoise.sample(wx * WARP_FREQ, 0f, wz * WARP_FREQ, WARP_SEED_Z);
-        return new float[]{ wx + dx * WARP_AMP, wz + dz * WARP_AMP };
+    static void warpOffsets(int originX, int originZ, int step, int count, float[] outX, float[] outZ) {
+        float[] xs = new float[count];
+        float[] zs = new float[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = (float) (originX + i * step) * WARP_FREQ;
+            zs[i] = (float) (originZ + i * step) * WARP_FREQ;
+        }
+        GotPerlinNoise.sampleLattice(xs, 0f, zs, WARP_SEED_X, outX);
+        GotPerlinNoise.sampleLattice(xs, 0f, zs, WARP_SEED_Z, outZ);
+        for (int i = 0, n = count * count; i < n; i++) {
+            outX[i] *= WARP_AMP;
+            outZ[i] *= WARP_AMP;
+        }
     }
 
     // ── Biomemap bilinear blend ───────────────────────────────────────────
@@ -510,12 +1132,25 @@ public final class GotChunkGenerator extends ChunkGenerator {
 // ─── REPLACE the existing bilinearBlend() method with this version ───
 //     (only change: sharpenBlend() applied to tx and tz)
 
-    static float[] bilinearBlend(int wx, int wz) {
+    static float[] bilinearBlend(GotTerrainContext context, int wx, int wz) {
         // Apply domain warp so the pixel-grid boundary lines become organic curves
         // instead of axis-aligned straight edges.
-        float[] warped = warpCoordinates(wx, wz);
-        float cx = warped[0] / (float) BiomemapLoader.MAP_SCALE + BiomemapLoader.getWidth()  * 0.5f;
-        float cz = warped[1] / (float) BiomemapLoader.MAP_SCALE + BiomemapLoader.getHeight() * 0.5f;
+        float[] out = new float[2];
+        GotWarpLattice lattice = context.lattice();
+        blendWarped(context.map(), lattice.warpX(wx, wz), lattice.warpZ(wx, wz), out);
+        return out;
+    }
+
+    /**
+     * Blend half of {@link #bilinearBlend}: takes already-warped world
+     * coordinates and writes {@code { depth, scale }} into {@code out}.
+     * {@link GotBlendField} calls this directly so building a field allocates
+     * nothing per column.  Every read goes to {@code map}, so one blend never
+     * mixes two biomemap versions.
+     */
+    static void blendWarped(BiomemapSnapshot map, float warpedX, float warpedZ, float[] out) {
+        float cx = warpedX / (float) map.scale() + map.width()  * 0.5f;
+        float cz = warpedZ / (float) map.scale() + map.height() * 0.5f;
 
         int   px0 = (int) Math.floor(cx);
         int   pz0 = (int) Math.floor(cz);
@@ -523,20 +1158,19 @@ public final class GotChunkGenerator extends ChunkGenerator {
         float tx  = sharpenBlend(cx - px0);
         float tz  = sharpenBlend(cz - pz0);
 
-        GotBiomeDensityParams.Params p00 = GotBiomeDensityParams.forColor(BiomemapLoader.getRawPixel(px0,     pz0));
-        GotBiomeDensityParams.Params p10 = GotBiomeDensityParams.forColor(BiomemapLoader.getRawPixel(px0 + 1, pz0));
-        GotBiomeDensityParams.Params p01 = GotBiomeDensityParams.forColor(BiomemapLoader.getRawPixel(px0,     pz0 + 1));
-        GotBiomeDensityParams.Params p11 = GotBiomeDensityParams.forColor(BiomemapLoader.getRawPixel(px0 + 1, pz0 + 1));
+        GotBiomePalette palette = map.palette();
+        GotBiomeDensityParams.Params p00 = palette.params(map.paletteIndex(px0,     pz0));
+        GotBiomeDensityParams.Params p10 = palette.params(map.paletteIndex(px0 + 1, pz0));
+        GotBiomeDensityParams.Params p01 = palette.params(map.paletteIndex(px0,     pz0 + 1));
+        GotBiomeDensityParams.Params p11 = palette.params(map.paletteIndex(px0 + 1, pz0 + 1));
 
         float w00 = (1f - tx) * (1f - tz);
         float w10 = tx        * (1f - tz);
         float w01 = (1f - tx) * tz;
         float w11 = tx        * tz;
 
-        float depth = p00.depth * w00 + p10.depth * w10 + p01.depth * w01 + p11.depth * w11;
-        float scale = p00.scale * w00 + p10.scale * w10 + p01.scale * w01 + p11.scale * w11;
-
-        return new float[]{ depth, scale };
+        out[0] = p00.depth * w00 + p10.depth * w10 + p01.depth * w01 + p11.depth * w11;
+        out[1] = p00.scale * w00 + p10.scale * w10 + p01.scale * w01 + p11.scale * w11;
     }
 
     // ── Interpolation helpers ─────────────────────────────────────────────
@@ -570,17 +1204,41 @@ public final class GotChunkGenerator extends ChunkGenerator {
     // ── ChunkGenerator boilerplate ────────────────────────────────────────
 
     /**
-     * Estimates the surface Y for structure placement and heightmaps.
-     * The blended {@code depth} is the expected zero-crossing of the density
-     * function (noise averages to 0), so it is a good approximation of the surface.
+     * Returns the first free Y above the topmost block matching {@code type}.
+     *
+     * <p>In HEIGHTFIELD mode this is analytic: the column surface is computed
+     * once (four corner noise samples) and the answer follows from whether the
+     * heightmap counts fluid.  In NOISE_3D mode the column is scanned top-down
+     * with the exact density.
      */
     @Override
     public int getBaseHeight(int x, int z, Heightmap.@NotNull Types type,
                              @NotNull LevelHeightAccessor level,
                              @NotNull RandomState random) {
-        if (!BiomemapLoader.isLoaded()) return SEA_LEVEL;
-        float[] bp = bilinearBlend(x, z);
-        return Mth.clamp(Mth.floor(bp[0]), level.getMinY(), level.getMaxY());
+        if (!context.map().isLoaded()) return SEA_LEVEL;
+        context.ensureNoiseSeed(random);
+
+        int minY = level.getMinY();
+        int maxY = level.getMaxY();
+        int sea  = getSeaLevel();
+        boolean fluidCounts = type.isOpaque().test(settings.value().defaultFluid());
+
+        int topSolid;
+        if (terrainMode == GotTerrainMode.HEIGHTFIELD) {
+            topSolid = topSolidY(columnSurface(x, z), minY, maxY);
+        } else {
+            GotBlendField field = context.blendFieldAt(x, z);
+            float depth = field.depth(x, z);
+            float scale = field.scale(x, z);
+            int   seed  = context.noiseSeed();
+            topSolid = minY - 1;
+            for (int y = maxY - 1; y >= minY; y--) {
+                if (cornerDensity3d(x, y, z, depth, scale, seed) > 0f) { topSolid = y; break; }
+            }
+        }
+
+        int top = fluidCounts && sea > topSolid ? Math.min(sea, maxY - 1) : topSolid;
+        return top + 1;
     }
 
     @Override
@@ -589,18 +1247,40 @@ public final class GotChunkGenerator extends ChunkGenerator {
                                               @NotNull RandomState random) {
         int   minY  = level.getMinY();
         int   sea   = getSeaLevel();
-        float[] bp  = BiomemapLoader.isLoaded() ? bilinearBlend(x, z)
-                : new float[]{ SEA_LEVEL, 10f };
-        float depth = bp[0];
-        float scale = bp[1];
+        BlockState stone = Blocks.STONE.defaultBlockState();
+        BlockState fluid = settings.value().defaultFluid();
+        BlockState air   = Blocks.AIR.defaultBlockState();
 
         BlockState[] states = new BlockState[level.getHeight()];
+
+        boolean loaded = context.map().isLoaded();
+        if (!loaded || terrainMode == GotTerrainMode.HEIGHTFIELD) {
+            // Solid / fluid / air by Y interval from the analytic surface.
+            float surface = SEA_LEVEL;
+            if (loaded) {
+                context.ensureNoiseSeed(random);
+                surface = columnSurface(x, z);
+            }
+            int topSolid = topSolidY(surface, minY, minY + states.length);
+            int solidEnd = topSolid - minY + 1;                        // exclusive
+            int fluidEnd = Math.max(solidEnd, Math.min(states.length, sea - minY + 1));
+            Arrays.fill(states, 0,        solidEnd,      stone);
+            Arrays.fill(states, solidEnd, fluidEnd,      fluid);
+            Arrays.fill(states, fluidEnd, states.length, air);
+            return new NoiseColumn(minY, states);
+        }
+
+        context.ensureNoiseSeed(random);
+        GotBlendField field = context.blendFieldAt(x, z);
+        float depth = field.depth(x, z);
+        float scale = field.scale(x, z);
+        int   seed  = context.noiseSeed();
         for (int i = 0; i < states.length; i++) {
             int   y       = minY + i;
-            float density = cornerDensity(x, y, z, depth, scale, noiseSeed);
-            if      (density > 0f) states[i] = Blocks.STONE.defaultBlockState();
-            else if (y <= sea)     states[i] = settings.value().defaultFluid();
-            else                   states[i] = Blocks.AIR.defaultBlockState();
+            float density = cornerDensity3d(x, y, z, depth, scale, seed);
+            if      (density > 0f) states[i] = stone;
+            else if (y <= sea)     states[i] = fluid;
+            else                   states[i] = air;
         }
         return new NoiseColumn(minY, states);
     }
@@ -611,7 +1291,21 @@ public final class GotChunkGenerator extends ChunkGenerator {
                              @NotNull BiomeManager biomeManager,
                              @NotNull StructureManager structures,
                              @NotNull ChunkAccess chunk) {
+        // The vanilla carver pass builds a NoiseChunk (and its aquifer) for
+        // every chunk before it looks at a single carver — skip it outright
+        // when no biome this generator can place has any.
+        if (!hasCarvers.get()) return;
+        long t0 = stageStart();
         vanilla.applyCarvers(region, seed, random, biomeManager, structures, chunk);
+        stageEnd(GotWorldgenProfiler.Stage.CARVERS, t0);
+    }
+
+    @Override
+    public void applyBiomeDecoration(@NotNull WorldGenLevel level, @NotNull ChunkAccess chunk,
+                                     @NotNull StructureManager structures) {
+        long t0 = stageStart();
+        super.applyBiomeDecoration(level, chunk, structures);
+        stageEnd(GotWorldgenProfiler.Stage.FEATURES, t0);
     }
 
     @Override
@@ -632,14 +1326,16 @@ public final class GotChunkGenerator extends ChunkGenerator {
     @Override
     public void addDebugScreenInfo(java.util.List<String> info,
                                    RandomState random, BlockPos pos) {
-        if (!BiomemapLoader.isLoaded()) return;
+        if (!context.map().isLoaded()) return;
         int wx = pos.getX(), wy = pos.getY(), wz = pos.getZ();
-        float[] bp  = bilinearBlend(wx, wz);
-        float density = cornerDensity(wx, wy, wz, bp[0], bp[1], noiseSeed);
-        int[] px = BiomemapLoader.getPixelForWorld(wx, wz);
+        GotBlendField field = context.blendFieldAt(wx, wz);
+        float depth   = field.depth(wx, wz);
+        float scale   = field.scale(wx, wz);
+        float density = cornerDensity(wx, wy, wz, depth, scale, context.noiseSeed(), terrainMode);
+        int[] px = field.map().pixelForWorld(wx, wz);
         info.add(String.format(
-                "[GoT] px=(%d,%d)  depth=%.1f  scale=%.1f  density@Y%d=%.2f  sea=%d",
-                px[0], px[1], bp[0], bp[1], wy, density, SEA_LEVEL));
+                "[GoT] map=%s px=(%d,%d)  depth=%.1f  scale=%.1f  density@Y%d=%.2f  sea=%d  mode=%s",
+                context.mapId(), px[0], px[1], depth, scale, wy, density, SEA_LEVEL, terrainMode.getSerializedName()));
     }
 
     // ── Fallback flat fill (pre-load) ─────────────────────────────────────
@@ -650,18 +1346,33 @@ public final class GotChunkGenerator extends ChunkGenerator {
         int minY = ns.minY();
         int maxY = minY + ns.height();
         int sea  = getSeaLevel();
-        ChunkPos pos = chunk.getPos();
-        for (int lx = 0; lx < 16; lx++) {
-            for (int lz = 0; lz < 16; lz++) {
-                for (int y = minY; y < maxY; y++) {
-                    BlockState state;
-                    if      (y < sea)  state = Blocks.STONE.defaultBlockState();
-                    else if (y == sea) state = settings.value().defaultFluid();
-                    else               state = Blocks.AIR.defaultBlockState();
-                    chunk.setBlockState(new BlockPos(lx, y, lz), state, false);
+
+        FillScratch scratch = FILL_SCRATCH.get();
+        scratch.resetColumns();
+        byte[] mat = scratch.section;
+        int sectionCount = chunk.getSectionsCount();
+
+        for (int si = 0; si < sectionCount; si++) {
+            int sectionMinY = SectionPos.sectionToBlockCoord(chunk.getSectionYFromSectionIndex(si));
+            int solid = 0, fluid = 0;
+            for (int ly = 0; ly < 16; ly++) {
+                int  y = sectionMinY + ly;
+                byte m;
+                if      (y < minY || y >= maxY) m = MAT_AIR;
+                else if (y < sea)               m = MAT_SOLID;
+                else if (y == sea)              m = MAT_FLUID;
+                else                            m = MAT_AIR;
+                Arrays.fill(mat, ly << 8, (ly + 1) << 8, m);
+                if (m == MAT_SOLID) solid += 256;
+                if (m == MAT_FLUID) fluid += 256;
+                if (m != MAT_AIR) {
+                    for (int i = 0; i < 256; i++) scratch.recordTop(i & 15, i >> 4, y, m);
                 }
             }
+            writeSection(chunk, si, mat, solid, fluid);
         }
+
+        primeWorldgenHeightmaps(chunk, scratch);
         return CompletableFuture.completedFuture(chunk);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,257 @@
+package net.got.worldgen;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import net.minecraft.util.Mth;
+
+/**
+ * Approximate terrain surface heights computed straight from the biomemap and
+ * the generator's height function, without generating — or even loading — a
+ * chunk.  Answers "how high is the ground around here?" for spawn selection,
+ * map teleports and structure placement, from any thread.
+ *
+ * <h2>Levels</h2>
+ * <p>Level {@code k} samples the surface every {@code CELL_H << k} blocks:
+ * 4 blocks at level 0, doubling up to 8192 at level {@value #LEVELS} − 1.
+ * Every sample sits on a noise-cell corner, so each one is the generator's
+ * own corner height ({@link GotChunkGenerator#cornerSurfaceAt}); coarser
+ * levels just skip corners instead of averaging them.  Levels are filled
+ * lazily in {@value #TILE}² -sample tiles (plus a one-sample overlap so any
+ * interpolation stays inside one tile), held in a bounded LRU of
+ * {@value #CACHE_SIZE} tiles per generator.  A level-0 tile covers 128 × 128
+ * blocks and costs about a thousand corner evaluations to fill.
+ *
+ * <h2>Accuracy</h2>
+ * <ul>
+ *   <li>{@link #surfaceY} interpolates level 0 bilinearly between the four
+ *       enclosing corners.  In HEIGHTFIELD mode that is exactly how the
+ *       stone surface is filled, so the answer matches a generated chunk up
+ *       to float rounding in the warp (the lattice is evaluated per point
+ *       here, per chunk there).  In NOISE_3D mode it interpolates the corner
+ *       columns' top surfaces, which can miss an overhang's lip.</li>
+ *   <li>It is the noise surface only: carvers, features and structures are
+ *       not applied, and water is ignored — over the sea it reports the
+ *       ocean floor.</li>
+ *   <li>{@link #minMaxY} reads the finest level with at most
+ *       {@value #REGION_SAMPLES} samples across the region; a peak or pit
+ *       narrower than that spacing can be missed.  Treat it as an estimate,
+ *       not a bound.</li>
+ * </ul>
+ *
+ * <h2>Invalidation</h2>
+ * <p>Each tile records the {@link BiomemapSnapshot#version()} and noise seed
+ * it was sampled with, and a lookup that finds a stale tile rebuilds it —
+ * the same scheme as {@link GotBlendField}, so a {@code /reload} needs no
+ * lock.  Queries made before the world's seed is known (see
+ * {@link GotChunkGenerator#heightField}) are answered and then corrected.
+ */
+public final class GotHeightField {
+
+    /** Number of resolution levels. */
+    public static final int LEVELS = 12;
+
+    private static final int TILE_SHIFT = 5;
+    private static final int TILE       = 1 << TILE_SHIFT;
+    private static final int TILE_MASK  = TILE - 1;
+    /** Samples per tile row, including the overlap with the next tile. */
+    private static final int STRIDE     = TILE + 1;
+
+    /** Tiles kept per generator — about 4 KiB each. */
+    static final int CACHE_SIZE = 2048;
+
+    /** {@link #minMaxY} picks the finest level with at most this many samples across the region. */
+    private static final int REGION_SAMPLES = 64;
+
+    private static final int CELL_H = GotChunkGenerator.CELL_H;
+
+    /** Lowest and highest surface Y of a region, as {@link #surfaceY} reports them. */
+    public record MinMax(int min, int max) {}
+
+    private static final class Tile {
+        final int     version;
+        final int     seed;
+        /** [sz * STRIDE + sx] — surface height of each sample. */
+        final float[] heights;
+        final float   min;
+        final float   max;
+
+        Tile(int version, int seed, float[] heights) {
+            this.version = version;
+            this.seed    = seed;
+            this.heights = heights;
+            float lo = Float.POSITIVE_INFINITY, hi = Float.NEGATIVE_INFINITY;
+            for (float h : heights) {
+                lo = Math.min(lo, h);
+                hi = Math.max(hi, h);
+            }
+            this.min = lo;
+            this.max = hi;
+        }
+    }
+
+    private final GotChunkGenerator      generator;
+    private final GotTerrainContext      context;
+    private final LoadingCache<Long, Tile> tiles;
+
+    GotHeightField(GotChunkGenerator generator, GotTerrainContext context) {
+        this.generator = generator;
+        this.context   = context;
+        this.tiles     = CacheBuilder.newBuilder()
+                .maximumSize(CACHE_SIZE)
+                .concurrencyLevel(Math.max(4, Runtime.getRuntime().availableProcessors()))
+                .build(CacheLoader.from(this::build));
+    }
+
+    // ── Queries ───────────────────────────────────────────────────────────
+
+    /**
+     * The first free Y above the terrain at column {@code (x, z)} — the
+     * generator's {@code OCEAN_FLOOR_WG} height, clamped to the dimension.
+     * Returns sea level while the biomemap is not loaded, as
+     * {@link GotChunkGenerator#getBaseHeight} does.
+     */
+    public int surfaceY(int x, int z) {
+        return clampY(surface(x, z));
+    }
+
+    /**
+     * The unrounded terrain surface at column {@code (x, z)}: solid below,
+     * open above.
+     */
+    public float surface(int x, int z) {
+        return surface(x, z, 0);
+    }
+
+    /**
+     * The surface at column {@code (x, z)} interpolated between the samples
+     * of {@code level}, one every {@link #spacing spacing(level)} blocks.
+     * For overviews — a map texel, a region's shape — where level 0 would
+     * fill far more tiles than the answer needs.
+     */
+    public float surface(int x, int z, int level) {
+        BiomemapSnapshot map = context.map();
+        if (!map.isLoaded()) return GotChunkGenerator.SEA_LEVEL;
+
+        int   step = spacing(level);
+        int   sx   = Math.floorDiv(x, step);
+        int   sz   = Math.floorDiv(z, step);
+        float tx   = (x - sx * step) / (float) step;
+        float tz   = (z - sz * step) / (float) step;
+        float[] h = tile(map, level, sx >> TILE_SHIFT, sz >> TILE_SHIFT).heights;
+        int i = (sz & TILE_MASK) * STRIDE + (sx & TILE_MASK);
+        return lerp(tz, lerp(tx, h[i],          h[i + 1]),
+                        lerp(tx, h[i + STRIDE], h[i + STRIDE + 1]));
+    }
+
+    /**
+     * Estimated lowest and highest {@link #surfaceY} over the block rectangle
+     * {@code [minX, maxX] × [minZ, maxZ]} (inclusive, either order).  Cost
+     * depends on the region's shape, not its size: at most about
+     * {@value #REGION_SAMPLES}² samples, mostly answered from whole-tile
+     * bounds.
+     */
+    public MinMax minMaxY(int minX, int minZ, int maxX, int maxZ) {
+        BiomemapSnapshot map = context.map();
+        if (!map.isLoaded()) return new MinMax(GotChunkGenerator.SEA_LEVEL, GotChunkGenerator.SEA_LEVEL);
+        int x0 = Math.min(minX, maxX), x1 = Math.max(minX, maxX);
+        int z0 = Math.min(minZ, maxZ), z1 = Math.max(minZ, maxZ);
+
+        long span  = Math.max((long) x1 - x0, (long) z1 - z0);
+        int  level = 0;
+        while (level < LEVELS - 1 && (span >> level) / CELL_H > REGION_SAMPLES) level++;
+        int step = spacing(level);
+
+        // Samples enclosing the region.
+        int s0x = Math.floorDiv(x0, step), s1x = -Math.floorDiv(-x1, step);
+        int s0z = Math.floorDiv(z0, step), s1z = -Math.floorDiv(-z1, step);
+
+        // A tile also holds the first sample of the next, so the last sample needs no tile of its own.
+        int t1x = Math.max(s0x >> TILE_SHIFT, (s1x - 1) >> TILE_SHIFT);
+        int t1z = Math.max(s0z >> TILE_SHIFT, (s1z - 1) >> TILE_SHIFT);
+
+        float lo = Float.POSITIVE_INFINITY, hi = Float.NEGATIVE_INFINITY;
+        for (int tz = s0z >> TILE_SHIFT; tz <= t1z; tz++) {
+            int a0z = Math.max(s0z, tz << TILE_SHIFT), a1z = Math.min(s1z, (tz << TILE_SHIFT) + TILE);
+            for (int tx = s0x >> TILE_SHIFT; tx <= t1x; tx++) {
+                int  a0x  = Math.max(s0x, tx << TILE_SHIFT), a1x = Math.min(s1x, (tx << TILE_SHIFT) + TILE);
+                Tile tile = tile(map, level, tx, tz);
+                if (a0x == tx << TILE_SHIFT && a1x == (tx << TILE_SHIFT) + TILE
+                        && a0z == tz << TILE_SHIFT && a1z == (tz << TILE_SHIFT) + TILE) {
+                    lo = Math.min(lo, tile.min);
+                    hi = Math.max(hi, tile.max);
+                    continue;
+                }
+                for (int sz = a0z; sz <= a1z; sz++) {
+                    int row = (sz - (tz << TILE_SHIFT)) * STRIDE - (tx << TILE_SHIFT);
+                    for (int sx = a0x; sx <= a1x; sx++) {
+                        float h = tile.heights[row + sx];
+                        lo = Math.min(lo, h);
+                        hi = Math.max(hi, h);
+                    }
+                }
+            }
+        }
+        return new MinMax(clampY(lo), clampY(hi));
+    }
+
+    /** Sample spacing of {@code level} in blocks. */
+    public static int spacing(int level) {
+        return CELL_H << level;
+    }
+
+    /**
+     * Drops every cached tile.  Never needed for correctness — stale tiles
+     * are rebuilt on lookup — but lets benchmarks start cold.
+     */
+    public void invalidateAll() {
+        tiles.invalidateAll();
+    }
+
+    // ── Tiles ─────────────────────────────────────────────────────────────
+
+    private Tile tile(BiomemapSnapshot map, int level, int tileX, int tileZ) {
+        long key = key(level, tileX, tileZ);
+        Tile t = tiles.getUnchecked(key);
+        if (t.version != map.version() || t.seed != context.noiseSeed()) {
+            tiles.invalidate(key);
+            t = tiles.getUnchecked(key);
+        }
+        return t;
+    }
+
+    /** Level in the top 6 bits, then 29-bit tile X and tile Z. */
+    private static long key(int level, int tileX, int tileZ) {
+        return (long) level << 58 | (tileX & 0x1FFF_FFFFL) << 29 | tileZ & 0x1FFF_FFFFL;
+    }
+
+    private Tile build(long key) {
+        int level = (int) (key >>> 58);
+        int tileX = (int) (key << 6  >> 35);
+        int tileZ = (int) (key << 35 >> 35);
+        int step  = spacing(level);
+
+        BiomemapSnapshot map  = context.map();
+        int              seed = context.noiseSeed();
+        float[] blend   = new float[2];
+        float[] heights = new float[STRIDE * STRIDE];
+        int originX = tileX * TILE * step;
+        int originZ = tileZ * TILE * step;
+        for (int sz = 0; sz < STRIDE; sz++) {
+            for (int sx = 0; sx < STRIDE; sx++) {
+                heights[sz * STRIDE + sx] = generator.cornerSurfaceAt(
+                        map, originX + sx * step, originZ + sz * step, seed, blend);
+            }
+        }
+        return new Tile(map.version(), seed, heights);
+    }
+
+    // ── Helpers ───────────────────────────────────────────────────────────
+
+    private int clampY(float surface) {
+        int minY = generator.getMinY();
+        return Mth.clamp(Mth.ceil(surface), minY, minY + generator.getGenDepth());
+    }
+
+    private static float lerp(float t, float a, float b) { return a + t * (b - a); }
+}
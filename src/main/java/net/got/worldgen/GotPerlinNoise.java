@@ -1,5 +1,8 @@
 package net.got.worldgen;
 
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
 /**
  * Stateless 3D Perlin gradient noise.
  *
@@ -25,9 +28,20 @@ package net.got.worldgen;
  * <p>The quintic fade curve {@code 6t⁵ − 15t⁴ + 10t³} zero-clamps both the
  * first and second derivatives at lattice boundaries, giving C² continuity across
  * cell edges.  Multi-octave sums therefore have no visible grid-aligned creases.
+ *
+ * <h3>Batch evaluation</h3>
+ * <p>{@link #sampleLattice} evaluates a whole X × Z lattice in one call.
+ * When the JVM is started with {@code --add-modules jdk.incubator.vector}
+ * each lattice row runs lane-wide through {@link GotPerlinNoiseVector};
+ * otherwise — or with {@code -Dgot.noise.scalar=true} — it loops over
+ * {@link #sample}.  Both paths are bit-identical, so enabling SIMD never
+ * changes generated terrain; the kernel is checked against {@link #sample}
+ * when first used and left off if it disagrees.
  */
 public final class GotPerlinNoise {
 
+    private static final Logger LOGGER = LogUtils.getLogger();
+
     /**
      * Normalisation factor applied inside {@link #sample} so callers always
      * receive values in [−1, 1].  The raw 3D Perlin gradient sum is bounded
@@ -36,8 +50,59 @@ public final class GotPerlinNoise {
      */
     private static final float NORM = 1.0f / 0.75f;
 
+    /** Row for the start-up check: both signs, exact lattice points, cell edges, large magnitudes. */
+    private static final float[] SELF_CHECK_XS = {
+            0f, -0f, 0.5f, -0.5f, 1f, -1f, 0.9999999f, -0.9999999f,
+            1.5e-7f, -1.5e-7f, 7.25f, -7.25f, 123.456f, -123.456f, 2047.999f, -2048f,
+            1.0e5f + 0.125f, -1.0e5f - 0.125f, 0.3f, -0.3f, 15.75f, -15.75f, 64f, -64f,
+            3.14159f, -2.71828f, 511.5f, -511.5f, 8.000001f, -8.000001f, 40000.5f, -40000.5f
+    };
+
+    /** Vector lanes available to the batch API, or 0 when running scalar. */
+    private static final int VECTOR_LANES = detectVectorLanes();
+
     private GotPerlinNoise() {}
 
+    /**
+     * Probes for the incubating Vector API.  Any linkage failure — module not
+     * resolved, not readable from the mod layer, no usable species — or a
+     * kernel that does not reproduce {@link #sample} bit for bit leaves the
+     * batch API on the scalar path.
+     */
+    private static int detectVectorLanes() {
+        if (Boolean.getBoolean("got.noise.scalar")) return 0;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return 0;
+        try {
+            int lanes = GotPerlinNoiseVector.lanes();
+            if (lanes <= 1) return 0;
+            if (!vectorMatchesScalar(SELF_CHECK_XS, 0.37f, -12.5f, 0x3F9A1B)
+                    || !vectorMatchesScalar(SELF_CHECK_XS, -3.0f, 1.0e4f + 0.25f, -7)) {
+                LOGGER.warn("[GoT] SIMD noise kernel disagrees with scalar sample(); using the scalar path");
+                return 0;
+            }
+            return lanes;
+        } catch (Throwable t) {
+            return 0;
+        }
+    }
+
+    /**
+     * Whether {@link GotPerlinNoiseVector#sampleRow} returns exactly the bits of
+     * {@link #sample} for row {@code xs} at {@code (y, z)}, tail excluded.
+     * Only call when the kernel is loadable.
+     */
+    static boolean vectorMatchesScalar(float[] xs, float y, float z, int seed) {
+        float[] out  = new float[xs.length];
+        int     done = GotPerlinNoiseVector.sampleRow(xs, 0, xs.length, y, z, seed, NORM, out, 0);
+        for (int i = 0; i < done; i++) {
+            if (Float.floatToRawIntBits(out[i]) != Float.floatToRawIntBits(sample(xs[i], y, z, seed))) return false;
+        }
+        return true;
+    }
+
+    /** {@code true} when {@link #sampleLattice} runs on the Vector API. */
+    public static boolean isVectorised() { return VECTOR_LANES > 0; }
+
     // ── Public API ────────────────────────────────────────────────────────
 
     /**
@@ -112,6 +177,30 @@ public final class GotPerlinNoise {
         return coarse * 0.50f + mid * 0.35f + fine * 0.15f;
     }
 
+    // ── Batch API ─────────────────────────────────────────────────────────
+
+    /**
+     * Samples {@link #sample} over the lattice {@code xs × zs} at a fixed Y.
+     *
+     * <p>{@code out[iz * xs.length + ix] = sample(xs[ix], y, zs[iz], seed)},
+     * bit-for-bit.  X is the vectorised axis, so pass the longer dimension as
+     * {@code xs} where there is a choice.
+     *
+     * @param out destination, at least {@code xs.length * zs.length} long
+     */
+    public static void sampleLattice(float[] xs, float y, float[] zs, int seed, float[] out) {
+        int nx = xs.length;
+        for (int iz = 0; iz < zs.length; iz++) {
+            int row  = iz * nx;
+            int done = VECTOR_LANES > 0 && nx >= VECTOR_LANES
+                    ? GotPerlinNoiseVector.sampleRow(xs, 0, nx, y, zs[iz], seed, NORM, out, row)
+                    : 0;
+            for (int ix = done; ix < nx; ix++) {
+                out[row + ix] = sample(xs[ix], y, zs[iz], seed);
+            }
+        }
+    }
+
     // ── Internal maths ────────────────────────────────────────────────────
 
     /**
@@ -0,0 +1,433 @@
+package net.got.worldgen;
+
+import net.got.GotMod;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.util.StringRepresentable;
+import net.minecraft.world.level.ChunkPos;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /got pregen} — resumable pregeneration of the biomemap footprint.
+ *
+ * <h2>Order</h2>
+ * <p>Chunks are visited along a Hilbert curve over the map's chunk grid
+ * (padded to a power of two; indices outside the map are skipped).
+ * Consecutive chunks are always neighbours and every aligned square of the
+ * curve is finished before the next begins, so region files, blend fields
+ * and warp tiles stay hot while the job sweeps through them.
+ *
+ * <h2>Driving the chunk system</h2>
+ * <p>Each selected chunk gets a radius-0 region ticket — enough to bring it
+ * to {@code FULL}, generating its neighbours to the statuses that requires.
+ * At most {@code window} tickets are outstanding; once a chunk is loaded its
+ * ticket is dropped and the chunk unloads and saves normally.
+ *
+ * <h2>Throttle</h2>
+ * <p>Once a second the window is adjusted against the server's average tick
+ * time: halved when MSPT is over the target, grown by a few chunks when it is
+ * comfortably under.  Players keep a playable server while the job soaks up
+ * whatever headroom remains.
+ *
+ * <h2>Checkpointing</h2>
+ * <p>Progress lives in {@link GotPregenData} and is marked dirty every few
+ * seconds, so it is written with the world's regular autosave.  A job that
+ * was running when the server stopped resumes on the next start
+ * ({@link #resumeAll}).
+ *
+ * <h2>Modes</h2>
+ * <ul>
+ *   <li>{@code all} — every chunk of the footprint;</li>
+ *   <li>{@code land} — chunks touching at least one non-water pixel;</li>
+ *   <li>{@code no_deep_ocean} — everything except chunks that see only deep
+ *       ocean, which is most of the area and rarely visited.</li>
+ * </ul>
+ * <p>Eligibility looks at every pixel the chunk's columns can sample — within
+ * the domain warp's reach plus the lattice error, and the bilinear
+ * neighbour beyond — so coastlines bent outward by the warp are never left
+ * out.  It is the same margin {@link GotBiomeSource} searches with.
+ */
+public final class GotPregen {
+
+    public static final int DEFAULT_TARGET_MSPT = 40;
+
+    public enum Mode implements StringRepresentable {
+        ALL("all"),
+        LAND("land"),
+        NO_DEEP_OCEAN("no_deep_ocean");
+
+        private final String name;
+
+        Mode(String name) { this.name = name; }
+
+        @Override
+        public @NotNull String getSerializedName() { return name; }
+
+        static Mode byName(String name) {
+            for (Mode m : values()) if (m.name.equals(name)) return m;
+            return ALL;
+        }
+    }
+
+    private static final TicketType<ChunkPos> PREGEN_TICKET =
+            TicketType.create("got_pregen", Comparator.comparingLong(ChunkPos::toLong));
+
+    private static final int MIN_WINDOW        = 4;
+    private static final int MAX_WINDOW        = 512;
+    private static final int INITIAL_WINDOW    = 32;
+    /** Hilbert indices examined per tick, bounding the cost of long skipped stretches. */
+    private static final int SCAN_BUDGET       = 8192;
+    private static final int CHECKPOINT_TICKS  = 100;
+    private static final int REPORT_TICKS      = 20 * 60 * 5;
+
+    /** Active jobs by dimension. */
+    private static final Map<ServerLevel, Job> JOBS = new HashMap<>();
+
+    private GotPregen() {}
+
+    // ── Commands ──────────────────────────────────────────────────────────
+
+    public static int start(CommandSourceStack source, Mode mode, int targetMspt) {
+        ServerLevel level = source.getLevel();
+        if (!(level.getChunkSource().getGenerator() instanceof GotChunkGenerator generator)) {
+            source.sendFailure(Component.literal("This dimension is not generated from the biomemap"));
+            return 0;
+        }
+        if (!generator.context().map().isLoaded()) {
+            source.sendFailure(Component.literal("Biomemap " + generator.context().mapId() + " is not loaded"));
+            return 0;
+        }
+        if (JOBS.containsKey(level)) {
+            source.sendFailure(Component.literal("Pregeneration is already running here; use /got pregen status"));
+            return 0;
+        }
+
+        GotPregenData data = GotPregenData.get(level);
+        if (data.mode != mode && data.cursor > 0) {
+            source.sendFailure(Component.literal("A " + data.mode.getSerializedName()
+                    + " job is checkpointed here; resume it with that mode or /got pregen reset"));
+            return 0;
+        }
+        data.mode       = mode;
+        data.targetMspt = targetMspt;
+        data.running    = true;
+        data.setDirty();
+        launch(level, data);
+
+        Job job = JOBS.get(level);
+        source.sendSuccess(() -> Component.literal(String.format(
+                "Pregenerating %s (%s, ≈%,d chunks, target %d mspt)%s",
+                level.dimension().location(), mode.getSerializedName(), job.estimatedTotal,
+                targetMspt, data.cursor > 0 ? " — resuming from checkpoint" : "")), true);
+        return 1;
+    }
+
+    public static int stop(CommandSourceStack source) {
+        ServerLevel level = source.getLevel();
+        Job job = JOBS.get(level);
+        if (job == null) {
+            source.sendFailure(Component.literal("No pregeneration is running here"));
+            return 0;
+        }
+        job.stop(false);
+        source.sendSuccess(() -> Component.literal("Pregeneration paused; progress is checkpointed"), true);
+        return 1;
+    }
+
+    public static int reset(CommandSourceStack source) {
+        ServerLevel level = source.getLevel();
+        if (JOBS.containsKey(level)) JOBS.get(level).stop(false);
+        GotPregenData.get(level).reset();
+        source.sendSuccess(() -> Component.literal("Pregeneration progress cleared"), true);
+        return 1;
+    }
+
+    public static int status(CommandSourceStack source) {
+        ServerLevel   level = source.getLevel();
+        Job           job   = JOBS.get(level);
+        GotPregenData data  = GotPregenData.get(level);
+        if (job == null && data.cursor == 0) {
+            source.sendSuccess(() -> Component.literal("No pregeneration recorded for this dimension"), false);
+            return 0;
+        }
+        String line = job != null ? job.statusLine() : String.format(
+                "Paused: %,d chunks generated, %,d skipped (%s)",
+                data.generated, data.skipped, data.mode.getSerializedName());
+        source.sendSuccess(() -> Component.literal(line), false);
+        return 1;
+    }
+
+    // ── Lifecycle ─────────────────────────────────────────────────────────
+
+    /** Restarts every job that was running when the server last stopped. */
+    public static void resumeAll(MinecraftServer server) {
+        for (ServerLevel level : server.getAllLevels()) {
+            if (!(level.getChunkSource().getGenerator() instanceof GotChunkGenerator generator)) continue;
+            if (!generator.context().map().isLoaded()) continue;
+            GotPregenData data = GotPregenData.get(level);
+            if (data.running) {
+                launch(level, data);
+                GotMod.LOGGER.info("[GoT] Resuming pregeneration of {} ({})",
+                        level.dimension().location(), data.mode.getSerializedName());
+            }
+        }
+    }
+
+    /** Checkpoints and detaches every job; they stay marked running for {@link #resumeAll}. */
+    public static void suspendAll() {
+        for (Job job : List.copyOf(JOBS.values())) job.stop(true);
+    }
+
+    private static void launch(ServerLevel level, GotPregenData data) {
+        Job job = new Job(level, data);
+        JOBS.put(level, job);
+        GotMod.queueServerWork(1, job::tick);
+    }
+
+    // ── Job ───────────────────────────────────────────────────────────────
+
+    private static final class Job {
+        final ServerLevel   level;
+        final GotPregenData data;
+        /** The map the footprint and eligibility are taken from, fixed for the job. */
+        final BiomemapSnapshot map;
+        /** Blocks around a chunk whose pixels count towards eligibility. */
+        final int           reach;
+        final int           minChunkX, minChunkZ, chunksX, chunksZ;
+        /** Hilbert side: smallest power of two covering the chunk grid. */
+        final int           side;
+        final long          end;
+        final boolean[]     waterIndex, deepOceanIndex;
+        final long          estimatedTotal;
+
+        final List<Long> inFlight = new ArrayList<>();   // Hilbert indices
+        final int[]      xy       = new int[2];
+        /** Next Hilbert index to examine; {@code data.cursor} only holds checkpoints. */
+        long   cursor;
+        int    window = INITIAL_WINDOW;
+        int    ticks;
+        long   lastMillis;
+        long   rateWindowStart;
+        long   rateWindowCount;
+        double rate;                                      // chunks per second, smoothed
+        boolean stopped;
+
+        Job(ServerLevel level, GotPregenData data) {
+            this.level = level;
+            this.data  = data;
+            GotTerrainContext context = ((GotChunkGenerator) level.getChunkSource().getGenerator()).context();
+            this.map   = context.map();
+            this.reach = (int) Math.ceil(GotChunkGenerator.WARP_REACH + context.lattice().errorBound());
+
+            int mapW = map.width()  * map.scale();
+            int mapH = map.height() * map.scale();
+            this.minChunkX = Math.floorDiv(-mapW / 2, 16);
+            this.minChunkZ = Math.floorDiv(-mapH / 2, 16);
+            this.chunksX   = Math.floorDiv(mapW / 2 - 1, 16) - minChunkX + 1;
+            this.chunksZ   = Math.floorDiv(mapH / 2 - 1, 16) - minChunkZ + 1;
+            this.side      = Integer.highestOneBit(Math.max(chunksX, chunksZ) - 1) << 1;
+            this.end       = (long) side * side;
+
+            GotBiomePalette palette = map.palette();
+            this.waterIndex     = new boolean[palette.size()];
+            this.deepOceanIndex = new boolean[palette.size()];
+            for (int i = 0; i < palette.size(); i++) {
+                waterIndex[i]     = palette.isWater(i);
+                deepOceanIndex[i] = palette.biome(i).getPath().equals("deep_ocean");
+            }
+            this.estimatedTotal = estimateTotal();
+            this.cursor         = data.cursor;
+            this.lastMillis     = System.currentTimeMillis();
+            this.rateWindowStart = lastMillis;
+        }
+
+        void tick() {
+            if (stopped) return;
+            ticks++;
+            ServerChunkCache cache = level.getChunkSource();
+
+            // Retire loaded chunks.
+            for (int i = inFlight.size() - 1; i >= 0; i--) {
+                long d = inFlight.get(i);
+                ChunkPos pos = chunkAt(d);
+                if (cache.getChunkNow(pos.x, pos.z) != null) {
+                    cache.removeRegionTicket(PREGEN_TICKET, pos, 0, pos);
+                    inFlight.remove(i);
+                    data.generated++;
+                    rateWindowCount++;
+                }
+            }
+
+            if (ticks % 20 == 0) throttle();
+
+            // Top up the window.
+            int scanned = 0;
+            while (inFlight.size() < window && scanned < SCAN_BUDGET && cursor < end) {
+                long d = cursor++;
+                scanned++;
+                hilbert(d, xy);
+                if (xy[0] >= chunksX || xy[1] >= chunksZ) continue;   // padding
+                int cx = minChunkX + xy[0];
+                int cz = minChunkZ + xy[1];
+                if (!eligible(cx, cz)) { data.skipped++; continue; }
+                ChunkPos pos = new ChunkPos(cx, cz);
+                cache.addRegionTicket(PREGEN_TICKET, pos, 0, pos);
+                inFlight.add(d);
+            }
+
+            long now = System.currentTimeMillis();
+            data.elapsedMillis += now - lastMillis;
+            lastMillis = now;
+
+            if (cursor >= end && inFlight.isEmpty()) {
+                GotMod.LOGGER.info("[GoT] Pregeneration of {} complete: {} chunks generated, {} skipped",
+                        level.dimension().location(), data.generated, data.skipped);
+                data.running = false;
+                stop(false);
+                return;
+            }
+            if (ticks % CHECKPOINT_TICKS == 0) checkpoint();
+            if (ticks % REPORT_TICKS == 0) GotMod.LOGGER.info("[GoT] {}", statusLine());
+            GotMod.queueServerWork(1, this::tick);
+        }
+
+        /** AIMD on the window against the target MSPT; also refreshes the rate estimate. */
+        void throttle() {
+            double mspt = level.getServer().getAverageTickTimeNanos() / 1_000_000.0;
+            if (mspt > data.targetMspt) {
+                window = Math.max(MIN_WINDOW, window / 2);
+            } else if (mspt < data.targetMspt * 0.8) {
+                window = Math.min(MAX_WINDOW, window + 4);
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - rateWindowStart >= 10_000) {
+                double instant = rateWindowCount * 1000.0 / (now - rateWindowStart);
+                rate = rate == 0 ? instant : rate * 0.7 + instant * 0.3;
+                rateWindowStart = now;
+                rateWindowCount = 0;
+            }
+        }
+
+        /** Records the lowest unfinished index, so a resume never skips an in-flight chunk. */
+        void checkpoint() {
+            long resume = cursor;
+            for (long d : inFlight) resume = Math.min(resume, d);
+            data.cursor = resume;
+            data.setDirty();
+        }
+
+        void stop(boolean keepRunningFlag) {
+            if (stopped) return;
+            stopped = true;
+            checkpoint();
+            ServerChunkCache cache = level.getChunkSource();
+            for (long d : inFlight) {
+                ChunkPos pos = chunkAt(d);
+                cache.removeRegionTicket(PREGEN_TICKET, pos, 0, pos);
+            }
+            inFlight.clear();
+            if (!keepRunningFlag) data.running = false;
+            JOBS.remove(level);
+        }
+
+        String statusLine() {
+            double pct = estimatedTotal == 0 ? 100.0 : Math.min(100.0, data.generated * 100.0 / estimatedTotal);
+            long   remaining = Math.max(0, estimatedTotal - data.generated);
+            double avg = data.elapsedMillis > 0 ? data.generated * 1000.0 / data.elapsedMillis : 0;
+            double r   = rate > 0 ? rate : avg;
+            String eta = r > 0 ? formatDuration((long) (remaining / r)) : "unknown";
+            return String.format("Pregen %s: %,d / ≈%,d chunks (%.2f%%), %,d skipped, %.1f chunks/s, window %d, ETA %s",
+                    level.dimension().location(), data.generated, estimatedTotal, pct,
+                    data.skipped, r, window, eta);
+        }
+
+        // ── Geometry ──────────────────────────────────────────────────────
+
+        ChunkPos chunkAt(long d) {
+            int[] p = new int[2];
+            hilbert(d, p);
+            return new ChunkPos(minChunkX + p[0], minChunkZ + p[1]);
+        }
+
+        /**
+         * Hilbert index → (x, y) on a {@code side × side} grid; the classic
+         * iterative decode, one quadrant rotation per level.
+         */
+        void hilbert(long d, int[] out) {
+            int x = 0, y = 0;
+            long t = d;
+            for (int s = 1; s < side; s <<= 1) {
+                int rx = (int) (1 & (t >>> 1));
+                int ry = (int) (1 & (t ^ rx));
+                if (ry == 0) {
+                    if (rx == 1) { x = s - 1 - x; y = s - 1 - y; }
+                    int tmp = x; x = y; y = tmp;
+                }
+                x += s * rx;
+                y += s * ry;
+                t >>>= 2;
+            }
+            out[0] = x;
+            out[1] = y;
+        }
+
+        /** Whether the chunk is wanted in this job's mode; see the class comment. */
+        boolean eligible(int cx, int cz) {
+            if (data.mode == Mode.ALL) return true;
+            int[] p0 = map.pixelForWorld((cx << 4) - reach, (cz << 4) - reach);
+            int[] p1 = map.pixelForWorld((cx << 4) + 15 + reach, (cz << 4) + 15 + reach);
+            // The bilinear blend also reads the pixel past the one a column falls in.
+            int   x1 = Math.min(map.width()  - 1, p1[0] + 1);
+            int   z1 = Math.min(map.height() - 1, p1[1] + 1);
+            for (int px = p0[0]; px <= x1; px++) {
+                for (int pz = p0[1]; pz <= z1; pz++) {
+                    int idx = map.paletteIndex(px, pz);
+                    if (data.mode == Mode.LAND ? !waterIndex[idx] : !deepOceanIndex[idx]) return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Eligible pixels × chunks per pixel — a close estimate without
+         * touching 177 M chunks.  Scans the resident level so a paged map
+         * is never read in full.
+         */
+        long estimateTotal() {
+            int level = map.residentLevel();
+            int w = map.levelWidth(level), h = map.levelHeight(level);
+            long pixels = 0;
+            for (int pz = 0; pz < h; pz++) {
+                for (int px = 0; px < w; px++) {
+                    int idx = map.paletteIndex(level, px, pz);
+                    boolean wanted = switch (data.mode) {
+                        case ALL           -> true;
+                        case LAND          -> !waterIndex[idx];
+                        case NO_DEEP_OCEAN -> !deepOceanIndex[idx];
+                    };
+                    if (wanted) pixels++;
+                }
+            }
+            long blocks = (long) map.scale() << level;
+            return pixels * blocks * blocks / 256;
+        }
+    }
+
+    private static String formatDuration(long seconds) {
+        long d = seconds / 86_400, h = (seconds / 3600) % 24, m = (seconds / 60) % 60;
+        return d > 0 ? String.format("%dd %dh %dm", d, h, m)
+             : h > 0 ? String.format("%dh %dm", h, m)
+             : String.format("%dm %ds", m, seconds % 60);
+    }
+}
@@ -0,0 +1,71 @@
+package net.got.worldgen;
+
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.saveddata.SavedData;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Per-dimension checkpoint of a {@link GotPregen} job, stored as
+ * {@code data/got_pregen.dat} in the dimension's folder.
+ *
+ * <p>{@link #cursor} is the Hilbert index from which the job resumes: the
+ * lowest index still in flight when the checkpoint was taken, so at most one
+ * window of chunks is revisited (and merely loaded) after a restart.
+ */
+public final class GotPregenData extends SavedData {
+
+    private static final String NAME = "got_pregen";
+
+    private static final Factory<GotPregenData> FACTORY =
+            new Factory<>(GotPregenData::new, GotPregenData::load, null);
+
+    /** {@code true} while a job should be running; survives restarts. */
+    boolean      running;
+    GotPregen.Mode mode = GotPregen.Mode.ALL;
+    int          targetMspt = GotPregen.DEFAULT_TARGET_MSPT;
+    long         cursor;
+    long         generated;
+    long         skipped;
+    /** Wall time spent running, across restarts — for the average rate. */
+    long         elapsedMillis;
+
+    public static GotPregenData get(ServerLevel level) {
+        return level.getDataStorage().computeIfAbsent(FACTORY, NAME);
+    }
+
+    private static GotPregenData load(CompoundTag tag, HolderLookup.Provider registries) {
+        GotPregenData d = new GotPregenData();
+        d.running       = tag.getBoolean("running");
+        d.mode          = GotPregen.Mode.byName(tag.getString("mode"));
+        d.targetMspt    = tag.contains("target_mspt") ? tag.getInt("target_mspt") : GotPregen.DEFAULT_TARGET_MSPT;
+        d.cursor        = tag.getLong("cursor");
+        d.generated     = tag.getLong("generated");
+        d.skipped       = tag.getLong("skipped");
+        d.elapsedMillis = tag.getLong("elapsed_ms");
+        return d;
+    }
+
+    @Override
+    public @NotNull CompoundTag save(@NotNull CompoundTag tag, HolderLookup.@NotNull Provider registries) {
+        tag.putBoolean("running",     running);
+        tag.putString ("mode",        mode.getSerializedName());
+        tag.putInt    ("target_mspt", targetMspt);
+        tag.putLong   ("cursor",      cursor);
+        tag.putLong   ("generated",   generated);
+        tag.putLong   ("skipped",     skipped);
+        tag.putLong   ("elapsed_ms",  elapsedMillis);
+        return tag;
+    }
+
+    /** Forgets all progress. */
+    void reset() {
+        running       = false;
+        cursor        = 0;
+        generated     = 0;
+        skipped       = 0;
+        elapsedMillis = 0;
+        setDirty();
+    }
+}
@@ -0,0 +1,302 @@
+package net.got.worldgen;
+
+import net.got.GotMod;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.dimension.DimensionType;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Batch generator that writes {@code .mca} region files for a pixel
+ * rectangle of the biomemap, for building a pregenerated world off-line.
+ *
+ * <h2>Running it</h2>
+ * The {@code regionGen} Gradle run starts a dedicated server with the
+ * {@code got.regiongen.*} system properties set.  Once the server has loaded
+ * its datapacks — which is what bootstraps the block, biome and worldgen
+ * registries and decodes {@code dimension/knownworld.json} into a
+ * {@link GotChunkGenerator} and {@link GotBiomeSource} — {@link #runIfRequested}
+ * starts the job; the server halts itself when the last region is written.
+ *
+ * <pre>
+ *   ./gradlew runRegionGen -Pregiongen.out=build/regiongen \
+ *                          -Pregiongen.rect=1200,500,1800,900 \
+ *                          -Pregiongen.slice=0/4
+ * </pre>
+ *
+ * <h3>Properties</h3>
+ * <ul>
+ *   <li>{@code got.regiongen.out} — output directory; region files go to
+ *       {@code <out>/region/}.  Setting it enables the job.</li>
+ *   <li>{@code got.regiongen.rect} — biomemap pixel rectangle
+ *       {@code x0,z0,x1,z1} (inclusive); defaults to the whole map.</li>
+ *   <li>{@code got.regiongen.slice} — {@code k/n}: of the regions the
+ *       rectangle touches, in row-major order, generate only those whose
+ *       index is {@code k} modulo {@code n}.  Slices never share a region
+ *       file, so the outputs of {@code n} machines merge by copying the
+ *       {@code region/} folders together.</li>
+ *   <li>{@code got.regiongen.parallel} — regions in flight at once; defaults
+ *       to {@value #DEFAULT_PARALLEL}.  Generation itself runs on the
+ *       server's worldgen pool, sized by the usual {@code max.bg.threads}.</li>
+ *   <li>{@code got.regiongen.dimension} — dimension to generate; defaults to
+ *       {@code got:knownworld}.  The world seed is the run's
+ *       {@code level-seed}.</li>
+ * </ul>
+ *
+ * <h2>What is written</h2>
+ * Chunks go through the server's own chunk pipeline, so they are saved
+ * {@code full}: carvers, features and light included, exactly as a player
+ * would have found them.  Each region is held by one ticket that brings all
+ * of its in-rectangle chunks to {@code full}; the chunk system generates the
+ * ring around them to the lower statuses that decoration and lighting read.
+ * When every region is done the world is saved and the slice's region files
+ * are copied out of the run's world folder, which should be a scratch world.
+ *
+ * <p>A feature that straddles two regions is placed by the region that
+ * decorates it, so where neighbouring regions come from different slices a
+ * tree or boulder on the seam may be cut.  Generate with {@code slice 0/1}
+ * where that matters.  Copy the merged {@code region/} folder into the
+ * dimension's folder of the shipped world.
+ */
+public final class GotRegionGen {
+
+    private static final String PREFIX = "got.regiongen.";
+
+    /** Chunks per region file edge. */
+    private static final int REGION = 32;
+
+    private static final int DEFAULT_PARALLEL = 4;
+    private static final int REPORT_TICKS     = 20 * 60;
+
+    private static final TicketType<ChunkPos> REGIONGEN_TICKET =
+            TicketType.create("got_regiongen", Comparator.comparingLong(ChunkPos::toLong));
+
+    private GotRegionGen() {}
+
+    // ── Entry point ───────────────────────────────────────────────────────
+
+    /**
+     * Starts the batch job if {@code got.regiongen.out} is set; the job halts
+     * the server when it is done.  Called from {@code ServerStartedEvent}; a
+     * no-op on any normal server.
+     */
+    public static void runIfRequested(MinecraftServer server) {
+        String out = System.getProperty(PREFIX + "out");
+        if (out == null || out.isBlank()) return;
+
+        try {
+            start(server, Path.of(out));
+        } catch (Exception e) {
+            GotMod.LOGGER.error("[GoT] Region generation failed", e);
+            server.halt(false);
+        }
+    }
+
+    private static void start(MinecraftServer server, Path out) throws IOException {
+        ResourceKey<Level> dimKey = ResourceKey.create(Registries.DIMENSION, ResourceLocation.parse(
+                System.getProperty(PREFIX + "dimension", GotMod.MODID + ":knownworld")));
+        ServerLevel level = server.getLevel(dimKey);
+        if (level == null || !(level.getChunkSource().getGenerator() instanceof GotChunkGenerator generator)) {
+            throw new IllegalStateException("Dimension " + dimKey.location() + " is missing or not a GoT dimension");
+        }
+        BiomemapSnapshot map = generator.context().map();
+        if (!map.isLoaded()) {
+            throw new IllegalStateException("Biomemap " + generator.context().mapId() + " is not loaded");
+        }
+
+        int[] rect  = parseRect(System.getProperty(PREFIX + "rect"), map);
+        int[] slice = parseSlice(System.getProperty(PREFIX + "slice", "0/1"));
+        int parallel = Math.max(1, Integer.getInteger(PREFIX + "parallel", DEFAULT_PARALLEL));
+
+        // Pixel rectangle → chunk rectangle → region rectangle
+        int cx0 = Math.floorDiv(pixelToWorldX(map, rect[0]),     16);
+        int cz0 = Math.floorDiv(pixelToWorldZ(map, rect[1]),     16);
+        int cx1 = Math.floorDiv(pixelToWorldX(map, rect[2] + 1) - 1, 16);
+        int cz1 = Math.floorDiv(pixelToWorldZ(map, rect[3] + 1) - 1, 16);
+        int rx0 = Math.floorDiv(cx0, REGION), rx1 = Math.floorDiv(cx1, REGION);
+        int rz0 = Math.floorDiv(cz0, REGION), rz1 = Math.floorDiv(cz1, REGION);
+
+        List<ChunkPos> regions = new ArrayList<>();
+        int index = 0;
+        for (int rz = rz0; rz <= rz1; rz++) {
+            for (int rx = rx0; rx <= rx1; rx++) {
+                if (index++ % slice[1] == slice[0]) regions.add(new ChunkPos(rx, rz));
+            }
+        }
+
+        Path regionDir = out.resolve("region");
+        Files.createDirectories(regionDir);
+        Job job = new Job(level, regionDir, regions, parallel, cx0, cz0, cx1, cz1);
+
+        GotMod.LOGGER.info("[GoT] Region generation: pixels {},{}..{},{} → chunks {},{}..{},{}, slice {}/{} = {} of {} regions, {} in flight",
+                rect[0], rect[1], rect[2], rect[3], cx0, cz0, cx1, cz1,
+                slice[0], slice[1], regions.size(), index, parallel);
+        GotMod.queueServerWork(1, job::tick);
+    }
+
+    // ── Job ───────────────────────────────────────────────────────────────
+
+    /** One region's in-rectangle chunks and the ticket that holds them at {@code full}. */
+    private record Batch(ChunkPos center, int radius, int x0, int z0, int x1, int z1) {
+        int size() {
+            return (x1 - x0 + 1) * (z1 - z0 + 1);
+        }
+    }
+
+    private static final class Job {
+        final ServerLevel          level;
+        final Path                 regionDir;
+        final List<ChunkPos>       regions;
+        final ArrayDeque<ChunkPos> todo;
+        final List<Batch>          inFlight = new ArrayList<>();
+        final int parallel;
+        final int cx0, cz0, cx1, cz1;
+        final long start = System.nanoTime();
+        long chunks;
+        int  done;
+        int  ticks;
+
+        Job(ServerLevel level, Path regionDir, List<ChunkPos> regions, int parallel,
+            int cx0, int cz0, int cx1, int cz1) {
+            this.level     = level;
+            this.regionDir = regionDir;
+            this.regions   = regions;
+            this.todo      = new ArrayDeque<>(regions);
+            this.parallel  = parallel;
+            this.cx0 = cx0; this.cz0 = cz0; this.cx1 = cx1; this.cz1 = cz1;
+        }
+
+        void tick() {
+            if (!level.getServer().isRunning()) return;
+            ticks++;
+            ServerChunkCache cache = level.getChunkSource();
+
+            // Retire finished regions.
+            Iterator<Batch> it = inFlight.iterator();
+            while (it.hasNext()) {
+                Batch b = it.next();
+                if (!loaded(cache, b)) continue;
+                cache.removeRegionTicket(REGIONGEN_TICKET, b.center, b.radius, b.center);
+                it.remove();
+                chunks += b.size();
+                done++;
+            }
+
+            // Top up.
+            while (inFlight.size() < parallel && !todo.isEmpty()) {
+                Batch b = batch(todo.poll());
+                cache.addRegionTicket(REGIONGEN_TICKET, b.center, b.radius, b.center);
+                inFlight.add(b);
+            }
+
+            if (inFlight.isEmpty()) {
+                finish();
+                return;
+            }
+            if (ticks % REPORT_TICKS == 0) {
+                GotMod.LOGGER.info("[GoT] Region generation: {}/{} regions, {} chunks, {} chunks/s",
+                        done, regions.size(), chunks, String.format("%.1f", chunks / seconds()));
+            }
+            GotMod.queueServerWork(1, this::tick);
+        }
+
+        /**
+         * The ticket for one region: centred on its in-rectangle chunks, with
+         * the smallest radius that brings all of them to {@code full}.
+         */
+        Batch batch(ChunkPos region) {
+            int x0 = Math.max(cx0, region.x * REGION), x1 = Math.min(cx1, region.x * REGION + REGION - 1);
+            int z0 = Math.max(cz0, region.z * REGION), z1 = Math.min(cz1, region.z * REGION + REGION - 1);
+            int cx = (x0 + x1) >> 1, cz = (z0 + z1) >> 1;
+            int radius = Math.max(Math.max(cx - x0, x1 - cx), Math.max(cz - z0, z1 - cz));
+            return new Batch(new ChunkPos(cx, cz), radius, x0, z0, x1, z1);
+        }
+
+        static boolean loaded(ServerChunkCache cache, Batch b) {
+            for (int cz = b.z0; cz <= b.z1; cz++) {
+                for (int cx = b.x0; cx <= b.x1; cx++) {
+                    if (cache.getChunkNow(cx, cz) == null) return false;
+                }
+            }
+            return true;
+        }
+
+        /** Saves the world, copies the slice's region files out and halts the server. */
+        void finish() {
+            MinecraftServer server = level.getServer();
+            server.saveAllChunks(true, true, true);
+
+            Path source = DimensionType.getStorageFolder(level.dimension(), server.getWorldPath(LevelResource.ROOT))
+                    .resolve("region");
+            int copied = 0;
+            try {
+                for (ChunkPos region : regions) {
+                    String name = "r." + region.x + "." + region.z + ".mca";
+                    Path file = source.resolve(name);
+                    if (!Files.exists(file)) continue;
+                    Files.copy(file, regionDir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+                    copied++;
+                }
+                GotMod.LOGGER.info("[GoT] Region generation done: {} chunks in {} regions in {} s ({} chunks/s), {} files copied to {}",
+                        chunks, regions.size(), String.format("%.1f", seconds()),
+                        String.format("%.1f", chunks / seconds()), copied, regionDir);
+            } catch (IOException e) {
+                GotMod.LOGGER.error("[GoT] Region generation failed copying to {}", regionDir, e);
+            }
+            server.halt(false);
+        }
+
+        double seconds() {
+            return Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    // ── Arguments ─────────────────────────────────────────────────────────
+
+    private static int[] parseRect(String spec, BiomemapSnapshot map) {
+        int w = map.width(), h = map.height();
+        if (spec == null || spec.isBlank()) return new int[]{ 0, 0, w - 1, h - 1 };
+
+        String[] parts = spec.split(",");
+        if (parts.length != 4) throw new IllegalArgumentException("rect must be x0,z0,x1,z1: " + spec);
+        int x0 = Integer.parseInt(parts[0].trim()), z0 = Integer.parseInt(parts[1].trim());
+        int x1 = Integer.parseInt(parts[2].trim()), z1 = Integer.parseInt(parts[3].trim());
+        return new int[]{
+                Math.max(0, Math.min(x0, x1)), Math.max(0, Math.min(z0, z1)),
+                Math.min(w - 1, Math.max(x0, x1)), Math.min(h - 1, Math.max(z0, z1)) };
+    }
+
+    private static int[] parseSlice(String spec) {
+        String[] parts = spec.split("/");
+        if (parts.length != 2) throw new IllegalArgumentException("slice must be k/n: " + spec);
+        int k = Integer.parseInt(parts[0].trim()), n = Integer.parseInt(parts[1].trim());
+        if (n < 1 || k < 0 || k >= n) throw new IllegalArgumentException("slice must satisfy 0 <= k < n: " + spec);
+        return new int[]{ k, n };
+    }
+
+    /** World X of the west edge of pixel column {@code px} (inverse of {@link BiomemapSnapshot#pixelForWorld}). */
+    private static int pixelToWorldX(BiomemapSnapshot map, int px) {
+        return (int) Math.floor((px - map.width() * 0.5f) * map.scale());
+    }
+
+    private static int pixelToWorldZ(BiomemapSnapshot map, int pz) {
+        return (int) Math.floor((pz - map.height() * 0.5f) * map.scale());
+    }
+}
@@ -0,0 +1,360 @@
+package net.got.worldgen;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.core.QuartPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Native surface pass for {@link GotChunkGenerator}: turns the top of every
+ * stone column into grass, dirt, snow, gravel … from a per-biome
+ * {@link Surface} table, reading the column heights the noise fill already
+ * recorded in the {@code OCEAN_FLOOR_WG} / {@code WORLD_SURFACE_WG}
+ * heightmaps.
+ *
+ * <h2>Why not the vanilla surface rules</h2>
+ * The vanilla pass builds a {@code NoiseChunk} for the chunk and walks the
+ * whole {@code noise_settings} router — continents, erosion, aquifers — only
+ * to read back the surface heights, which for this generator come from the
+ * biomemap and are already known.  This pass makes no {@code NoiseChunk} and
+ * samples one 2-D noise per column.  The {@code surface_rule} in
+ * {@code noise_settings/overworld.json} is no longer consulted; the table
+ * below reproduces its GoT-biome branches.
+ *
+ * <h2>Per column</h2>
+ * <ol>
+ *   <li>The floor is the top solid block; the biome is the one at the top
+ *       of the water column above it (as vanilla's surface pass).</li>
+ *   <li>A <em>dry</em> floor gets the biome's top block, then
+ *       {@code depth} filler blocks.  {@code depth} varies between the
+ *       entry's {@code minDepth} and {@code maxDepth} with the surface
+ *       noise.</li>
+ *   <li>A floor under at most {@code SHALLOW_WATER + depth} blocks of fluid
+ *       gets the underwater block and filler; deeper floors get a single
+ *       gravel layer.</li>
+ *   <li>The bottom {@value #BEDROCK_LAYERS} layers become bedrock on a
+ *       linear gradient.</li>
+ * </ol>
+ *
+ * <p>Rock itself — stone above Y {@value #DEEPSLATE_TOP}, deepslate below
+ * Y {@value #DEEPSLATE_BOTTOM}, a gradient between — is written by the noise
+ * fill through {@link #rock} and {@link #uniformRock}, so no pass revisits the
+ * deep sections.  In {@link GotTerrainMode#NOISE_3D} every floor below an
+ * overhang is surfaced too; in {@link GotTerrainMode#HEIGHTFIELD} the top
+ * floor is the only one.
+ */
+public final class GotSurfaceBuilder {
+
+    // ── Tunables ──────────────────────────────────────────────────────────
+
+    /** Surface noise: ~48-block features, as vanilla's {@code minecraft:surface}. */
+    private static final float SURFACE_FREQ = 1f / 48f;
+    private static final int   SURFACE_SEED = 0x5F_AC_E5_01;
+
+    /** Puddle noise for the Neck (vanilla's {@code surface_swamp} role). */
+    private static final float PUDDLE_FREQ  = 1f / 12f;
+    private static final int   PUDDLE_SEED  = 0x0B_0C_5E_A5;
+
+    /** Floors under more than {@code SHALLOW_WATER + depth} blocks of fluid are "deep". */
+    private static final int SHALLOW_WATER = 5;
+
+    /** A neighbour this many blocks higher makes a column steep (vanilla's rule). */
+    private static final int STEEP_RISE = 4;
+
+    /** Frostfangs floors at or above this Y are snow-capped. */
+    private static final int FROSTFANGS_SNOW_LINE = 150;
+
+    static final int BEDROCK_LAYERS   = 5;
+    static final int DEEPSLATE_BOTTOM = 0;
+    static final int DEEPSLATE_TOP    = 8;
+
+    private static final int SALT_BEDROCK   = 0x0BED_0C4B;
+    private static final int SALT_DEEPSLATE = 0x0DEE_95A7;
+
+    // ── Surface table ─────────────────────────────────────────────────────
+
+    /** How a biome picks its top and filler blocks beyond the plain table entry. */
+    enum Style {
+        /** Top / filler / underwater straight from the entry. */
+        PLAIN,
+        /** Dry tops become snow blocks. */
+        SNOW,
+        /** Steep faces stay bare stone; snow above {@link #FROSTFANGS_SNOW_LINE}. */
+        FROSTFANGS,
+        /** Gravel, grass or bare stone in surface-noise bands. */
+        STONY_SHORE,
+        /** Bare stone caps where the surface noise is high. */
+        ROCKY_HILLS,
+        /** Gravel, stone or grass in surface-noise bands. */
+        IRON_HILLS,
+        /** Coarse dirt and podzol in surface-noise bands. */
+        TAIGA,
+        /** Mud throughout, with water puddles on floors at Y 60–62. */
+        WETLAND
+    }
+
+    /**
+     * One biome's surface.
+     *
+     * @param top        dry top block
+     * @param filler     blocks under the top, dry or shallow
+     * @param underwater top block under shallow water
+     * @param minDepth   fewest filler blocks under the top
+     * @param maxDepth   most filler blocks under the top
+     * @param style      noise-band and snow rules layered over the above
+     */
+    record Surface(BlockState top, BlockState filler, BlockState underwater,
+                   int minDepth, int maxDepth, Style style) {}
+
+    private static final BlockState STONE       = Blocks.STONE.defaultBlockState();
+    private static final BlockState DEEPSLATE   = Blocks.DEEPSLATE.defaultBlockState();
+    private static final BlockState BEDROCK     = Blocks.BEDROCK.defaultBlockState();
+    private static final BlockState GRAVEL      = Blocks.GRAVEL.defaultBlockState();
+    private static final BlockState DIRT        = Blocks.DIRT.defaultBlockState();
+    private static final BlockState GRASS       = Blocks.GRASS_BLOCK.defaultBlockState();
+    private static final BlockState COARSE_DIRT = Blocks.COARSE_DIRT.defaultBlockState();
+    private static final BlockState PODZOL      = Blocks.PODZOL.defaultBlockState();
+    private static final BlockState SNOW_BLOCK  = Blocks.SNOW_BLOCK.defaultBlockState();
+    private static final BlockState MUD         = Blocks.MUD.defaultBlockState();
+    private static final BlockState WATER       = Blocks.WATER.defaultBlockState();
+
+    private static final Map<String, Surface> BY_NAME = new HashMap<>();
+    private static final Surface DEFAULT = new Surface(GRASS, DIRT, DIRT, 1, 6, Style.PLAIN);
+
+    static {
+        //                                  top          filler  underwater  depth   style
+        put("always_winter",   new Surface(SNOW_BLOCK,  DIRT,   DIRT,       1, 6,  Style.SNOW));
+        put("snowy_north",     new Surface(GRASS,       DIRT,   DIRT,       1, 6,  Style.SNOW));
+        put("frostfangs",      new Surface(GRASS,       STONE,  STONE,      0, 0,  Style.FROSTFANGS));
+        put("stony_shore",     new Surface(GRASS,       STONE,  STONE,      1, 4,  Style.STONY_SHORE));
+        put("north_hills",     new Surface(GRASS,       DIRT,   DIRT,       1, 6,  Style.ROCKY_HILLS));
+        put("iron_hills",      new Surface(GRASS,       DIRT,   DIRT,       1, 6,  Style.IRON_HILLS));
+        put("wolfswood",       new Surface(GRASS,       DIRT,   DIRT,       1, 6,  Style.TAIGA));
+        put("ironwood",        new Surface(GRASS,       DIRT,   DIRT,       1, 6,  Style.TAIGA));
+        put("neck",            new Surface(MUD,         MUD,    MUD,        1, 6,  Style.WETLAND));
+        // Everything else — plains, forests, rivers, lakes, oceans — is DEFAULT:
+        // grass over dirt when dry, dirt in shallows, gravel in deep water.
+    }
+
+    private static void put(String name, Surface surface) {
+        BY_NAME.put(name, surface);
+    }
+
+    /** The surface for a biome registry path (e.g. {@code "frostfangs"}). */
+    static Surface forName(String name) {
+        return BY_NAME.getOrDefault(name, DEFAULT);
+    }
+
+    private GotSurfaceBuilder() {}
+
+    // ── Rock (called from the noise fill) ─────────────────────────────────
+
+    /**
+     * The rock every block of a section at {@code sectionMinY} gets, or
+     * {@code null} if the section straddles the deepslate gradient and must
+     * go through {@link #rock} per block.
+     */
+    static BlockState uniformRock(int sectionMinY) {
+        if (sectionMinY + 15 <= DEEPSLATE_BOTTOM) return DEEPSLATE;
+        if (sectionMinY >= DEEPSLATE_TOP)         return STONE;
+        return null;
+    }
+
+    /** Vanilla's deepslate gradient: always at and below Y 0, never from Y 8, linear between. */
+    static BlockState rock(int wx, int y, int wz, int seed) {
+        if (y <= DEEPSLATE_BOTTOM) return DEEPSLATE;
+        if (y >= DEEPSLATE_TOP)    return STONE;
+        float chance = (DEEPSLATE_TOP - y) / (float) (DEEPSLATE_TOP - DEEPSLATE_BOTTOM);
+        return random01(wx, y, wz, seed ^ SALT_DEEPSLATE) < chance ? DEEPSLATE : STONE;
+    }
+
+    // ── Surface pass ──────────────────────────────────────────────────────
+
+    /**
+     * Surfaces every column of {@code chunk}.  Must run after the noise fill
+     * has primed the worldgen heightmaps.
+     *
+     * @param seed      world noise seed, so surface patterns differ per world
+     * @param overhangs {@code true} to also surface floors under overhangs
+     */
+    static void build(ChunkAccess chunk, int seed, boolean overhangs) {
+        int minY   = chunk.getMinY();
+        int chunkX = chunk.getPos().getMinBlockX();
+        int chunkZ = chunk.getPos().getMinBlockZ();
+
+        Holder<Biome> lastBiome = null;
+        Surface       surface   = DEFAULT;
+
+        for (int lz = 0; lz < 16; lz++) {
+            for (int lx = 0; lx < 16; lx++) {
+                int wx = chunkX + lx;
+                int wz = chunkZ + lz;
+
+                bedrock(chunk, lx, lz, wx, wz, minY, seed);
+
+                int floor = chunk.getHeight(Heightmap.Types.OCEAN_FLOOR_WG,   lx, lz);
+                int top   = chunk.getHeight(Heightmap.Types.WORLD_SURFACE_WG, lx, lz);
+                if (floor < minY) continue;
+
+                // Same biome lookup as vanilla: the cell at the top of the water column.
+                Holder<Biome> biome = chunk.getNoiseBiome(
+                        QuartPos.fromBlock(wx), QuartPos.fromBlock(top + 1), QuartPos.fromBlock(wz));
+                if (biome != lastBiome) {
+                    lastBiome = biome;
+                    surface   = biome.unwrapKey().map(k -> forName(k.location().getPath())).orElse(DEFAULT);
+                }
+
+                float noise = GotPerlinNoise.sample(wx * SURFACE_FREQ, 0f, wz * SURFACE_FREQ, seed ^ SURFACE_SEED);
+                boolean steep = surface.style() == Style.FROSTFANGS && isSteep(chunk, lx, lz);
+
+                floor(chunk, surface, lx, lz, wx, wz, floor, top - floor, noise, steep, seed);
+
+                if (overhangs) {
+                    // Walk down for floors under overhangs; each sits below a gap.
+                    int fluidAbove = 0;
+                    boolean open = false;
+                    for (int y = floor - 1; y > minY + BEDROCK_LAYERS; y--) {
+                        BlockState s = get(chunk, lx, y, lz);
+                        if (s.isAir())                    { open = true; fluidAbove = 0; }
+                        else if (!s.getFluidState().isEmpty()) { open = true; fluidAbove++; }
+                        else if (open) {
+                            floor(chunk, surface, lx, lz, wx, wz, y, fluidAbove, noise, false, seed);
+                            open = false;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Surfaces one floor at {@code y} with {@code fluidAbove} fluid blocks
+     * directly over it.
+     */
+    private static void floor(ChunkAccess chunk, Surface s, int lx, int lz, int wx, int wz,
+                              int y, int fluidAbove, float noise, boolean steep, int seed) {
+        int depth = s.minDepth() + Math.round((noise * 0.5f + 0.5f) * (s.maxDepth() - s.minDepth()));
+
+        if (s.style() == Style.WETLAND && y >= 60 && y < 63
+                && GotPerlinNoise.sample(wx * PUDDLE_FREQ, 0f, wz * PUDDLE_FREQ, seed ^ PUDDLE_SEED) >= 0f) {
+            // Puddles change OCEAN_FLOOR_WG, so this write goes through the chunk.
+            chunk.setBlockState(new BlockPos(lx, y, lz), WATER, false);
+            y--;
+            fluidAbove++;
+        }
+
+        BlockState top, filler;
+        if (fluidAbove == 0) {
+            top    = dryTop(s, y, noise, steep);
+            filler = filler(s, noise, steep);
+        } else if (fluidAbove <= SHALLOW_WATER + depth) {
+            top    = underwaterTop(s, noise);
+            filler = filler(s, noise, false);
+        } else {
+            top    = s.style() == Style.FROSTFANGS ? STONE : GRAVEL;
+            filler = null;
+        }
+
+        set(chunk, lx, y, lz, supported(chunk, lx, y, lz, top));
+        if (filler == null) return;
+        for (int d = 1; d <= depth; d++) {
+            int fy = y - d;
+            BlockState below = get(chunk, lx, fy, lz);
+            if (below.isAir() || !below.getFluidState().isEmpty()) break;
+            set(chunk, lx, fy, lz, supported(chunk, lx, fy, lz, filler));
+        }
+    }
+
+    private static BlockState dryTop(Surface s, int y, float n, boolean steep) {
+        return switch (s.style()) {
+            case PLAIN, WETLAND -> s.top();
+            case SNOW           -> SNOW_BLOCK;
+            case FROSTFANGS     -> steep ? STONE : y >= FROSTFANGS_SNOW_LINE ? SNOW_BLOCK : s.top();
+            case STONY_SHORE    -> n < -0.15f ? GRAVEL : n <= 0.15f ? GRASS : STONE;
+            case ROCKY_HILLS    -> n > 0.12f ? STONE : s.top();
+            case IRON_HILLS     -> n > 0.24f ? GRAVEL : n > 0.12f ? STONE : n > -0.12f ? GRASS : GRAVEL;
+            case TAIGA          -> n > 0.21f ? COARSE_DIRT : n > -0.115f ? PODZOL : s.top();
+        };
+    }
+
+    private static BlockState underwaterTop(Surface s, float n) {
+        return switch (s.style()) {
+            case STONY_SHORE -> n < -0.15f ? GRAVEL : STONE;
+            case ROCKY_HILLS -> n > 0.12f ? STONE : s.underwater();
+            case IRON_HILLS  -> n > 0.24f ? GRAVEL : n > 0.12f ? STONE : n > -0.12f ? DIRT : GRAVEL;
+            default          -> s.underwater();
+        };
+    }
+
+    private static BlockState filler(Surface s, float n, boolean steep) {
+        if (steep) return STONE;
+        return switch (s.style()) {
+            case STONY_SHORE -> n < -0.15f ? GRAVEL : n <= 0.15f ? DIRT : STONE;
+            case ROCKY_HILLS -> n > 0.12f ? STONE : s.filler();
+            case IRON_HILLS  -> n > 0.24f ? GRAVEL : n > 0.12f ? STONE : n > -0.12f ? DIRT : GRAVEL;
+            default          -> s.filler();
+        };
+    }
+
+    /** Gravel over a gap would hang in the air; vanilla's ceiling rule swaps it for stone. */
+    private static BlockState supported(ChunkAccess chunk, int lx, int y, int lz, BlockState state) {
+        if (state != GRAVEL || y - 1 < chunk.getMinY()) return state;
+        BlockState below = get(chunk, lx, y - 1, lz);
+        return below.isAir() || !below.getFluidState().isEmpty() ? STONE : state;
+    }
+
+    /** Vanilla's steepness test: a 4-block rise to a neighbour within the chunk. */
+    private static boolean isSteep(ChunkAccess chunk, int lx, int lz) {
+        int n = chunk.getHeight(Heightmap.Types.WORLD_SURFACE_WG, lx, Math.max(lz - 1, 0));
+        int s = chunk.getHeight(Heightmap.Types.WORLD_SURFACE_WG, lx, Math.min(lz + 1, 15));
+        if (s >= n + STEEP_RISE) return true;
+        int w = chunk.getHeight(Heightmap.Types.WORLD_SURFACE_WG, Math.max(lx - 1, 0), lz);
+        int e = chunk.getHeight(Heightmap.Types.WORLD_SURFACE_WG, Math.min(lx + 1, 15), lz);
+        return w >= e + STEEP_RISE;
+    }
+
+    /** Bedrock floor: always on the bottom layer, fading out over {@value #BEDROCK_LAYERS}. */
+    private static void bedrock(ChunkAccess chunk, int lx, int lz, int wx, int wz, int minY, int seed) {
+        for (int k = 0; k < BEDROCK_LAYERS; k++) {
+            int y = minY + k;
+            float chance = 1f - k / (float) BEDROCK_LAYERS;
+            if (k > 0 && random01(wx, y, wz, seed ^ SALT_BEDROCK) >= chance) continue;
+            if (get(chunk, lx, y, lz).isAir()) continue;
+            set(chunk, lx, y, lz, BEDROCK);
+        }
+    }
+
+    // ── Section access ────────────────────────────────────────────────────
+    //
+    // Surface blocks only ever replace solid blocks with other solid blocks,
+    // so the heightmaps stay valid and the pass writes the sections directly
+    // (as the noise fill does) instead of going through ChunkAccess#setBlockState.
+
+    private static BlockState get(ChunkAccess chunk, int lx, int y, int lz) {
+        LevelChunkSection section = chunk.getSection(chunk.getSectionIndex(y));
+        return section.getBlockState(lx, y & 15, lz);
+    }
+
+    private static void set(ChunkAccess chunk, int lx, int y, int lz, BlockState state) {
+        LevelChunkSection section = chunk.getSection(chunk.getSectionIndex(y));
+        section.setBlockState(lx, y & 15, lz, state, false);
+    }
+
+    /** Deterministic uniform float in {@code [0, 1)} for a block position. */
+    private static float random01(int x, int y, int z, int salt) {
+        long h = Mth.getSeed(x, y, z) ^ (salt * 0x9E37_79B9_7F4A_7C15L);
+        h = (h ^ (h >>> 33)) * 0xFF51_AFD7_ED55_8CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CE_B9FE_1A85_EC53L;
+        h ^= h >>> 33;
+        return (h >>> 40) * 0x1.0p-24f;
+    }
+}
@@ -0,0 +1,165 @@
+package net.got.worldgen;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.levelgen.RandomState;
+
+import java.util.Optional;
+
+/**
+ * Everything one {@link GotChunkGenerator} instance's terrain depends on —
+ * which biomemap, which noise seed, which terrain mode and warp lattice — and
+ * the per-chunk caches derived from them.
+ *
+ * <h2>Why per generator</h2>
+ * <p>Two dimensions using {@code got:chunk_generator} (an event world beside
+ * the main world, the bench scratch dimension) may be painted from different
+ * maps, seeded differently and configured with different terrain modes.  A
+ * context is built from the generator's codec fields, so each dimension
+ * resolves its own state and fills its own {@link GotBlendField} /
+ * {@link GotBiomeQuarts} caches; one dimension's working set never evicts
+ * another's.  The paired {@link GotBiomeSource} is bound to the same context
+ * when the generator is constructed, which keeps its Y-aware water check in
+ * step with the terrain.
+ *
+ * <h2>Sharing</h2>
+ * <p>Only immutable data is shared between contexts: the published
+ * {@link BiomemapSnapshot}s (looked up by id on every {@link #map()} call, so
+ * a {@code /reload} is picked up) and the seed-independent
+ * {@link GotWarpLattice} for the configured spacing.
+ *
+ * <h2>Noise seed</h2>
+ * <p>With a {@code "noise_seed"} codec field the seed is fixed at
+ * construction.  Without one it is derived from the world seed the first time
+ * the generator sees a {@link RandomState}, as before; cache entries built
+ * before that point record the seed they used and are rebuilt once it is known.
+ */
+public final class GotTerrainContext {
+
+    /**
+     * Base seed constant — XOR'd with the world (or configured) seed so every
+     * world/save produces different terrain within the same biome layout.
+     */
+    static final int SEED_TERRAIN = 0x3F9A1B;
+
+    private final ResourceLocation mapId;
+    private final GotTerrainMode   mode;
+    private final GotWarpLattice   lattice;
+    private final Optional<Long>   configuredNoiseSeed;
+
+    private volatile int     noiseSeed = SEED_TERRAIN;
+    private volatile boolean seeded;
+
+    private final LoadingCache<Long, GotBlendField>  blendFields;
+    private final LoadingCache<Long, GotBiomeQuarts> quarts;
+
+    GotTerrainContext(ResourceLocation mapId, GotTerrainMode mode, int warpSpacing,
+                      Optional<Long> configuredNoiseSeed) {
+        this.mapId               = mapId;
+        this.mode                = mode;
+        this.lattice             = GotWarpLattice.forSpacing(warpSpacing);
+        this.configuredNoiseSeed = configuredNoiseSeed;
+        configuredNoiseSeed.ifPresent(s -> {
+            noiseSeed = mix(s);
+            seeded    = true;
+        });
+
+        int concurrency = Math.max(4, Runtime.getRuntime().availableProcessors());
+        this.blendFields = CacheBuilder.newBuilder()
+                .maximumSize(GotBlendField.CACHE_SIZE)
+                .concurrencyLevel(concurrency)
+                .build(CacheLoader.from(key -> new GotBlendField(this, ChunkPos.getX(key), ChunkPos.getZ(key))));
+        this.quarts = CacheBuilder.newBuilder()
+                .maximumSize(GotBiomeQuarts.CACHE_SIZE)
+                .concurrencyLevel(concurrency)
+                .build(CacheLoader.from(key -> new GotBiomeQuarts(this, ChunkPos.getX(key), ChunkPos.getZ(key))));
+    }
+
+    // ── Noise seed ────────────────────────────────────────────────────────
+
+    /**
+     * Derives the noise seed from the level seed the first time a
+     * {@link RandomState} is seen, unless the codec fixed one.  This is what
+     * makes different world seeds produce different terrain shapes within the
+     * same biome layout.
+     */
+    void ensureNoiseSeed(RandomState random) {
+        if (seeded) return;
+        long s = random.getOrCreateRandomFactory(
+                        ResourceLocation.fromNamespaceAndPath("got", "terrain_seed"))
+                .at(BlockPos.ZERO).nextLong();
+        noiseSeed = mix(s);
+        seeded    = true;
+    }
+
+    private static int mix(long seed) {
+        return SEED_TERRAIN ^ (int) (seed ^ (seed >>> 32));
+    }
+
+    // ── Caches ────────────────────────────────────────────────────────────
+
+    /** Returns the (possibly cached) blend field for the given chunk coordinates. */
+    public GotBlendField blendField(int chunkX, int chunkZ) {
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        GotBlendField f = blendFields.getUnchecked(key);
+        if (f.map().version() != map().version()) {
+            blendFields.invalidate(key);
+            f = blendFields.getUnchecked(key);
+        }
+        return f;
+    }
+
+    /** Returns the blend field of the chunk containing world column {@code (wx, wz)}. */
+    public GotBlendField blendFieldAt(int wx, int wz) {
+        return blendField(wx >> 4, wz >> 4);
+    }
+
+    /** Returns the cached biome entry for the chunk containing quart column {@code (qx, qz)}. */
+    GotBiomeQuarts quarts(int quartX, int quartZ) {
+        long key = ChunkPos.asLong(quartX >> 2, quartZ >> 2);
+        GotBiomeQuarts q = quarts.getUnchecked(key);
+        if (q.map().version() != map().version() || q.noiseSeed() != noiseSeed) {
+            quarts.invalidate(key);
+            q = quarts.getUnchecked(key);
+        }
+        return q;
+    }
+
+    /**
+     * Drops every cached entry.  Never needed for correctness — stale entries
+     * are rebuilt on lookup — but lets benchmarks start cold.
+     */
+    public void invalidateAll() {
+        blendFields.invalidateAll();
+        quarts.invalidateAll();
+    }
+
+    // ── Density ───────────────────────────────────────────────────────────
+
+    /**
+     * The terrain density at an arbitrary world position, exactly as this
+     * context's generator computes it.  Lets {@link GotBiomeSource} reproduce
+     * the generator's solid/open decision for every noise cell.
+     *
+     * <p>Called once per noise cell (4 × 4 × 4 blocks) that is at or below sea
+     * level, so the extra cost is negligible compared with full chunk generation.
+     */
+    float evalDensity(int wx, int wy, int wz, float depth, float scale) {
+        return GotChunkGenerator.cornerDensity(wx, wy, wz, depth, scale, noiseSeed, mode);
+    }
+
+    // ── Accessors ─────────────────────────────────────────────────────────
+
+    /** The current snapshot of this context's biomemap; {@link BiomemapSnapshot#EMPTY} if it is not loaded. */
+    public BiomemapSnapshot map()       { return BiomemapLoader.snapshot(mapId); }
+    public ResourceLocation mapId()     { return mapId;     }
+    public GotTerrainMode   mode()      { return mode;      }
+    public GotWarpLattice   lattice()   { return lattice;   }
+    public int              noiseSeed() { return noiseSeed; }
+
+    Optional<Long> configuredNoiseSeed() { return configuredNoiseSeed; }
+}
@@ -0,0 +1,35 @@
+package net.got.worldgen;
+
+import com.mojang.serialization.Codec;
+import net.minecraft.util.StringRepresentable;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * How {@link GotChunkGenerator} turns the blended {@code depth} / {@code scale}
+ * into blocks.  Selected per dimension with the generator's
+ * {@code "terrain_mode"} field.
+ *
+ * <ul>
+ *   <li>{@link #HEIGHTFIELD} (default) — the noise is sampled with Y fixed at
+ *       0, so density {@code = (depth − y) + noise × scale} crosses zero exactly
+ *       once per column.  The generator computes that surface height once per
+ *       column and fills solid and fluid by Y interval; {@code getBaseHeight}
+ *       and {@code getBaseColumn} are answered analytically.</li>
+ *   <li>{@link #NOISE_3D} — the noise also varies with Y, allowing overhangs
+ *       and arches.  Density is evaluated on the full 3D cell lattice and
+ *       trilinearly interpolated per block.</li>
+ * </ul>
+ */
+public enum GotTerrainMode implements StringRepresentable {
+    HEIGHTFIELD("heightfield"),
+    NOISE_3D("noise_3d");
+
+    public static final Codec<GotTerrainMode> CODEC = StringRepresentable.fromEnum(GotTerrainMode::values);
+
+    private final String name;
+
+    GotTerrainMode(String name) { this.name = name; }
+
+    @Override
+    public @NotNull String getSerializedName() { return name; }
+}
@@ -0,0 +1,240 @@
+package net.got.worldgen;
+
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.levelgen.RandomState;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The world map's terrain layer as a pyramid of {@value #TILE}² -texel
+ * tiles: biome colour with hillshading, rendered from the biomemap and the
+ * generator's {@link GotHeightField} without loading a chunk.  Shared by the
+ * client, which renders tiles itself when it has the generator (single
+ * player), and the server, which renders them for remote clients.
+ *
+ * <h2>Layout</h2>
+ * <p>The pyramid is laid over the biomemap: level-0 pixel {@code (px, pz)}
+ * covers {@link BiomemapSnapshot#scale()} blocks from world
+ * {@code (px - width / 2) · scale}, as {@link BiomemapSnapshot#colorAtWorld}
+ * maps it.  Level {@code k} has one texel per {@code 2^(k + }{@value #FINEST_SHIFT}{@code )}
+ * map pixels, so the finest level is sixteen times sharper than the map and
+ * the top one fits a single tile.
+ *
+ * <h2>Keys and hashes</h2>
+ * <p>{@link #key()} covers everything a render depends on — format, noise
+ * seed, terrain mode, warp lattice spacing, the dimension's vertical range
+ * and the map's {@link BiomemapSnapshot#fingerprint()}: every input of
+ * {@link GotChunkGenerator#cornerSurfaceAt} — and is the same in every
+ * session, so it can name persistent caches.
+ * {@link #hash} fingerprints one rendered tile; after a {@code /reload} most
+ * tiles render identically and keep their hash.
+ *
+ * <h2>Threads</h2>
+ * <p>A tile is a few hundred thousand height samples.  Renders therefore
+ * run on {@link #executor()}, a small pool of low-priority threads, and
+ * never on {@code Util.backgroundExecutor()}, where the server generates
+ * chunks.  However many maps are open, terrain tiles take at most
+ * {@link #RENDER_THREADS} cores from worldgen.
+ */
+public final class GotTerrainTiles {
+
+    /** Texels per tile edge. */
+    public static final int TILE = 256;
+
+    /** log2 of map pixels per texel at level 0. */
+    public static final int FINEST_SHIFT = -4;
+
+    /** Bump when the rendering changes, so cached tiles are not reused. */
+    public static final int FORMAT = 1;
+
+    /** Threads of {@link #executor()}: a quarter of the cores, at least one and at most two. */
+    public static final int RENDER_THREADS =
+            Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 4));
+
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            RENDER_THREADS, RENDER_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                Thread t = new Thread(task, "GoT-TerrainTiles-" + THREAD_ID.incrementAndGet());
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /** Vertical exaggeration of the hillshade at level 0; grows with texel size. */
+    private static final float RELIEF = 1.5f;
+
+    /** Geometry of a pyramid over a {@code width × height} map of {@code blocksPerPixel}-block pixels. */
+    public record Layout(int width, int height, int blocksPerPixel) {
+
+        /** Number of levels, the last being the first that fits one tile. */
+        public int levels() {
+            int n = 1;
+            while (width(n - 1) > TILE || height(n - 1) > TILE) n++;
+            return n;
+        }
+
+        /** Texels across {@code level}. */
+        public int width(int level)  { return size(width,  FINEST_SHIFT + level); }
+
+        /** Texels down {@code level}. */
+        public int height(int level) { return size(height, FINEST_SHIFT + level); }
+
+        /** Whether tile {@code (tx, tz)} of {@code level} exists. */
+        public boolean contains(int level, int tx, int tz) {
+            return level >= 0 && level < levels() && tx >= 0 && tz >= 0
+                    && tx * TILE < width(level) && tz * TILE < height(level);
+        }
+
+        /** Texels across tile column {@code tx} of {@code level}; edge tiles are cut to the map. */
+        public int tileWidth(int level, int tx)  { return Math.min(TILE, width(level)  - tx * TILE); }
+
+        /** Texels down tile row {@code tz} of {@code level}. */
+        public int tileHeight(int level, int tz) { return Math.min(TILE, height(level) - tz * TILE); }
+
+        /** Blocks per texel at {@code level}. */
+        public double texelBlocks(int level) {
+            return Math.scalb((double) blocksPerPixel, FINEST_SHIFT + level);
+        }
+
+        /** World X of the map's west edge. */
+        public double originX() { return -width  * (double) blocksPerPixel / 2.0; }
+
+        /** World Z of the map's north edge. */
+        public double originZ() { return -height * (double) blocksPerPixel / 2.0; }
+
+        private static int size(int pixels, int shift) {
+            return shift <= 0 ? pixels << -shift : (pixels + (1 << shift) - 1) >> shift;
+        }
+    }
+
+    private final GotTerrainContext context;
+    private final GotHeightField    heights;
+    private final BiomemapSnapshot  map;
+    private final Layout            layout;
+    private final long              key;
+
+    private GotTerrainTiles(GotChunkGenerator generator, GotHeightField heights, BiomemapSnapshot map) {
+        this.context = generator.context();
+        this.heights = heights;
+        this.map     = map;
+        this.layout  = new Layout(map.width(), map.height(), map.scale());
+
+        long k = FORMAT;
+        k = k * 31 + context.noiseSeed();
+        k = k * 31 + context.mode().ordinal();
+        k = k * 31 + context.lattice().spacing();
+        k = k * 31 + generator.getMinY();
+        k = k * 31 + generator.getGenDepth();
+        k = k * 31 + map.fingerprint();
+        this.key = k == 0L ? 1L : k;
+    }
+
+    /**
+     * The pyramid for {@code generator}'s current biomemap, or {@code null}
+     * while the map is not loaded.  Cheap: nothing is rendered until asked.
+     */
+    @Nullable
+    public static GotTerrainTiles of(GotChunkGenerator generator, RandomState randomState) {
+        GotHeightField   heights = generator.heightField(randomState);
+        BiomemapSnapshot map     = generator.context().map();
+        return map.isLoaded() ? new GotTerrainTiles(generator, heights, map) : null;
+    }
+
+    public Layout layout() { return layout; }
+
+    /** Where tiles are rendered, on both sides; see the class comment. */
+    public static Executor executor() { return EXECUTOR; }
+
+    /** Never {@code 0}; see the class comment. */
+    public long key() { return key; }
+
+    // ── Rendering ─────────────────────────────────────────────────────────
+
+    /**
+     * Renders tile {@code (tx, tz)} of {@code level} as 0xAARRGGBB texels,
+     * row by row; edge tiles are cut to the map.  Each texel is the palette
+     * colour at its centre, lit from the north-west by the slope of the
+     * surface across its neighbours; water is shaded by depth instead.
+     * Thread-safe and slow — a few hundred thousand height samples.
+     */
+    public int[] render(int level, int tx, int tz) {
+        double texel  = layout.texelBlocks(level);
+        int    hLevel = Mth.clamp(Mth.floor(Math.log(texel / GotHeightField.spacing(0)) / Math.log(2)),
+                                  0, GotHeightField.LEVELS - 1);
+        int    w      = layout.tileWidth(level, tx);
+        int    h      = layout.tileHeight(level, tz);
+        int    x0     = tx * TILE, z0 = tz * TILE;
+        double ox     = layout.originX(), oz = layout.originZ();
+
+        // Heights with a one-texel border for the slope at the tile edge.
+        int     stride = w + 2;
+        float[] hs     = new float[stride * (h + 2)];
+        for (int j = -1; j <= h; j++) {
+            int wz = worldCoord(oz, z0 + j, texel);
+            for (int i = -1; i <= w; i++) {
+                hs[(j + 1) * stride + i + 1] = heights.surface(worldCoord(ox, x0 + i, texel), wz, hLevel);
+            }
+        }
+
+        float relief = RELIEF * (float) Math.sqrt(Math.scalb(1.0, level));
+        int   sea    = GotChunkGenerator.SEA_LEVEL;
+        int[] argb   = new int[w * h];
+        for (int j = 0; j < h; j++) {
+            int wz = worldCoord(oz, z0 + j, texel);
+            for (int i = 0; i < w; i++) {
+                int   c   = (j + 1) * stride + i + 1;
+                int   rgb = map.colorAtWorld(worldCoord(ox, x0 + i, texel), wz);
+                float y   = hs[c];
+                float shade;
+                if (y < sea) {
+                    shade = Mth.clamp(1f - (sea - y) / 80f, 0.55f, 1f);
+                } else {
+                    float dx = (hs[c + 1]      - hs[c - 1])      * relief / (float) (2 * texel);
+                    float dz = (hs[c + stride] - hs[c - stride]) * relief / (float) (2 * texel);
+                    // n · l for a light 45° up in the north-west, normalised so flat ground is 1.
+                    shade = Mth.clamp((dx + dz + Mth.SQRT_OF_TWO) / (Mth.SQRT_OF_TWO * (float) Math.sqrt(1 + dx * dx + dz * dz)),
+                                      0.35f, 1.35f);
+                }
+                argb[j * w + i] = 0xFF000000 | scale(rgb, shade);
+            }
+        }
+        return argb;
+    }
+
+    /**
+     * A 64-bit fingerprint of rendered texels, computed the same way on
+     * both sides of the connection; never {@code 0}, which stands for "no
+     * copy".
+     */
+    public static long hash(int[] argb) {
+        long h = 0xCBF29CE484222325L ^ argb.length;
+        for (int v : argb) {
+            h = (h ^ v) * 0x100000001B3L;
+            h ^= h >>> 29;
+        }
+        return h == 0L ? 1L : h;
+    }
+
+    // ── Helpers ───────────────────────────────────────────────────────────
+
+    private static int worldCoord(double origin, int texel, double texelBlocks) {
+        return Mth.floor(origin + (texel + 0.5) * texelBlocks);
+    }
+
+    private static int scale(int rgb, float f) {
+        int r = Math.min(255, (int) ((rgb >> 16 & 0xFF) * f));
+        int g = Math.min(255, (int) ((rgb >>  8 & 0xFF) * f));
+        int b = Math.min(255, (int) ((rgb       & 0xFF) * f));
+        return r << 16 | g << 8 | b;
+    }
+}
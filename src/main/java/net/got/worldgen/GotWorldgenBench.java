@@ -0,0 +1,238 @@
+package net.got.worldgen;
+
+import net.got.GotMod;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.server.packs.PackType;
+import net.minecraft.server.packs.repository.Pack;
+import net.minecraft.server.packs.repository.PackSource;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.neoforged.neoforge.event.AddPackFindersEvent;
+
+import java.util.Comparator;
+
+/**
+ * {@code /got bench worldgen <radius>} — generates a square of fresh chunks in
+ * the {@code got:bench_scratch} dimension and reports throughput plus a
+ * per-stage timing breakdown.
+ *
+ * <h2>How a run works</h2>
+ * <ol>
+ *   <li>A {@link GotWorldgenProfiler} is attached to the scratch dimension's
+ *       {@link GotChunkGenerator}.</li>
+ *   <li>A region ticket of the requested radius is placed on a chunk of the
+ *       painted map that no earlier run has touched.  The normal chunk
+ *       system then generates the square to {@code FULL} on its own worker
+ *       threads — exactly as it does for players, on a dedicated server and
+ *       in singleplayer alike.</li>
+ *   <li>Every tick the run checks whether the whole square is loaded; when it
+ *       is, the clock stops, the ticket is removed and the report is sent.</li>
+ * </ol>
+ *
+ * <h2>The scratch dimension</h2>
+ * <p>{@code got:bench_scratch} comes from a built-in datapack, {@link #PACK},
+ * that is offered in the data pack list but never enabled by default, so
+ * ordinary worlds do not carry a dimension they never use.  Enable it when
+ * creating a test world, or with {@code /datapack enable} followed by a
+ * restart — dimensions are only read when the world loads.
+ *
+ * <p>The scratch level is set to {@code noSave}, so benchmark chunks are
+ * discarded when they unload instead of growing the save.  Stage timings
+ * cover every chunk the run generated, including the lower-status border
+ * ring that feature placement needs; throughput counts only the square.
+ */
+public final class GotWorldgenBench {
+
+    public static final ResourceKey<Level> BENCH_LEVEL = ResourceKey.create(Registries.DIMENSION,
+            ResourceLocation.fromNamespaceAndPath(GotMod.MODID, "bench_scratch"));
+
+    /** Jar path of the opt-in datapack that adds {@link #BENCH_LEVEL}. */
+    public static final ResourceLocation PACK =
+            ResourceLocation.fromNamespaceAndPath(GotMod.MODID, "datapacks/bench_scratch");
+
+    /** Largest radius a single region ticket can hold at {@code FULL}. */
+    public static final int MAX_RADIUS = 32;
+
+    /** A run that has not finished after this many ticks (10 minutes) is abandoned. */
+    private static final int TIMEOUT_TICKS = 20 * 60 * 10;
+
+    private static final TicketType<ChunkPos> BENCH_TICKET =
+            TicketType.create("got_bench", Comparator.comparingLong(ChunkPos::toLong));
+
+    private static Run running;
+    private static int runCount;
+
+    private GotWorldgenBench() {}
+
+    /** Offers {@link #PACK} as an optional server data pack. */
+    public static void addPackFinders(AddPackFindersEvent event) {
+        event.addPackFinders(PACK, PackType.SERVER_DATA, Component.literal("GoT worldgen benchmark"),
+                PackSource.FEATURE, false, Pack.Position.TOP);
+    }
+
+    /** Abandons a run in progress; called when the server stops, so the next world can bench. */
+    public static void abort() {
+        Run run = running;
+        if (run == null) return;
+        run.finish();
+        GotMod.LOGGER.info("[GoT] Worldgen bench abandoned: server stopping");
+    }
+
+    // ── Command entry point ───────────────────────────────────────────────
+
+    public static int start(CommandSourceStack source, int radius) {
+        if (running != null) {
+            source.sendFailure(Component.literal("A worldgen benchmark is already running"));
+            return 0;
+        }
+        ServerLevel level = source.getServer().getLevel(BENCH_LEVEL);
+        if (level == null || !(level.getChunkSource().getGenerator() instanceof GotChunkGenerator generator)) {
+            source.sendFailure(Component.literal("Benchmark dimension " + BENCH_LEVEL.location()
+                    + " is missing or not a GoT dimension; enable the data pack \"mod/" + PACK
+                    + "\" and restart"));
+            return 0;
+        }
+        if (!generator.context().map().isLoaded()) {
+            source.sendFailure(Component.literal("Biomemap " + generator.context().mapId() + " is not loaded"));
+            return 0;
+        }
+
+        level.noSave = true;
+        ChunkPos center = freshCenter(generator);
+        Run run = new Run(source, level, generator, center, radius);
+        running = run;
+        run.begin();
+        source.sendSuccess(() -> Component.literal(String.format(
+                "Benchmarking %d chunks around chunk %d, %d in %s…",
+                run.total, center.x, center.z, BENCH_LEVEL.location())), true);
+        return 1;
+    }
+
+    /**
+     * Centre for the next run.  Runs walk a grid of squares a full square
+     * plus margin apart, laid over the painted map: the first is the cell
+     * holding the configured spawn pixel, each next one is a cell further
+     * east, wrapping to the next row at the map's east edge and back to the
+     * north-west corner after the last cell, so a run never leaves the map.
+     * Scratch chunks are not saved, so a revisited cell is fresh again once
+     * its earlier run has unloaded.
+     */
+    private static ChunkPos freshCenter(GotChunkGenerator generator) {
+        BiomemapSnapshot map = generator.context().map();
+        int px = generator.getSpawnPixelX();
+        int pz = generator.getSpawnPixelZ();
+        if (px < 0 || pz < 0) { px = map.width() / 2; pz = map.height() / 2; }
+
+        int halfX  = map.width()  * map.scale() / 2;
+        int halfZ  = map.height() * map.scale() / 2;
+        int west   = Math.floorDiv(-halfX, 16) + MAX_RADIUS;
+        int north  = Math.floorDiv(-halfZ, 16) + MAX_RADIUS;
+        int stride = MAX_RADIUS * 2 + 16;
+        int cols   = Math.max(1, ((halfX >> 4) - 1 - MAX_RADIUS - west) / stride + 1);
+        int rows   = Math.max(1, ((halfZ >> 4) - 1 - MAX_RADIUS - north) / stride + 1);
+
+        int spawnX = Math.floorDiv((int) ((px - map.width()  * 0.5f) * map.scale()), 16);
+        int spawnZ = Math.floorDiv((int) ((pz - map.height() * 0.5f) * map.scale()), 16);
+        int col    = Mth.clamp(Math.floorDiv(spawnX - west,  stride), 0, cols - 1);
+        int row    = Mth.clamp(Math.floorDiv(spawnZ - north, stride), 0, rows - 1);
+
+        int cell = Math.floorMod(row * cols + col + runCount++, cols * rows);
+        return new ChunkPos(west + cell % cols * stride, north + cell / cols * stride);
+    }
+
+    // ── Run ───────────────────────────────────────────────────────────────
+
+    private static final class Run {
+        final CommandSourceStack  source;
+        final ServerLevel         level;
+        final GotChunkGenerator   generator;
+        final ChunkPos            center;
+        final int                 radius;
+        final int                 total;
+        final GotWorldgenProfiler profiler = new GotWorldgenProfiler();
+        long startNanos;
+        int  ticks;
+
+        Run(CommandSourceStack source, ServerLevel level, GotChunkGenerator generator,
+            ChunkPos center, int radius) {
+            this.source    = source;
+            this.level     = level;
+            this.generator = generator;
+            this.center    = center;
+            this.radius    = radius;
+            this.total     = (radius * 2 + 1) * (radius * 2 + 1);
+        }
+
+        void begin() {
+            generator.setProfiler(profiler);
+            startNanos = System.nanoTime();
+            level.getChunkSource().addRegionTicket(BENCH_TICKET, center, radius, center);
+            GotMod.queueServerWork(1, this::poll);
+        }
+
+        void poll() {
+            // Abandoned (server stopped) or left over from a world that has since closed.
+            if (running != this) return;
+            if (!level.getServer().isRunning()) {
+                // Its tickets went with it.
+                generator.setProfiler(null);
+                running = null;
+                return;
+            }
+            ticks++;
+            int done = loadedChunks();
+            if (done < total && ticks < TIMEOUT_TICKS) {
+                GotMod.queueServerWork(1, this::poll);
+                return;
+            }
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            finish();
+            if (done < total) {
+                source.sendFailure(Component.literal(String.format(
+                        "Benchmark timed out: %d / %d chunks after %.1f s", done, total, seconds)));
+            } else {
+                report(seconds);
+            }
+        }
+
+        int loadedChunks() {
+            ServerChunkCache cache = level.getChunkSource();
+            int n = 0;
+            for (int x = center.x - radius; x <= center.x + radius; x++) {
+                for (int z = center.z - radius; z <= center.z + radius; z++) {
+                    if (cache.getChunkNow(x, z) != null) n++;
+                }
+            }
+            return n;
+        }
+
+        void finish() {
+            generator.setProfiler(null);
+            level.getChunkSource().removeRegionTicket(BENCH_TICKET, center, radius, center);
+            running = null;
+        }
+
+        void report(double seconds) {
+            String header = String.format("[GoT] Worldgen bench: %d chunks in %.2f s — %.1f chunks/s",
+                    total, seconds, total / seconds);
+            source.sendSuccess(() -> Component.literal(header), true);
+            GotMod.LOGGER.info(header);
+
+            for (GotWorldgenProfiler.Stage stage : GotWorldgenProfiler.Stage.values()) {
+                GotWorldgenProfiler.Summary s = profiler.summary(stage);
+                String line = String.format("  %-30s n=%-6d mean %8.3f ms   p99 %8.3f ms",
+                        stage.label, s.count(), s.meanMs(), s.p99Ms());
+                source.sendSuccess(() -> Component.literal(line), false);
+                GotMod.LOGGER.info(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package net.got.worldgen;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.util.Arrays;
+
+/**
+ * Per-stage wall-clock samples collected by a {@link GotChunkGenerator} while
+ * a profiler is attached ({@link GotChunkGenerator#setProfiler}).
+ *
+ * <p>Worldgen stages run on the chunk worker threads, so every stage has its
+ * own lock-guarded sample list.  With no profiler attached the generator pays
+ * one volatile read per stage and records nothing.
+ */
+public final class GotWorldgenProfiler {
+
+    /** Timed generator stages, in pipeline order. */
+    public enum Stage {
+        BIOMES  ("biomes"),
+        NOISE   ("fillFromNoise"),
+        SURFACE ("buildSurface/native"),
+        MUD     ("buildSurface/applyCoastalMud"),
+        CARVERS ("applyCarvers"),
+        FEATURES("features");
+
+        public final String label;
+
+        Stage(String label) { this.label = label; }
+    }
+
+    /** Count, mean and 99th percentile of one stage, in milliseconds. */
+    public record Summary(Stage stage, int count, double meanMs, double p99Ms) {}
+
+    private final LongArrayList[] samples = new LongArrayList[Stage.values().length];
+
+    public GotWorldgenProfiler() {
+        for (int i = 0; i < samples.length; i++) samples[i] = new LongArrayList();
+    }
+
+    public void record(Stage stage, long nanos) {
+        LongArrayList list = samples[stage.ordinal()];
+        synchronized (list) {
+            list.add(nanos);
+        }
+    }
+
+    public Summary summary(Stage stage) {
+        long[] sorted;
+        LongArrayList list = samples[stage.ordinal()];
+        synchronized (list) {
+            sorted = list.toLongArray();
+        }
+        if (sorted.length == 0) return new Summary(stage, 0, 0, 0);
+
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long s : sorted) total += s;
+        int p99 = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.99) - 1);
+        return new Summary(stage, sorted.length,
+                total / (double) sorted.length / 1_000_000.0,
+                sorted[p99] / 1_000_000.0);
+    }
+}
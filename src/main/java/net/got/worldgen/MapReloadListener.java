@@ -1,6 +1,7 @@
 package net.got.worldgen;
 
 import com.mojang.logging.LogUtils;
+import net.minecraft.resources.FileToIdConverter;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
@@ -10,43 +11,94 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Datapack reload listener that loads the biomemap PNG:
- *   got:worldgen/map/biomemap.png — biome placement paint-over
+ * Datapack reload listener that loads the biomemap palette and every map PNG:
+ *   got:worldgen/biomecolors/biome_colors.json — colour → biome palette
+ *   &lt;ns&gt;:worldgen/map/&lt;path&gt;.png            — biome placement paint-over,
+ *                                                  map id {@code <ns>:<path>}
+ *   &lt;ns&gt;:worldgen/map/&lt;path&gt;.json           — a tiled map of the same id, its
+ *                                                  tiles under worldgen/map_tiles/&lt;path&gt;/
  *
  * In the biome-driven terrain system, there is no separate heightmap PNG.
  * Terrain height is derived from the biome category at each position.
  *
  * Reloaded whenever datapacks are applied so /reload works during development.
+ * {@link #prepare} builds the new {@link BiomemapSnapshot}s on the reload
+ * worker; {@link #apply} publishes them in one reference swap, so chunk-gen
+ * workers never observe a half-built map.  A map that fails to load keeps
+ * its previous snapshot; a palette failure keeps every previous map.
+ * Single-PNG maps go through {@link BiomemapCache}, so an unchanged PNG is
+ * not decoded again.
  */
-public class MapReloadListener extends SimplePreparableReloadListener<Void> {
+public class MapReloadListener extends SimplePreparableReloadListener<Map<ResourceLocation, BiomemapSnapshot>> {
 
     private static final Logger LOGGER = LogUtils.getLogger();
 
-    private static final ResourceLocation BIOMEMAP =
-            ResourceLocation.fromNamespaceAndPath("got", "worldgen/map/biomemap.png");
+    private static final FileToIdConverter MAPS  = new FileToIdConverter("worldgen/map", ".png");
+    private static final FileToIdConverter TILED = new FileToIdConverter("worldgen/map", ".json");
 
-    @Override
-    protected @NotNull Void prepare(@NotNull ResourceManager manager, @NotNull ProfilerFiller profiler) {
+    private static final ResourceLocation PALETTE =
+            ResourceLocation.fromNamespaceAndPath("got", "worldgen/biomecolors/biome_colors.json");
 
+    @Override
+    protected Map<ResourceLocation, BiomemapSnapshot> prepare(@NotNull ResourceManager manager,
+                                                              @NotNull ProfilerFiller profiler) {
+        GotBiomePalette palette;
         try {
-            Resource biomeRes = manager.getResourceOrThrow(BIOMEMAP);
-            try (InputStream stream = biomeRes.open()) {
-                BiomemapLoader.load(stream);
+            Resource paletteRes = manager.getResourceOrThrow(PALETTE);
+            try (InputStream stream = paletteRes.open()) {
+                palette = GotBiomePalette.load(stream);
             }
-            LOGGER.info("[GoT Worldgen] Biomemap loaded successfully");
         } catch (Exception e) {
-            LOGGER.error("[GoT Worldgen] Failed to load biomemap: {}", e.getMessage());
+            LOGGER.error("[GoT Worldgen] Failed to load biome palette: {}", e.getMessage());
             e.printStackTrace();
+            return null;
+        }
+
+        Map<ResourceLocation, BiomemapSnapshot> loaded = new HashMap<>();
+        for (Map.Entry<ResourceLocation, Resource> entry : MAPS.listMatchingResources(manager).entrySet()) {
+            ResourceLocation id = MAPS.fileToId(entry.getKey());
+            try (InputStream stream = entry.getValue().open()) {
+                loaded.put(id, BiomemapCache.load(id, stream, palette));
+            } catch (Exception e) {
+                keepPrevious(loaded, id, e);
+            }
         }
+        for (Map.Entry<ResourceLocation, Resource> entry : TILED.listMatchingResources(manager).entrySet()) {
+            ResourceLocation id = TILED.fileToId(entry.getKey());
+            if (loaded.containsKey(id)) {
+                LOGGER.warn("[GoT Worldgen] Biomemap {} has both a PNG and a tiled descriptor; using the PNG", id);
+                continue;
+            }
+            try (InputStream stream = entry.getValue().open()) {
+                BiomemapLoader.TiledMap spec = BiomemapLoader.TiledMap.parse(stream);
+                loaded.put(id, BiomemapLoader.buildTiled(spec, (tx, tz) -> {
+                    var tile = manager.getResource(id.withPath(p -> "worldgen/map_tiles/" + p + "/" + tx + "_" + tz + ".png"));
+                    return tile.isPresent() ? tile.get().open() : null;
+                }, palette));
+            } catch (Exception e) {
+                keepPrevious(loaded, id, e);
+            }
+        }
+        return loaded;
+    }
 
-        return null;
+    private static void keepPrevious(Map<ResourceLocation, BiomemapSnapshot> loaded, ResourceLocation id, Exception e) {
+        LOGGER.error("[GoT Worldgen] Failed to load biomemap {}: {}", id, e.getMessage());
+        e.printStackTrace();
+        BiomemapSnapshot previous = BiomemapLoader.snapshot(id);
+        if (previous.isLoaded()) loaded.put(id, previous);
     }
 
     @Override
-    protected void apply(@NotNull Void object, @NotNull ResourceManager manager,
+    protected void apply(Map<ResourceLocation, BiomemapSnapshot> maps, @NotNull ResourceManager manager,
                          @NotNull ProfilerFiller profiler) {
-        // Nothing to apply — data is already live in BiomemapLoader
+        if (maps == null) return;
+        // Derived caches notice the new versions on their next lookup.
+        BiomemapLoader.publish(maps);
+        LOGGER.info("[GoT Worldgen] {} biomemap(s) loaded: {}", maps.size(), maps.keySet());
     }
-}
\ No newline at end of file
+}
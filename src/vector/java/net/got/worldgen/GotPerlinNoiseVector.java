@@ -0,0 +1,135 @@
+package net.got.worldgen;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@code jdk.incubator.vector} kernel behind {@link GotPerlinNoise#sampleLattice}.
+ *
+ * <p>Evaluates one lattice row — many X values at a fixed (Y, Z) — with every
+ * lane running the exact same sequence of IEEE float operations as the scalar
+ * {@link GotPerlinNoise#sample}: the same hash, the same gradient selection,
+ * the same quintic fade and the same lerp order.  No fused multiply-add is
+ * used, so the output is bit-identical to the scalar path and existing worlds
+ * do not shift.
+ *
+ * <p>This class is only loaded after {@link GotPerlinNoise} has confirmed the
+ * incubator module is present; never reference it from anywhere else.
+ */
+final class GotPerlinNoiseVector {
+
+    private static final VectorSpecies<Float>   F = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> I = F.withLanes(int.class);
+
+    private GotPerlinNoiseVector() {}
+
+    /** Lanes per vector on this machine (8 on AVX2). */
+    static int lanes() { return F.length(); }
+
+    /**
+     * Writes {@code sample(xs[xOff + i], y, z, seed) * NORM} into
+     * {@code out[outOff + i]} for {@code i < count}.  The tail that does not
+     * fill a whole vector is left to the caller.
+     *
+     * @return number of elements written (a multiple of {@link #lanes()})
+     */
+    static int sampleRow(float[] xs, int xOff, int count, float y, float z, int seed,
+                         float norm, float[] out, int outOff) {
+        // Y and Z are uniform across the row — resolve them once as scalars.
+        int   iy = (int) Math.floor(y);
+        int   iz = (int) Math.floor(z);
+        float fy = y - iy;
+        float fz = z - iz;
+        float uy = fade(fy);
+        float uz = fade(fz);
+
+        // Partial hash terms that do not depend on X, one per (y, z) corner.
+        int k00 = iy       * 31337 + iz       * 6547 + seed * 1013;
+        int k10 = (iy + 1) * 31337 + iz       * 6547 + seed * 1013;
+        int k01 = iy       * 31337 + (iz + 1) * 6547 + seed * 1013;
+        int k11 = (iy + 1) * 31337 + (iz + 1) * 6547 + seed * 1013;
+
+        int bound = F.loopBound(count);
+        for (int i = 0; i < bound; i += F.length()) {
+            FloatVector x  = FloatVector.fromArray(F, xs, xOff + i);
+
+            // ix = (int) Math.floor(x): truncate, then step down where trunc > x.
+            IntVector   it = (IntVector)   x.convert(VectorOperators.F2I, 0);
+            FloatVector ft = (FloatVector) it.convert(VectorOperators.I2F, 0);
+            VectorMask<Float> below = x.lt(ft);
+            IntVector   ix = it.sub(1, below.cast(I));
+
+            FloatVector fx  = x.sub((FloatVector) ix.convert(VectorOperators.I2F, 0));
+            FloatVector fx1 = fx.sub(1f);
+            FloatVector ux  = fade(fx);
+
+            IntVector hx0 = ix.mul(1619);
+            IntVector hx1 = ix.add(1).mul(1619);
+
+            FloatVector n000 = grad(hash(hx0, k00), fx,  fy,     fz);
+            FloatVector n100 = grad(hash(hx1, k00), fx1, fy,     fz);
+            FloatVector n010 = grad(hash(hx0, k10), fx,  fy - 1, fz);
+            FloatVector n110 = grad(hash(hx1, k10), fx1, fy - 1, fz);
+            FloatVector n001 = grad(hash(hx0, k01), fx,  fy,     fz - 1);
+            FloatVector n101 = grad(hash(hx1, k01), fx1, fy,     fz - 1);
+            FloatVector n011 = grad(hash(hx0, k11), fx,  fy - 1, fz - 1);
+            FloatVector n111 = grad(hash(hx1, k11), fx1, fy - 1, fz - 1);
+
+            FloatVector x0 = lerp(ux, n000, n100);
+            FloatVector x1 = lerp(ux, n010, n110);
+            FloatVector x2 = lerp(ux, n001, n101);
+            FloatVector x3 = lerp(ux, n011, n111);
+            FloatVector y0 = lerp(uy, x0, x1);
+            FloatVector y1 = lerp(uy, x2, x3);
+
+            lerp(uz, y0, y1).mul(norm).intoArray(out, outOff + i);
+        }
+        return bound;
+    }
+
+    // ── Lane-wise versions of the GotPerlinNoise internals ────────────────
+
+    /** {@code hash(x, y, z, seed)} with the X term vectorised and the rest pre-summed. */
+    private static IntVector hash(IntVector xTerm, int rest) {
+        IntVector n = xTerm.add(rest);
+        n = n.lanewise(VectorOperators.LSHL, 13).lanewise(VectorOperators.XOR, n);
+        return n.mul(n.mul(n).mul(15731).add(789221)).add(1376312589);
+    }
+
+    private static FloatVector grad(IntVector hash, FloatVector dx, float dy, float dz) {
+        IntVector   h   = hash.and(15);
+        FloatVector vdy = FloatVector.broadcast(F, dy);
+        FloatVector vdz = FloatVector.broadcast(F, dz);
+
+        VectorMask<Float> lt8    = h.lt(8).cast(F);
+        VectorMask<Float> lt4    = h.lt(4).cast(F);
+        VectorMask<Float> is1214 = h.eq(12).or(h.eq(14)).cast(F);
+        VectorMask<Float> negU   = h.and(1).compare(VectorOperators.NE, 0).cast(F);
+        VectorMask<Float> negV   = h.and(2).compare(VectorOperators.NE, 0).cast(F);
+
+        FloatVector u = vdy.blend(dx, lt8);
+        FloatVector v = vdz.blend(dx, is1214).blend(vdy, lt4);
+        u = u.blend(u.neg(), negU);
+        v = v.blend(v.neg(), negV);
+        return u.add(v);
+    }
+
+    private static FloatVector fade(FloatVector t) {
+        return t.mul(t).mul(t).mul(t.mul(t.mul(6f).sub(15f)).add(10f));
+    }
+
+    private static float fade(float t) {
+        return t * t * t * (t * (t * 6f - 15f) + 10f);
+    }
+
+    private static FloatVector lerp(FloatVector t, FloatVector a, FloatVector b) {
+        return a.add(t.mul(b.sub(a)));
+    }
+
+    private static FloatVector lerp(float t, FloatVector a, FloatVector b) {
+        return a.add(b.sub(a).mul(t));
+    }
+}